@@ -0,0 +1,126 @@
+package com.ecommerce.cache.benchmark;
+
+import com.ecommerce.cache.config.RedisConfig;
+import com.ecommerce.cache.model.Cart;
+import com.ecommerce.cache.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Representative payloads, shaped like what the catalog and cart services cache
+final class BenchmarkFixtures {
+
+    static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 15, 12, 0);
+
+    private BenchmarkFixtures() {
+    }
+
+    static ObjectMapper objectMapper() {
+        return new RedisConfig().objectMapper();
+    }
+
+    static Jackson2JsonRedisSerializer<Object> jsonSerializer(ObjectMapper objectMapper) {
+        return new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+    }
+
+    static Product product(int i) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("color", "midnight blue");
+        attributes.put("material", "recycled polyester mesh");
+        attributes.put("weight", "280g");
+        attributes.put("fit", "true to size");
+
+        return Product.builder()
+                .id("product-" + i)
+                .name("Trail Runner " + i)
+                .description(("Lightweight trail running shoe with a breathable mesh upper, "
+                        + "rock plate and a grippy lugged outsole for technical terrain. ").repeat(6))
+                .category("footwear")
+                .brand("Northline")
+                .sku("NL-TR-" + i)
+                .price(new BigDecimal("129.99"))
+                .originalPrice(new BigDecimal("149.99"))
+                .stockQuantity(250)
+                .rating(4.6)
+                .reviewCount(1874)
+                .images(List.of("https://cdn.example.com/p/" + i + "/1.jpg",
+                        "https://cdn.example.com/p/" + i + "/2.jpg",
+                        "https://cdn.example.com/p/" + i + "/3.jpg"))
+                .attributes(attributes)
+                .tags(List.of("running", "trail", "outdoor", "lightweight"))
+                .active(true)
+                .featured(i % 10 == 0)
+                .createdAt(NOW)
+                .updatedAt(NOW)
+                .metaTitle("Trail Runner " + i + " | Northline")
+                .metaDescription("Shop the Trail Runner " + i)
+                .slug("trail-runner-" + i)
+                .build();
+    }
+
+    static Cart cart(int itemCount) {
+        List<Cart.CartItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            BigDecimal unitPrice = BigDecimal.valueOf(1999 + i * 100L, 2);
+            items.add(Cart.CartItem.builder()
+                    .productId("product-" + i)
+                    .productName("Trail Runner " + i)
+                    .sku("NL-TR-" + i)
+                    .quantity(1 + i % 3)
+                    .unitPrice(unitPrice)
+                    .totalPrice(unitPrice.multiply(BigDecimal.valueOf(1 + i % 3)))
+                    .imageUrl("https://cdn.example.com/p/" + i + "/1.jpg")
+                    .variant("size 42")
+                    .build());
+        }
+        return Cart.builder()
+                .id("cart-1")
+                .userId("user-1")
+                .sessionId("session-1")
+                .items(items)
+                .subtotal(new BigDecimal("250.00"))
+                .tax(new BigDecimal("20.00"))
+                .shipping(BigDecimal.ZERO)
+                .total(new BigDecimal("270.00"))
+                .currency("USD")
+                .createdAt(NOW)
+                .updatedAt(NOW)
+                .expiresAt(NOW.plusHours(24))
+                .build();
+    }
+
+    // Cart hash fields as the cart scripts leave them: integer cents, per-item JSON
+    static Map<String, Object> cartFields(int itemCount) {
+        Map<String, Object> fields = new HashMap<>();
+        long subtotal = 0;
+        for (int i = 0; i < itemCount; i++) {
+            String productId = "product-" + i;
+            int quantity = 1 + i % 3;
+            long unitCents = 1999 + i * 100L;
+            fields.put("qty:" + productId, quantity);
+            fields.put("price:" + productId, unitCents);
+            fields.put("item:" + productId, Map.of(
+                    "productName", "Trail Runner " + i,
+                    "sku", "NL-TR-" + i,
+                    "imageUrl", "https://cdn.example.com/p/" + i + "/1.jpg"));
+            subtotal += quantity * unitCents;
+        }
+        fields.put("userId", "user-1");
+        fields.put("sessionId", "session-1");
+        fields.put("currency", "USD");
+        fields.put("subtotalCents", subtotal);
+        fields.put("taxCents", subtotal * 8 / 100);
+        fields.put("shippingCents", subtotal >= 5000 ? 0L : 999L);
+        fields.put("itemCount", (long) itemCount);
+        fields.put("createdAt", NOW.toString());
+        fields.put("updatedAt", NOW.toString());
+        fields.put("expiresAt", NOW.plusHours(24).toString());
+        return fields;
+    }
+}
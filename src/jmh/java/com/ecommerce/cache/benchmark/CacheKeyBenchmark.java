@@ -0,0 +1,72 @@
+package com.ecommerce.cache.benchmark;
+
+import com.ecommerce.cache.cache.KeyLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Key construction on every cache call: prefix concatenation, the session/cart layouts,
+// and the UTF-8 encoding the native async paths apply to each key.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    @Param({"LEGACY", "COLOCATED"})
+    public KeyLayout.Mode mode;
+
+    private final String productPrefix = "l1:product:";
+    private KeyLayout keyLayout;
+    private String productId;
+    private String sessionId;
+    private String cartId;
+
+    @Setup
+    public void setUp() {
+        keyLayout = new KeyLayout();
+        ReflectionTestUtils.setField(keyLayout, "mode", mode);
+        ReflectionTestUtils.setField(keyLayout, "readLegacyFallback", true);
+        ReflectionTestUtils.setField(keyLayout, "l2SessionPrefix", "l2:session:");
+        ReflectionTestUtils.setField(keyLayout, "l2CartPrefix", "l2:cart:");
+
+        productId = "product-12345";
+        sessionId = UUID.randomUUID().toString();
+        cartId = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String productKey() {
+        return productPrefix + productId;
+    }
+
+    @Benchmark
+    public String sessionKey() {
+        return keyLayout.sessionKey(sessionId);
+    }
+
+    @Benchmark
+    public String cartKey() {
+        return keyLayout.cartKey(sessionId, cartId);
+    }
+
+    @Benchmark
+    public byte[] productKeyBytes() {
+        return (productPrefix + productId).getBytes(StandardCharsets.UTF_8);
+    }
+}
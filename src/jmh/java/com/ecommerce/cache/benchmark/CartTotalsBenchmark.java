@@ -0,0 +1,59 @@
+package com.ecommerce.cache.benchmark;
+
+import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.model.Cart;
+import com.ecommerce.cache.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Building a Cart and its totals from the cart hash, with Redis replaced by fixed
+// fields so only the Java side (cents to BigDecimal, item assembly) is measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartTotalsBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int items;
+
+    private CartService cartService;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> session = Map.of("userId", "user-1", "cartId", "cart-1");
+        Map<String, Object> fields = BenchmarkFixtures.cartFields(items);
+
+        RedisCacheService redis = new RedisCacheService(null, null, null, null, null, null, null, null) {
+            @Override
+            public Map<String, Object> getUserSession(String sessionId) {
+                return session;
+            }
+
+            @Override
+            public Map<String, Object> getCart(String sessionId, String cartId) {
+                return fields;
+            }
+        };
+        cartService = new CartService(redis, null, null, null);
+    }
+
+    @Benchmark
+    public Cart cartWithTotals() {
+        return cartService.getOrCreateCart("user-1", "session-1");
+    }
+}
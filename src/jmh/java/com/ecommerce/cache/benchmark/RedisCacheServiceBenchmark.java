@@ -0,0 +1,158 @@
+package com.ecommerce.cache.benchmark;
+
+import com.ecommerce.cache.cache.KeyLayout;
+import com.ecommerce.cache.cache.ProductLayout;
+import com.ecommerce.cache.cache.ProductNearCache;
+import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.cache.RedisClusterManager;
+import com.ecommerce.cache.cache.RequestLookupMemo;
+import com.ecommerce.cache.cache.StaleFallbackCache;
+import com.ecommerce.cache.cache.TieredRedisTemplates;
+import com.ecommerce.cache.config.RedisConfig;
+import com.ecommerce.cache.model.CacheStats;
+import com.ecommerce.cache.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// RedisCacheService product reads and writes against an embedded standalone Redis,
+// wired the way the application context wires it (per-tier templates, breakers,
+// compression). The stats group measures getStats while readers bump the counters.
+// Set -Dbench.redis.port to move the embedded server off the default port.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisCacheServiceBenchmark {
+
+    private static final int PRODUCTS = 1000;
+
+    @Param({"0", "1024"})
+    public int compressionThreshold;
+
+    private RedisServer server;
+    private ClientResources clientResources;
+    private LettuceConnectionFactory connectionFactory;
+    private TieredRedisTemplates tieredTemplates;
+    private RedisCacheService cacheService;
+    private Product product;
+
+    @Setup
+    public void setUp() throws Exception {
+        int port = Integer.getInteger("bench.redis.port", 6390);
+        server = new RedisServer(port);
+        server.start();
+
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        clientResources = DefaultClientResources.create();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        RedisProperties properties = new RedisProperties();
+        properties.setHost("localhost");
+        properties.setPort(port);
+        properties.setTimeout(Duration.ofSeconds(2));
+
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmark", Map.<String, Object>of(
+                "cache.tiers.l1-product.compression.threshold-bytes", compressionThreshold)));
+
+        tieredTemplates = new TieredRedisTemplates(
+                new RedisConfig().redisTemplate(connectionFactory, objectMapper), properties, clientResources,
+                new DefaultListableBeanFactory().getBeanProvider(LettuceClientConfigurationBuilderCustomizer.class),
+                environment, meterRegistry);
+
+        KeyLayout keyLayout = new KeyLayout();
+        ReflectionTestUtils.setField(keyLayout, "mode", KeyLayout.Mode.LEGACY);
+        ReflectionTestUtils.setField(keyLayout, "l2SessionPrefix", "l2:session:");
+        ReflectionTestUtils.setField(keyLayout, "l2CartPrefix", "l2:cart:");
+
+        ProductLayout productLayout = new ProductLayout();
+        ReflectionTestUtils.setField(productLayout, "mode", ProductLayout.Mode.DOCUMENT);
+
+        cacheService = new RedisCacheService(objectMapper, new RedisClusterManager(connectionFactory, properties, environment),
+                new RequestLookupMemo(meterRegistry), keyLayout, productLayout, tieredTemplates,
+                new StaleFallbackCache(10000, 600000, meterRegistry),
+                new ProductNearCache(false, 0, 1, List.of(), 0, meterRegistry));
+        ReflectionTestUtils.setField(cacheService, "l1ProductPrefix", "l1:product:");
+        ReflectionTestUtils.setField(cacheService, "l1ProductTtl", 86400L);
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            cacheService.setProduct("product-" + i, BenchmarkFixtures.product(i));
+        }
+        product = BenchmarkFixtures.product(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tieredTemplates.destroy();
+        connectionFactory.destroy();
+        clientResources.shutdown();
+        server.stop();
+    }
+
+    @Benchmark
+    public Product getProductHit() {
+        return cacheService.getProduct("product-" + ThreadLocalRandom.current().nextInt(PRODUCTS), Product.class);
+    }
+
+    @Benchmark
+    public Product getProductMiss() {
+        return cacheService.getProduct("missing-" + ThreadLocalRandom.current().nextInt(PRODUCTS), Product.class);
+    }
+
+    @Benchmark
+    public void setProduct() {
+        cacheService.setProduct("product-" + ThreadLocalRandom.current().nextInt(PRODUCTS), product);
+    }
+
+    @Benchmark
+    @Group("statsUnderLoad")
+    @GroupThreads(3)
+    public Product statsReaders() {
+        return getProductHit();
+    }
+
+    @Benchmark
+    @Group("statsUnderLoad")
+    @GroupThreads(1)
+    public CacheStats statsPoller() {
+        return cacheService.getStats();
+    }
+}
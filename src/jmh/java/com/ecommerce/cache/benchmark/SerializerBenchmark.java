@@ -0,0 +1,77 @@
+package com.ecommerce.cache.benchmark;
+
+import com.ecommerce.cache.cache.CompressingRedisSerializer;
+import com.ecommerce.cache.model.Cart;
+import com.ecommerce.cache.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+// Value encode/decode as the tier templates do it. Decoding a product includes the
+// convertValue step RedisCacheService.getProduct applies to the generic JSON tree.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    // 0 is the plain JSON serializer; otherwise the compression threshold in bytes
+    @Param({"0", "1024"})
+    public int compressionThreshold;
+
+    @Param({"10"})
+    public int cartItems;
+
+    private ObjectMapper objectMapper;
+    private RedisSerializer<Object> serializer;
+    private Product product;
+    private Cart cart;
+    private byte[] productBytes;
+    private byte[] cartBytes;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        RedisSerializer<Object> json = BenchmarkFixtures.jsonSerializer(objectMapper);
+        serializer = compressionThreshold > 0 ? new CompressingRedisSerializer(json, compressionThreshold, 67_108_864) : json;
+
+        product = BenchmarkFixtures.product(1);
+        cart = BenchmarkFixtures.cart(cartItems);
+        productBytes = serializer.serialize(product);
+        cartBytes = serializer.serialize(cart);
+    }
+
+    @Benchmark
+    public byte[] encodeProduct() {
+        return serializer.serialize(product);
+    }
+
+    @Benchmark
+    public Product decodeProduct() {
+        return objectMapper.convertValue(serializer.deserialize(productBytes), Product.class);
+    }
+
+    @Benchmark
+    public byte[] encodeCart() {
+        return serializer.serialize(cart);
+    }
+
+    @Benchmark
+    public Cart decodeCart() {
+        return objectMapper.convertValue(serializer.deserialize(cartBytes), Cart.class);
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.cache.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Harness settings from key=value arguments; see the loadtest profile in pom.xml for defaults
+record LoadConfig(String target, String workload, int keys, double readRatio, int rate, int threads,
+                  int durationSeconds, int warmupSeconds, double preloadFraction, long seed,
+                  double zipfTheta, double hotKeyFraction, double hotOpFraction,
+                  int saleProducts, double saleStartFraction, double saleOpFraction,
+                  double saleReserveRatio, int saleStock,
+                  String baseUrl, String redis, String output) {
+
+    static LoadConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            values.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        LoadConfig config = new LoadConfig(
+                values.getOrDefault("target", "service"),
+                values.getOrDefault("workload", "zipfian"),
+                Integer.parseInt(values.getOrDefault("keys", "10000")),
+                Double.parseDouble(values.getOrDefault("readRatio", "0.9")),
+                Integer.parseInt(values.getOrDefault("rate", "2000")),
+                Integer.parseInt(values.getOrDefault("threads", "32")),
+                Integer.parseInt(values.getOrDefault("duration", "30")),
+                Integer.parseInt(values.getOrDefault("warmup", "5")),
+                Double.parseDouble(values.getOrDefault("preload", "0.8")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Double.parseDouble(values.getOrDefault("zipfTheta", "0.99")),
+                Double.parseDouble(values.getOrDefault("hotKeyFraction", "0.01")),
+                Double.parseDouble(values.getOrDefault("hotOpFraction", "0.9")),
+                Integer.parseInt(values.getOrDefault("saleProducts", "5")),
+                Double.parseDouble(values.getOrDefault("saleStart", "0.5")),
+                Double.parseDouble(values.getOrDefault("saleOpFraction", "0.8")),
+                Double.parseDouble(values.getOrDefault("saleReserveRatio", "0.3")),
+                Integer.parseInt(values.getOrDefault("saleStock", "1000000")),
+                values.getOrDefault("baseUrl", "http://localhost:8080"),
+                values.getOrDefault("redis", "container"),
+                values.getOrDefault("output", "target/loadtest"));
+
+        if (config.rate() <= 0 || config.threads() <= 0) {
+            throw new IllegalArgumentException("rate and threads must be positive: the harness is open-loop");
+        }
+        if (config.zipfTheta() <= 0 || config.zipfTheta() == 1.0) {
+            throw new IllegalArgumentException("zipfTheta must be positive and not 1");
+        }
+        return config;
+    }
+}
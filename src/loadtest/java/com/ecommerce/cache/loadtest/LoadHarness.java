@@ -0,0 +1,193 @@
+package com.ecommerce.cache.loadtest;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.ecommerce.cache.model.CacheStats;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop load generator: every worker issues requests on a fixed schedule and latency
+// is measured from when a request was due, not when it was sent, so a stall is charged
+// to every request queued behind it (no coordinated omission). Service time, from actual
+// send, is recorded alongside for comparison. Histograms are in microseconds.
+//
+//   mvn -Ploadtest test -Dload.workload=flash-sale -Dload.rate=5000
+//   mvn -Ploadtest test -Dload.target=rest -Dload.baseUrl=http://localhost:8080
+//   mvn -Ploadtest test -Dload.args="zipfTheta=0.8 preload=0.5"
+public final class LoadHarness {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    // rejected: the target said no (out of stock, not found); errors: the call itself failed
+    private record OperationMetrics(Recorder responseTime, Recorder serviceTime, LongAdder rejected,
+                                    LongAdder errors, AtomicReference<String> firstError) {
+        OperationMetrics() {
+            this(new Recorder(HIGHEST_TRACKABLE_MICROS, 3), new Recorder(HIGHEST_TRACKABLE_MICROS, 3),
+                    new LongAdder(), new LongAdder(), new AtomicReference<>());
+        }
+    }
+
+    private final LoadConfig config;
+    private final Workload workload;
+    private final Map<Workload.Type, OperationMetrics> metrics = new EnumMap<>(Workload.Type.class);
+
+    private LoadHarness(LoadConfig config) {
+        this.config = config;
+        this.workload = Workload.of(config);
+        for (Workload.Type type : Workload.Type.values()) {
+            metrics.put(type, new OperationMetrics());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        LoadConfig config = LoadConfig.parse(args);
+        try (LoadTarget target = "rest".equals(config.target())
+                ? new RestTarget(config) : new ServiceTarget(config)) {
+            new LoadHarness(config).run(target);
+        }
+    }
+
+    private void run(LoadTarget target) throws Exception {
+        System.out.printf("Preloading %d products into the %s target...%n",
+                workload.catalog().size(), config.target());
+        target.preload(workload.catalog(), workload.stock());
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(config.threads()) / config.rate();
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+        System.out.printf("Running %s at %d ops/s on %d workers: %ds warmup, %ds measured%n",
+                config.workload(), config.rate(), config.threads(), config.warmupSeconds(), config.durationSeconds());
+
+        ExecutorService workers = Executors.newFixedThreadPool(config.threads());
+        SplittableRandom seed = new SplittableRandom(config.seed());
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < config.threads(); i++) {
+            SplittableRandom random = seed.split();
+            long first = start + intervalNanos * i / config.threads();
+            running.add(workers.submit(() -> drive(target, random, first, intervalNanos, start, measureFrom, end)));
+        }
+
+        LockSupport.parkNanos(measureFrom - System.nanoTime());
+        CacheStats before = target.stats();
+        for (Future<?> worker : running) {
+            worker.get();
+        }
+        // Past the schedule's end when the target fell behind; throughput uses the real span
+        long measuredNanos = System.nanoTime() - measureFrom;
+        CacheStats after = target.stats();
+        workers.shutdown();
+
+        report(before, after, measuredNanos);
+    }
+
+    private Void drive(LoadTarget target, SplittableRandom random, long first, long intervalNanos,
+                       long start, long measureFrom, long end) {
+        for (long due = first; due < end; due += intervalNanos) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Workload.Operation operation = workload.next(due - start, random);
+            OperationMetrics operationMetrics = metrics.get(operation.type());
+            long sent = System.nanoTime();
+            LoadTarget.Outcome outcome;
+            try {
+                outcome = target.execute(operation);
+            } catch (Exception e) {
+                outcome = null;
+                operationMetrics.firstError()
+                        .compareAndSet(null, e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+            long done = System.nanoTime();
+
+            // Warmup requests run on the same schedule but are not recorded
+            if (due >= measureFrom) {
+                operationMetrics.responseTime().recordValue(micros(done - due));
+                operationMetrics.serviceTime().recordValue(micros(done - sent));
+                if (outcome == null) {
+                    operationMetrics.errors().increment();
+                } else if (outcome == LoadTarget.Outcome.REJECTED) {
+                    operationMetrics.rejected().increment();
+                }
+            }
+        }
+        return null;
+    }
+
+    private void report(CacheStats before, CacheStats after, long measuredNanos) throws Exception {
+        File output = new File(config.output());
+        output.mkdirs();
+
+        long hits = after.getHits() - before.getHits();
+        long misses = after.getMisses() - before.getMisses();
+        long total = 0;
+
+        System.out.println();
+        System.out.printf("%-8s %-8s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n", "op", "latency", "count", "rejected",
+                "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "p99.99 ms", "max ms");
+        for (Map.Entry<Workload.Type, OperationMetrics> entry : metrics.entrySet()) {
+            OperationMetrics operationMetrics = entry.getValue();
+            Histogram response = operationMetrics.responseTime().getIntervalHistogram();
+            Histogram service = operationMetrics.serviceTime().getIntervalHistogram();
+            if (response.getTotalCount() == 0) {
+                continue;
+            }
+            total += response.getTotalCount();
+            String op = entry.getKey().name().toLowerCase();
+            printRow(op, "response", response, operationMetrics);
+            printRow(op, "service", service, operationMetrics);
+
+            try (PrintStream file = new PrintStream(new File(output,
+                    config.workload() + "-" + config.target() + "-" + op + ".hgrm"))) {
+                response.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+
+        metrics.forEach((type, operationMetrics) -> {
+            if (operationMetrics.firstError().get() != null) {
+                System.out.printf("First %s error: %s%n", type.name().toLowerCase(), operationMetrics.firstError().get());
+            }
+        });
+
+        System.out.println();
+        System.out.printf("Throughput: %.0f ops/s (target %d)%n",
+                total * 1e9 / measuredNanos, config.rate());
+        System.out.printf("Cache hit rate: %.2f%% (%d hits, %d misses)%n",
+                hits + misses > 0 ? 100.0 * hits / (hits + misses) : 0.0, hits, misses);
+        System.out.println("Response-time distributions (.hgrm): " + output.getAbsolutePath());
+    }
+
+    private static void printRow(String op, String kind, Histogram histogram, OperationMetrics operationMetrics) {
+        StringBuilder row = new StringBuilder(String.format("%-8s %-8s %9d %8d %8d", op, kind,
+                histogram.getTotalCount(), operationMetrics.rejected().sum(), operationMetrics.errors().sum()));
+        for (double percentile : PERCENTILES) {
+            row.append(String.format(" %9.3f", histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        row.append(String.format(" %9.3f", histogram.getMaxValue() / 1000.0));
+        System.out.println(row);
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.cache.loadtest;
+
+import com.ecommerce.cache.model.CacheStats;
+import com.ecommerce.cache.model.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+// Where the harness sends its operations: RedisCacheService in-process or the REST API
+interface LoadTarget extends AutoCloseable {
+
+    enum Outcome {
+        OK,
+        REJECTED
+    }
+
+    void preload(List<String> productIds, Map<String, Integer> stock) throws Exception;
+
+    Outcome execute(Workload.Operation operation) throws Exception;
+
+    // Cumulative cache counters; the harness diffs them around the measured window
+    CacheStats stats() throws Exception;
+
+    static Product product(String productId) {
+        return Product.builder()
+                .id(productId)
+                .name("Load test product " + productId)
+                .description("Generated by the load harness for " + productId)
+                .category("load")
+                .sku("LOAD-" + productId)
+                .price(new BigDecimal("49.99"))
+                .stockQuantity(100)
+                .images(List.of("https://cdn.example.com/p/" + productId + "/1.jpg"))
+                .tags(List.of("load"))
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.ecommerce.cache.loadtest;
+
+import com.ecommerce.cache.config.RedisConfig;
+import com.ecommerce.cache.model.CacheStats;
+import com.ecommerce.cache.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Drives a running instance over HTTP: product page reads, product updates and
+// inventory reservations. Misses go through ProductService's simulated database load.
+class RestTarget implements LoadTarget {
+
+    private static final int PRELOAD_BATCH = 1000;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new RedisConfig().objectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+
+    RestTarget(LoadConfig config) {
+        this.baseUrl = config.baseUrl();
+    }
+
+    @Override
+    public void preload(List<String> productIds, Map<String, Integer> stock) throws Exception {
+        for (int from = 0; from < productIds.size(); from += PRELOAD_BATCH) {
+            Map<String, Product> batch = new LinkedHashMap<>();
+            for (String id : productIds.subList(from, Math.min(productIds.size(), from + PRELOAD_BATCH))) {
+                batch.put(id, LoadTarget.product(id));
+            }
+            expectOk(send("PUT", "/api/cache/products", batch));
+        }
+        if (!stock.isEmpty()) {
+            expectOk(send("PUT", "/api/cache/inventory", stock));
+        }
+    }
+
+    @Override
+    public Outcome execute(Workload.Operation operation) throws Exception {
+        String productId = operation.productId();
+        HttpResponse<byte[]> response = switch (operation.type()) {
+            case READ -> send("GET", "/api/products/" + productId, null);
+            case WRITE -> send("PUT", "/api/products/" + productId, LoadTarget.product(productId));
+            case RESERVE -> send("POST", "/api/cache/inventory/reservations", Map.of(productId, 1));
+        };
+        if (response.statusCode() == 409 || response.statusCode() == 404) {
+            return Outcome.REJECTED;
+        }
+        expectOk(response);
+        return Outcome.OK;
+    }
+
+    @Override
+    public CacheStats stats() throws Exception {
+        HttpResponse<byte[]> response = send("GET", "/api/cache/stats", null);
+        expectOk(response);
+        return objectMapper.readValue(response.body(), CacheStats.class);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private HttpResponse<byte[]> send(String method, String path, Object body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static void expectOk(HttpResponse<byte[]> response) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(response.request().method() + " " + response.request().uri()
+                    + " returned " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.ecommerce.cache.loadtest;
+
+import com.ecommerce.cache.cache.KeyLayout;
+import com.ecommerce.cache.cache.ProductLayout;
+import com.ecommerce.cache.cache.ProductNearCache;
+import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.cache.RedisClusterManager;
+import com.ecommerce.cache.cache.RequestLookupMemo;
+import com.ecommerce.cache.cache.StaleFallbackCache;
+import com.ecommerce.cache.cache.TieredRedisTemplates;
+import com.ecommerce.cache.config.RedisConfig;
+import com.ecommerce.cache.model.CacheStats;
+import com.ecommerce.cache.model.InventoryReservation;
+import com.ecommerce.cache.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Drives RedisCacheService directly against a standalone Redis: a throwaway Redis 7
+// container by default (the scripts need Redis 7), or an existing one with redis=host:port.
+// Reads fill the cache on a miss, as ProductService does, so the miss cost includes the
+// write-back. A reservation Redis could not answer is an error, not a stock rejection.
+class ServiceTarget implements LoadTarget {
+
+    private static final DockerImageName REDIS_IMAGE = DockerImageName.parse("redis:7.2-alpine");
+    private static final int REDIS_PORT = 6379;
+    private static final int PRELOAD_BATCH = 1000;
+
+    private final GenericContainer<?> container;
+    private final ClientResources clientResources;
+    private final LettuceConnectionFactory connectionFactory;
+    private final TieredRedisTemplates tieredTemplates;
+    private final RedisCacheService cacheService;
+
+    ServiceTarget(LoadConfig config) throws Exception {
+        String host;
+        int port;
+        if ("container".equals(config.redis())) {
+            container = new GenericContainer<>(REDIS_IMAGE).withExposedPorts(REDIS_PORT);
+            container.start();
+            host = container.getHost();
+            port = container.getMappedPort(REDIS_PORT);
+        } else {
+            container = null;
+            host = config.redis().substring(0, config.redis().lastIndexOf(':'));
+            port = Integer.parseInt(config.redis().substring(config.redis().lastIndexOf(':') + 1));
+        }
+
+        ObjectMapper objectMapper = new RedisConfig().objectMapper();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        clientResources = DefaultClientResources.create();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        RedisProperties properties = new RedisProperties();
+        properties.setHost(host);
+        properties.setPort(port);
+        properties.setTimeout(Duration.ofSeconds(2));
+
+        tieredTemplates = new TieredRedisTemplates(
+                new RedisConfig().redisTemplate(connectionFactory, objectMapper), properties, clientResources,
+                new DefaultListableBeanFactory().getBeanProvider(LettuceClientConfigurationBuilderCustomizer.class),
+                new StandardEnvironment(), meterRegistry);
+
+        KeyLayout keyLayout = new KeyLayout();
+        ReflectionTestUtils.setField(keyLayout, "mode", KeyLayout.Mode.LEGACY);
+        ReflectionTestUtils.setField(keyLayout, "l2SessionPrefix", "l2:session:");
+        ReflectionTestUtils.setField(keyLayout, "l2CartPrefix", "l2:cart:");
+
+        ProductLayout productLayout = new ProductLayout();
+        ReflectionTestUtils.setField(productLayout, "mode", ProductLayout.Mode.DOCUMENT);
+
+        cacheService = new RedisCacheService(objectMapper, new RedisClusterManager(connectionFactory, properties, new StandardEnvironment()),
+                new RequestLookupMemo(meterRegistry), keyLayout, productLayout, tieredTemplates,
+                new StaleFallbackCache(10000, 600000, meterRegistry),
+                new ProductNearCache(false, 0, 1, List.of(), 0, meterRegistry));
+        ReflectionTestUtils.setField(cacheService, "bulkMaxInFlight", 1000);
+        ReflectionTestUtils.setField(cacheService, "l1ProductPrefix", "l1:product:");
+        ReflectionTestUtils.setField(cacheService, "l1ProductTtl", 86400L);
+        ReflectionTestUtils.setField(cacheService, "l3InventoryPrefix", "l3:inventory:");
+        ReflectionTestUtils.setField(cacheService, "l3InventoryTtl", 300L);
+    }
+
+    @Override
+    public void preload(List<String> productIds, Map<String, Integer> stock) {
+        List<String> ids = new ArrayList<>(productIds);
+        for (int from = 0; from < ids.size(); from += PRELOAD_BATCH) {
+            Map<String, Product> batch = new LinkedHashMap<>();
+            for (String id : ids.subList(from, Math.min(ids.size(), from + PRELOAD_BATCH))) {
+                batch.put(id, LoadTarget.product(id));
+            }
+            cacheService.setProducts(batch);
+        }
+        if (!stock.isEmpty()) {
+            cacheService.setInventories(stock);
+        }
+    }
+
+    @Override
+    public Outcome execute(Workload.Operation operation) {
+        String productId = operation.productId();
+        switch (operation.type()) {
+            case READ -> {
+                if (cacheService.getProduct(productId, Product.class) == null) {
+                    cacheService.setProduct(productId, LoadTarget.product(productId));
+                }
+                return Outcome.OK;
+            }
+            case WRITE -> {
+                cacheService.setProduct(productId, LoadTarget.product(productId));
+                return Outcome.OK;
+            }
+            default -> {
+                InventoryReservation reservation = cacheService.reserveInventory(Map.of(productId, 1));
+                if (reservation.isUnavailable()) {
+                    throw new IllegalStateException(reservation.getFailureReason());
+                }
+                return reservation.isSuccess() ? Outcome.OK : Outcome.REJECTED;
+            }
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return cacheService.getStats();
+    }
+
+    @Override
+    public void close() {
+        tieredTemplates.destroy();
+        connectionFactory.destroy();
+        clientResources.shutdown();
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
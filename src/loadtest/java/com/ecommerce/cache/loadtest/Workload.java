@@ -0,0 +1,137 @@
+package com.ecommerce.cache.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Decides what each scheduled request does. Implementations are shared across workers
+// and must only use the caller's random source.
+interface Workload {
+
+    enum Type {
+        READ,
+        WRITE,
+        RESERVE
+    }
+
+    record Operation(Type type, String productId) {
+    }
+
+    Operation next(long elapsedNanos, SplittableRandom random);
+
+    // Products to put in the cache before the run
+    List<String> catalog();
+
+    // Stock to seed before the run, for workloads that reserve inventory
+    default Map<String, Integer> stock() {
+        return Map.of();
+    }
+
+    static Workload of(LoadConfig config) {
+        return switch (config.workload()) {
+            case "zipfian" -> new Skewed(config, new ZipfianGenerator(config.keys(), config.zipfTheta())::next);
+            case "hotspot" -> new Skewed(config, hotspot(config));
+            case "flash-sale" -> new FlashSale(config);
+            default -> throw new IllegalArgumentException("Unknown workload: " + config.workload()
+                    + " (zipfian, hotspot, flash-sale)");
+        };
+    }
+
+    static String productId(long rank) {
+        return "load-" + rank;
+    }
+
+    interface KeyChooser {
+        long next(SplittableRandom random);
+    }
+
+    // hotOpFraction of requests go to the first hotKeyFraction of keys, the rest spread over the others
+    private static KeyChooser hotspot(LoadConfig config) {
+        int hotKeys = Math.max(1, (int) (config.keys() * config.hotKeyFraction()));
+        return random -> random.nextDouble() < config.hotOpFraction() || hotKeys >= config.keys()
+                ? random.nextInt(hotKeys)
+                : hotKeys + random.nextInt(config.keys() - hotKeys);
+    }
+
+    private static List<String> catalog(int keys, double fraction) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < keys * fraction; i++) {
+            ids.add(productId(i));
+        }
+        return ids;
+    }
+
+    final class Skewed implements Workload {
+
+        private final LoadConfig config;
+        private final KeyChooser keys;
+
+        Skewed(LoadConfig config, KeyChooser keys) {
+            this.config = config;
+            this.keys = keys;
+        }
+
+        @Override
+        public Operation next(long elapsedNanos, SplittableRandom random) {
+            Type type = random.nextDouble() < config.readRatio() ? Type.READ : Type.WRITE;
+            return new Operation(type, productId(keys.next(random)));
+        }
+
+        @Override
+        public List<String> catalog() {
+            return Workload.catalog(config.keys(), config.preloadFraction());
+        }
+    }
+
+    // Zipfian browsing until saleStart of the measured run, then saleOpFraction of all
+    // requests converge on a handful of sale products: page views plus stock reservations.
+    final class FlashSale implements Workload {
+
+        private final LoadConfig config;
+        private final ZipfianGenerator background;
+        private final long saleStartNanos;
+
+        FlashSale(LoadConfig config) {
+            this.config = config;
+            this.background = new ZipfianGenerator(config.keys(), config.zipfTheta());
+            this.saleStartNanos = TimeUnit.SECONDS.toNanos(config.warmupSeconds())
+                    + (long) (TimeUnit.SECONDS.toNanos(config.durationSeconds()) * config.saleStartFraction());
+        }
+
+        @Override
+        public Operation next(long elapsedNanos, SplittableRandom random) {
+            if (elapsedNanos >= saleStartNanos && random.nextDouble() < config.saleOpFraction()) {
+                String productId = saleProductId(random.nextInt(config.saleProducts()));
+                return new Operation(random.nextDouble() < config.saleReserveRatio() ? Type.RESERVE : Type.READ,
+                        productId);
+            }
+            Type type = random.nextDouble() < config.readRatio() ? Type.READ : Type.WRITE;
+            return new Operation(type, productId(background.next(random)));
+        }
+
+        @Override
+        public List<String> catalog() {
+            List<String> ids = Workload.catalog(config.keys(), config.preloadFraction());
+            for (int i = 0; i < config.saleProducts(); i++) {
+                ids.add(saleProductId(i));
+            }
+            return ids;
+        }
+
+        @Override
+        public Map<String, Integer> stock() {
+            Map<String, Integer> stock = new HashMap<>();
+            for (int i = 0; i < config.saleProducts(); i++) {
+                stock.put(saleProductId(i), config.saleStock());
+            }
+            return stock;
+        }
+
+        private static String saleProductId(int i) {
+            return "sale-" + i;
+        }
+    }
+}
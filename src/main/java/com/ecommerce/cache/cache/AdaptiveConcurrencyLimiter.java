@@ -0,0 +1,183 @@
+package com.ecommerce.cache.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+// AIMD concurrency limit driven by observed latency. Each window of completed calls either
+// raises the limit by one (average latency within tolerance x the no-load minimum while the
+// limit was actually in use) or cuts it by backoffRatio (latency over that, or a call dropped
+// by a timeout or connection failure). Calls over the limit are rejected at once instead of
+// queueing. Lower priorities only get a share of the limit, so checkout keeps headroom when
+// browsing saturates it. The no-load minimum is re-learned every minRttResetWindows windows.
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    public static final String PRIORITY_ATTRIBUTE = AdaptiveConcurrencyLimiter.class.getName() + ".priority";
+
+    public enum Priority {
+        CRITICAL(1.0),
+        NORMAL(0.8),
+        LOW(0.5);
+
+        private static final ThreadLocal<Priority> INHERITED = new ThreadLocal<>();
+
+        private final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+
+        // Set per HTTP request from its path. Executor tasks run at the priority of the thread
+        // that submitted them (see propagate); other work outside a request (scheduled jobs,
+        // warm-up) is NORMAL.
+        public static Priority current() {
+            Priority inherited = INHERITED.get();
+            if (inherited != null) {
+                return inherited;
+            }
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes == null) {
+                return NORMAL;
+            }
+            Object priority = attributes.getAttribute(PRIORITY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            return priority instanceof Priority p ? p : NORMAL;
+        }
+
+        // Task decorator: captures the submitter's priority and runs the task at it, so a
+        // checkout's fan-out is not admitted at a lower share than the checkout itself
+        public static Runnable propagate(Runnable task) {
+            Priority priority = current();
+            return () -> {
+                Priority previous = INHERITED.get();
+                INHERITED.set(priority);
+                try {
+                    task.run();
+                } finally {
+                    if (previous != null) {
+                        INHERITED.set(previous);
+                    } else {
+                        INHERITED.remove();
+                    }
+                }
+            };
+        }
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final int minRttResetWindows;
+
+    private double limit;
+    private int inFlight;
+    private int peakInFlight;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long windowMinRttNanos = Long.MAX_VALUE;
+    private int samples;
+    private int successes;
+    private long rttSumNanos;
+    private boolean dropped;
+    private int windows;
+    private final long[] rejected = new long[Priority.values().length];
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, int windowSize,
+                                      double tolerance, double backoffRatio, int minRttResetWindows) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.windowSize = windowSize;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.minRttResetWindows = minRttResetWindows;
+    }
+
+    public synchronized boolean tryAcquire(Priority priority) {
+        if (inFlight >= Math.max(1, (int) (limit * priority.share))) {
+            rejected[priority.ordinal()]++;
+            return false;
+        }
+        inFlight++;
+        peakInFlight = Math.max(peakInFlight, inFlight);
+        return true;
+    }
+
+    public synchronized void onSuccess(long elapsedNanos) {
+        inFlight--;
+        samples++;
+        successes++;
+        rttSumNanos += elapsedNanos;
+        minRttNanos = Math.min(minRttNanos, elapsedNanos);
+        windowMinRttNanos = Math.min(windowMinRttNanos, elapsedNanos);
+        adjust();
+    }
+
+    // Timed out or the backend was unreachable: a sign of overload
+    public synchronized void onDropped() {
+        inFlight--;
+        samples++;
+        dropped = true;
+        adjust();
+    }
+
+    // Failed for a reason unrelated to load; releases the permit without a sample
+    public synchronized void onIgnore() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized long getRejected() {
+        long total = 0;
+        for (long count : rejected) {
+            total += count;
+        }
+        return total;
+    }
+
+    public synchronized long getRejected(Priority priority) {
+        return rejected[priority.ordinal()];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void adjust() {
+        if (samples < windowSize) {
+            return;
+        }
+
+        double previous = limit;
+        long averageRttNanos = successes > 0 ? rttSumNanos / successes : Long.MAX_VALUE;
+        if (dropped || averageRttNanos > minRttNanos * tolerance) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (peakInFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        if ((int) previous != (int) limit) {
+            log.debug("Concurrency limit {} {} -> {} (avg {}us, min {}us{})", name, (int) previous, (int) limit,
+                    averageRttNanos / 1_000, minRttNanos / 1_000, dropped ? ", dropped calls" : "");
+        }
+
+        if (++windows % minRttResetWindows == 0 && windowMinRttNanos != Long.MAX_VALUE) {
+            minRttNanos = windowMinRttNanos;
+        }
+        samples = 0;
+        successes = 0;
+        rttSumNanos = 0;
+        dropped = false;
+        peakInFlight = inFlight;
+        windowMinRttNanos = Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.cache.cache;
+
+// Cache tiers, named as they are configured under cache.tiers.<name>
+public enum CacheTier {
+    PRODUCT("l1-product"),
+    SESSION("l2-session"),
+    CART("l2-cart"),
+    INVENTORY("l3-inventory"),
+    ANALYTICS("l4-analytics");
+
+    private final String configName;
+
+    CacheTier(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+}
@@ -0,0 +1,169 @@
+package com.ecommerce.cache.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Count-based circuit breaker over the last windowSize calls. Opens when the share of
+// failed or slow calls crosses its threshold, rejects everything for openDuration, then
+// lets halfOpenProbes calls through: all of them succeeding closes it, any failure reopens.
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final byte OK = 0;
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+
+    private final byte[] window;
+    private int next;
+    private int recorded;
+    private int failed;
+    private int slow;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+    private long rejected;
+    private long timesOpened;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, long slowCallMillis, long openMillis, int halfOpenProbes,
+                          LongSupplier nanoClock) {
+        this.name = name;
+        this.window = new byte[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openNanos) {
+                rejected++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesIssued = 0;
+            probesSucceeded = 0;
+            log.info("Circuit {} half-open, probing with {} calls", name, halfOpenProbes);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesIssued >= halfOpenProbes) {
+                rejected++;
+                return false;
+            }
+            probesIssued++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess(long elapsedNanos) {
+        boolean isSlow = elapsedNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (isSlow) {
+                open("slow probe");
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(isSlow ? SLOW : OK);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open("failed probe");
+        } else if (state == State.CLOSED) {
+            record(FAILED);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void record(byte outcome) {
+        if (recorded == window.length) {
+            forget(window[next]);
+        } else {
+            recorded++;
+        }
+        window[next] = outcome;
+        next = (next + 1) % window.length;
+        if (outcome == FAILED) {
+            failed++;
+        } else if (outcome == SLOW) {
+            slow++;
+        }
+
+        if (recorded >= minimumCalls) {
+            if ((double) failed / recorded >= failureRateThreshold) {
+                open(failed + "/" + recorded + " calls failed");
+            } else if ((double) slow / recorded >= slowCallRateThreshold) {
+                open(slow + "/" + recorded + " calls slow");
+            }
+        }
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == FAILED) {
+            failed--;
+        } else if (outcome == SLOW) {
+            slow--;
+        }
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+        timesOpened++;
+        resetWindow();
+        log.warn("Circuit {} opened: {}", name, reason);
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        resetWindow();
+        log.info("Circuit {} closed", name);
+    }
+
+    private void resetWindow() {
+        next = 0;
+        recorded = 0;
+        failed = 0;
+        slow = 0;
+    }
+}
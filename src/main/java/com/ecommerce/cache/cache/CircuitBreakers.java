@@ -0,0 +1,55 @@
+package com.ecommerce.cache.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+// The circuit breakers in front of the tier connections, one per tier and one per shard of a
+// sharded tier, all configured under cache.resilience.circuit-breaker and published as gauges
+final class CircuitBreakers {
+
+    private CircuitBreakers() {
+    }
+
+    static CircuitBreaker forTier(CacheTier tier, Duration timeout, Environment environment,
+                                  MeterRegistry meterRegistry) {
+        CircuitBreaker circuitBreaker = create("redis-" + tier.getConfigName(), timeout, environment);
+        Gauge.builder("cache.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .tag("tier", tier.getConfigName())
+                .register(meterRegistry);
+        Gauge.builder("cache.circuit.rejected", circuitBreaker, CircuitBreaker::getRejected)
+                .tag("tier", tier.getConfigName())
+                .register(meterRegistry);
+        return circuitBreaker;
+    }
+
+    static CircuitBreaker forShard(CacheTier tier, String shard, Duration timeout, Environment environment,
+                                   MeterRegistry meterRegistry) {
+        CircuitBreaker circuitBreaker = create("redis-" + tier.getConfigName() + "-" + shard, timeout, environment);
+        Gauge.builder("cache.shard.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .tag("tier", tier.getConfigName())
+                .tag("shard", shard)
+                .register(meterRegistry);
+        return circuitBreaker;
+    }
+
+    private static CircuitBreaker create(String name, Duration timeout, Environment environment) {
+        String prefix = "cache.resilience.circuit-breaker.";
+        // A call taking more than half the tier's timeout counts as slow
+        long slowCallMillis = environment.getProperty(prefix + "slow-call-ms", Long.class, timeout.toMillis() / 2);
+        return new CircuitBreaker(
+                name,
+                environment.getProperty(prefix + "window-size", Integer.class, 50),
+                environment.getProperty(prefix + "minimum-calls", Integer.class, 20),
+                environment.getProperty(prefix + "failure-rate-threshold", Double.class, 0.5),
+                environment.getProperty(prefix + "slow-call-rate-threshold", Double.class, 0.8),
+                slowCallMillis,
+                environment.getProperty(prefix + "open-duration-ms", Long.class, 5000L),
+                environment.getProperty(prefix + "half-open-probes", Integer.class, 3),
+                System::nanoTime);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.cache.cache;
+
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+// Every template operation (ops*, scripts, pipelines, callbacks) ends up in this
+// execute overload, so guarding it covers the whole tier without touching call sites.
+// A callback that fans out many async commands should guard each of them itself
+// (CommandGuard.callAsync) rather than run as one call here.
+class CircuitBreakingRedisTemplate extends RedisTemplate<String, Object> {
+
+    private final CommandGuard guard;
+
+    CircuitBreakingRedisTemplate(CommandGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public <T> T execute(RedisCallback<T> action, boolean exposeConnection, boolean pipeline) {
+        return guard.call(() -> super.execute(action, exposeConnection, pipeline));
+    }
+}
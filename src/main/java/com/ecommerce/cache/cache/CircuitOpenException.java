@@ -0,0 +1,10 @@
+package com.ecommerce.cache.cache;
+
+// Thrown instead of calling Redis while a tier's circuit is open. Carries no stack
+// trace: it is expected, frequent during an outage, and must stay cheap.
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(CacheTier tier) {
+        super("Circuit open for cache tier " + tier.getConfigName(), null, false, false);
+    }
+}
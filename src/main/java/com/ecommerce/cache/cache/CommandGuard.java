@@ -0,0 +1,95 @@
+package com.ecommerce.cache.cache;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisException;
+import org.springframework.dao.DataAccessException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Admission and accounting for calls on one tier connection (or one shard of it). The tier's
+// adaptive concurrency limit sheds a call before the circuit breaker sees it, so a shed call
+// never counts as a failure against the circuit. An admitted call holds one permit until it is
+// answered and gives one latency sample: connection failures and timeouts count against the
+// circuit and back the limit off, an error reply means the server answered, and problems on
+// our side (serialization) say nothing about Redis.
+class CommandGuard {
+
+    private final CacheTier tier;
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    CommandGuard(CacheTier tier, CircuitBreaker circuitBreaker, AdaptiveConcurrencyLimiter limiter) {
+        this.tier = tier;
+        this.circuitBreaker = circuitBreaker;
+        this.limiter = limiter;
+    }
+
+    // Throws LoadShedException or CircuitOpenException instead of making the call
+    <T> T call(Supplier<T> call) {
+        admit();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            record(start, null);
+            return result;
+        } catch (RuntimeException e) {
+            record(start, e);
+            throw e;
+        }
+    }
+
+    // One command sent without blocking: its permit is held until the reply arrives, so a
+    // fan-out of many commands weighs on the limit and the circuit as that many calls. The
+    // returned future completes once the permit is back. Throws LoadShedException or
+    // CircuitOpenException instead of sending the command.
+    <T> CompletableFuture<T> callAsync(Supplier<? extends CompletionStage<T>> command) {
+        admit();
+        long start = System.nanoTime();
+        CompletableFuture<T> reply;
+        try {
+            reply = command.get().toCompletableFuture();
+        } catch (RuntimeException e) {
+            record(start, e);
+            throw e;
+        }
+        return reply.whenComplete((value, error) -> record(start, error));
+    }
+
+    private void admit() {
+        if (!limiter.tryAcquire(AdaptiveConcurrencyLimiter.Priority.current())) {
+            throw new LoadShedException(limiter.getName());
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            limiter.onIgnore();
+            throw new CircuitOpenException(tier);
+        }
+    }
+
+    private void record(long start, Throwable error) {
+        if (error != null && isUnavailable(error)) {
+            circuitBreaker.onFailure();
+            limiter.onDropped();
+        } else {
+            long elapsed = System.nanoTime() - start;
+            circuitBreaker.onSuccess(elapsed);
+            limiter.onSuccess(elapsed);
+        }
+    }
+
+    private static boolean isUnavailable(Throwable error) {
+        Throwable e = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(e instanceof DataAccessException || e instanceof RedisException || e instanceof TimeoutException)) {
+            return false;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RedisCommandExecutionException) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,187 @@
+package com.ecommerce.cache.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Deflates values whose serialized form reaches the threshold. A compressed value is
+// MARKER, the 4-byte original length, then the raw deflate stream; JSON never starts
+// with a zero byte, so plain values written before compression was enabled (or below
+// the threshold) still read back unchanged. The stored length is checked before anything
+// is allocated for it: a corrupt or hostile header cannot ask for more than maxInflatedBytes,
+// nor for more than deflate could have produced from the bytes that follow it.
+public class CompressingRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MARKER = 0;
+    private static final int HEADER = 5;
+    // Deflate's best case is about 1032:1 (258-byte matches in a 2-bit code)
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    // Deflater/Inflater hold native buffers; reuse one pair per thread
+    private static final ThreadLocal<Deflater> DEFLATERS =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final RedisSerializer<Object> delegate;
+    private final int thresholdBytes;
+    private final int maxInflatedBytes;
+
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder decompressed = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    public CompressingRedisSerializer(RedisSerializer<Object> delegate, int thresholdBytes, int maxInflatedBytes) {
+        this.delegate = delegate;
+        this.thresholdBytes = thresholdBytes;
+        this.maxInflatedBytes = maxInflatedBytes;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] plain = delegate.serialize(value);
+        if (plain == null || plain.length < thresholdBytes) {
+            return plain;
+        }
+
+        long start = System.nanoTime();
+        byte[] packed = deflate(plain);
+        compressNanos.add(System.nanoTime() - start);
+
+        // Incompressible payloads are stored as they are
+        if (packed.length >= plain.length) {
+            skipped.increment();
+            return plain;
+        }
+        compressed.increment();
+        bytesIn.add(plain.length);
+        bytesOut.add(packed.length);
+        return packed;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        return delegate.deserialize(decompress(bytes));
+    }
+
+    // The delegate's bytes for a stored value, inflated if it was stored compressed
+    public byte[] decompress(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0 || bytes[0] != MARKER) {
+            return bytes;
+        }
+
+        long start = System.nanoTime();
+        byte[] plain = inflate(bytes, maxInflatedBytes);
+        decompressNanos.add(System.nanoTime() - start);
+        decompressed.increment();
+        return plain;
+    }
+
+    public RedisSerializer<Object> getDelegate() {
+        return delegate;
+    }
+
+    public int getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    public int getMaxInflatedBytes() {
+        return maxInflatedBytes;
+    }
+
+    public long getCompressed() {
+        return compressed.sum();
+    }
+
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public long getDecompressed() {
+        return decompressed.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public long getCompressNanos() {
+        return compressNanos.sum();
+    }
+
+    public long getDecompressNanos() {
+        return decompressNanos.sum();
+    }
+
+    // Compressed size over original size for values that were stored compressed
+    public double getRatio() {
+        long in = bytesIn.sum();
+        return in > 0 ? (double) bytesOut.sum() / in : 1.0;
+    }
+
+    private static byte[] deflate(byte[] plain) {
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setInput(plain);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 2 + HEADER);
+        out.write(MARKER);
+        out.write(plain.length >>> 24);
+        out.write(plain.length >>> 16);
+        out.write(plain.length >>> 8);
+        out.write(plain.length);
+
+        byte[] buffer = new byte[Math.min(plain.length, 8192)];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] bytes, int maxInflatedBytes) {
+        if (bytes.length < HEADER) {
+            throw new SerializationException("Truncated compressed value");
+        }
+        int length = ((bytes[1] & 0xff) << 24) | ((bytes[2] & 0xff) << 16)
+                | ((bytes[3] & 0xff) << 8) | (bytes[4] & 0xff);
+        long limit = Math.min(maxInflatedBytes, (long) (bytes.length - HEADER) * MAX_DEFLATE_RATIO);
+        if (length < 0 || length > limit) {
+            throw new SerializationException("Compressed value claims " + Integer.toUnsignedString(length)
+                    + " bytes; at most " + limit + " allowed for " + (bytes.length - HEADER) + " compressed");
+        }
+
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(bytes, HEADER, bytes.length - HEADER);
+        byte[] plain = new byte[length];
+        try {
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(plain, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new SerializationException("Compressed value inflated to " + read + " of " + length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupt compressed value", e);
+        }
+        return plain;
+    }
+}
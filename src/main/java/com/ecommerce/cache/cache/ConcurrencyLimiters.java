@@ -0,0 +1,43 @@
+package com.ecommerce.cache.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+
+// Adaptive concurrency limiters for the tier connections and the backing-store loader, all
+// configured under cache.resilience.concurrency-limit; each publishes its limit, in-flight
+// count and shed calls per priority
+public final class ConcurrencyLimiters {
+
+    private ConcurrencyLimiters() {
+    }
+
+    public static AdaptiveConcurrencyLimiter create(String name, Environment environment,
+                                                    MeterRegistry meterRegistry) {
+        String prefix = "cache.resilience.concurrency-limit.";
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                name,
+                environment.getProperty(prefix + "initial-limit", Integer.class, 50),
+                environment.getProperty(prefix + "min-limit", Integer.class, 5),
+                environment.getProperty(prefix + "max-limit", Integer.class, 500),
+                environment.getProperty(prefix + "window-size", Integer.class, 100),
+                environment.getProperty(prefix + "latency-tolerance", Double.class, 2.0),
+                environment.getProperty(prefix + "backoff-ratio", Double.class, 0.9),
+                environment.getProperty(prefix + "min-latency-reset-windows", Integer.class, 50));
+
+        Gauge.builder("cache.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("cache.limiter.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("limiter", name)
+                .register(meterRegistry);
+        for (AdaptiveConcurrencyLimiter.Priority priority : AdaptiveConcurrencyLimiter.Priority.values()) {
+            FunctionCounter.builder("cache.limiter.shed", limiter, l -> l.getRejected(priority))
+                    .tag("limiter", name)
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        return limiter;
+    }
+}
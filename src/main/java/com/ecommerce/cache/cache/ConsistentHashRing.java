@@ -0,0 +1,89 @@
+package com.ecommerce.cache.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Immutable consistent-hash ring with virtual nodes: each node owns virtualNodes points on a
+// 64-bit ring and a key belongs to the first point at or after its hash. Adding or removing a
+// node only moves the keys on that node's arcs. Keys are hashed like Redis Cluster slots: when
+// a key has a non-empty {hash tag}, only the tag is hashed, so tagged keys stay together.
+public final class ConsistentHashRing {
+
+    private record Point(long hash, String node) {
+    }
+
+    private final long[] hashes;
+    private final String[] owners;
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = new LinkedHashSet<>(nodes);
+        List<Point> points = new ArrayList<>(this.nodes.size() * virtualNodes);
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.add(new Point(hash(node + "#" + i), node));
+            }
+        }
+        // Ties (vanishingly rare) resolve the same way on every instance
+        points.sort(Comparator.comparingLong(Point::hash).thenComparing(Point::node));
+
+        this.hashes = new long[points.size()];
+        this.owners = new String[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            hashes[i] = points.get(i).hash();
+            owners[i] = points.get(i).node();
+        }
+    }
+
+    // Null only when the ring has no nodes
+    public String nodeFor(String key) {
+        if (hashes.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(hashes, hash(hashTag(key)));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == hashes.length ? 0 : index];
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    // Same rule as Redis Cluster: the part between the first '{' and the next '}', if non-empty
+    static String hashTag(String key) {
+        int open = key.indexOf('{');
+        if (open >= 0) {
+            int close = key.indexOf('}', open + 1);
+            if (close > open + 1) {
+                return key.substring(open + 1, close);
+            }
+        }
+        return key;
+    }
+
+    // FNV-1a 64 finished with the MurmurHash3 fmix64 step, so similar keys land far apart
+    static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
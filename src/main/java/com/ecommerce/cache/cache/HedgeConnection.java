@@ -0,0 +1,40 @@
+package com.ecommerce.cache.cache;
+
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.time.Duration;
+import java.util.Map;
+
+// The second connection a tier sends hedged reads on, with the policy deciding when a read is
+// hedged (cache.tiers.<tier>.hedge). It reads from the other side of the tier's primary
+// connection: masters when that reads replicas, else replicas.
+record HedgeConnection(LettuceConnectionFactory factory, String readFrom, HedgePolicy policy) {
+
+    // Null when hedging is off for the tier. Only cluster tiers have another side to hedge to;
+    // shards are single standalone nodes.
+    static HedgeConnection open(CacheTier tier, String primaryReadFrom, Duration timeout, int queueSize,
+                                TierConnectionFactory connections, Environment environment) {
+        String prefix = "cache.tiers." + tier.getConfigName() + ".hedge.";
+        if (!connections.isCluster() || !environment.getProperty(prefix + "enabled", Boolean.class, false)) {
+            return null;
+        }
+
+        String readFrom = TierConnectionFactory.UPSTREAM.equalsIgnoreCase(primaryReadFrom)
+                ? TierConnectionFactory.REPLICA_NEAREST : TierConnectionFactory.UPSTREAM;
+        HedgePolicy policy = new HedgePolicy(
+                environment.getProperty(prefix + "percentile", Double.class, 0.95),
+                environment.getProperty(prefix + "min-delay-ms", Long.class, 2L),
+                environment.getProperty(prefix + "max-delay-ms", Long.class, timeout.toMillis() / 2),
+                environment.getProperty(prefix + "budget-ratio", Double.class, 0.05));
+        return new HedgeConnection(connections.open(tier, readFrom, timeout, queueSize), readFrom, policy);
+    }
+
+    void describe(Map<String, Object> stats) {
+        stats.put("hedgeReadFrom", readFrom);
+        stats.put("hedgeDelayMs", policy.getDelayMillis());
+        stats.put("hedgedReads", policy.getHedged());
+        stats.put("hedgeWins", policy.getHedgeWins());
+        stats.put("hedgeBudgetExhausted", policy.getBudgetExhausted());
+    }
+}
@@ -0,0 +1,92 @@
+package com.ecommerce.cache.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// When to hedge a read and whether we can afford it. The delay tracks a percentile of
+// recent primary latencies (never below minDelay), so only the slowest reads are hedged;
+// a token bucket refilled by budgetRatio per read caps hedges to that share of traffic.
+public class HedgePolicy {
+
+    private static final int SAMPLES = 512;
+    private static final int RECOMPUTE_EVERY = 64;
+    private static final double MAX_TOKENS = 20;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final double budgetRatio;
+
+    private final long[] samples = new long[SAMPLES];
+    private int next;
+    private int count;
+    private long delayNanos;
+    private double tokens = MAX_TOKENS;
+
+    private long reads;
+    private long hedged;
+    private long hedgeWins;
+    private long budgetExhausted;
+
+    public HedgePolicy(double percentile, long minDelayMillis, long maxDelayMillis, double budgetRatio) {
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.budgetRatio = budgetRatio;
+        this.delayNanos = maxDelayNanos; // until enough samples are in
+    }
+
+    // Called once per read before waiting on the primary
+    public synchronized long delayNanos() {
+        reads++;
+        tokens = Math.min(MAX_TOKENS, tokens + budgetRatio);
+        return delayNanos;
+    }
+
+    public synchronized void recordPrimary(long elapsedNanos) {
+        samples[next] = elapsedNanos;
+        next = (next + 1) % SAMPLES;
+        count = Math.min(count + 1, SAMPLES);
+
+        if (count >= RECOMPUTE_EVERY && next % RECOMPUTE_EVERY == 0) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            long observed = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, observed));
+        }
+    }
+
+    public synchronized boolean tryHedge() {
+        if (tokens < 1) {
+            budgetExhausted++;
+            return false;
+        }
+        tokens -= 1;
+        hedged++;
+        return true;
+    }
+
+    public synchronized void recordHedgeWin() {
+        hedgeWins++;
+    }
+
+    public synchronized long getReads() {
+        return reads;
+    }
+
+    public synchronized long getHedged() {
+        return hedged;
+    }
+
+    public synchronized long getHedgeWins() {
+        return hedgeWins;
+    }
+
+    public synchronized long getBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    public synchronized double getDelayMillis() {
+        return delayNanos / 1_000_000.0;
+    }
+}
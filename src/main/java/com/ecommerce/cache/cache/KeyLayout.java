@@ -0,0 +1,88 @@
+package com.ecommerce.cache.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Key naming for session-owned data. In the colocated layout the session id is
+// wrapped in a hash tag, so a session and its cart share one cluster slot and can
+// be read or written together by a single multi-key command or script.
+//
+//   legacy:    l2:session:<sessionId>      l2:cart:<cartId>
+//   colocated: l2:session:{<sessionId>}    l2:cart:{<sessionId>}:<cartId>
+@Component
+public class KeyLayout {
+
+    public enum Mode {
+        LEGACY,
+        COLOCATED
+    }
+
+    @Value("${cache.key-layout.mode:legacy}")
+    private Mode mode;
+
+    // While a migration is rolling out, reads that miss the colocated key retry the legacy one
+    @Value("${cache.key-layout.read-legacy-fallback:true}")
+    private boolean readLegacyFallback;
+
+    @Value("${cache.tiers.l2-session.prefix:l2:session:}")
+    private String l2SessionPrefix;
+
+    @Value("${cache.tiers.l2-cart.prefix:l2:cart:}")
+    private String l2CartPrefix;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isColocated() {
+        return mode == Mode.COLOCATED;
+    }
+
+    public boolean isReadLegacyFallback() {
+        return isColocated() && readLegacyFallback;
+    }
+
+    public String sessionKey(String sessionId) {
+        return isColocated() ? colocatedSessionKey(sessionId) : legacySessionKey(sessionId);
+    }
+
+    public String cartKey(String sessionId, String cartId) {
+        return isColocated() ? colocatedCartKey(sessionId, cartId) : legacyCartKey(cartId);
+    }
+
+    public String colocatedSessionKey(String sessionId) {
+        return l2SessionPrefix + "{" + sessionId + "}";
+    }
+
+    public String colocatedCartKey(String sessionId, String cartId) {
+        return l2CartPrefix + "{" + sessionId + "}:" + cartId;
+    }
+
+    public String legacySessionKey(String sessionId) {
+        return l2SessionPrefix + sessionId;
+    }
+
+    public String legacyCartKey(String cartId) {
+        return l2CartPrefix + cartId;
+    }
+
+    public String sessionPattern() {
+        return l2SessionPrefix + "*";
+    }
+
+    public String cartPattern() {
+        return l2CartPrefix + "*";
+    }
+
+    public boolean isLegacyKey(String key) {
+        return key.indexOf('{') < 0;
+    }
+
+    public String sessionIdOfLegacyKey(String key) {
+        return key.substring(l2SessionPrefix.length());
+    }
+
+    public String cartIdOfLegacyKey(String key) {
+        return key.substring(l2CartPrefix.length());
+    }
+}
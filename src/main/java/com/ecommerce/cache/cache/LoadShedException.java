@@ -0,0 +1,17 @@
+package com.ecommerce.cache.cache;
+
+// Thrown instead of making a call when a concurrency limiter is full. Like
+// CircuitOpenException it carries no stack trace: under overload it is frequent.
+public class LoadShedException extends RuntimeException {
+
+    private final String limiter;
+
+    public LoadShedException(String limiter) {
+        super("Concurrency limit reached for " + limiter, null, false, false);
+        this.limiter = limiter;
+    }
+
+    public String getLimiter() {
+        return limiter;
+    }
+}
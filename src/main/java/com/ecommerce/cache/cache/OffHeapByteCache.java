@@ -0,0 +1,405 @@
+package com.ecommerce.cache.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+// String -> byte[] cache whose keys and values live in direct (off-heap) buffers, so even
+// gigabytes of entries are invisible to the garbage collector: the heap only holds a few
+// primitive arrays per segment. Keys hash to one of a power-of-two number of segments, each
+// locked on its own. A segment has one arena of fixed-size slots per size class (one entry per
+// slot, in the smallest class it fits; entries larger than the largest class are not kept and
+// are counted as rejected), an open-addressing index (linear probing, backward-shift deletion)
+// from key hash to slot, and per class a CLOCK hand that evicts the first slot not read since
+// the hand last passed it. The capacity is split evenly between the classes, so a few large
+// entries cannot push out many small ones. Entries also expire ttl after they were written.
+//
+//   slot: writtenAt (8) | key length (2) | value length (4) | key bytes | value bytes
+public class OffHeapByteCache {
+
+    private static final int HEADER_BYTES = 8 + 2 + 4;
+    private static final int EMPTY = -1;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int[] slotSizes;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    public OffHeapByteCache(long capacityBytes, int segmentCount, int slotBytes, long ttlMillis,
+                            LongSupplier nanoClock) {
+        this(capacityBytes, segmentCount, new int[]{slotBytes}, ttlMillis, nanoClock);
+    }
+
+    public OffHeapByteCache(long capacityBytes, int segmentCount, int[] slotSizes, long ttlMillis,
+                            LongSupplier nanoClock) {
+        if (Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("Segment count must be a power of two: " + segmentCount);
+        }
+        int[] sizes = Arrays.stream(slotSizes).distinct().sorted().toArray();
+        if (sizes.length == 0 || sizes[0] <= HEADER_BYTES || sizes.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Slot sizes must be larger than " + HEADER_BYTES + " bytes: "
+                    + Arrays.toString(slotSizes));
+        }
+        int[] slotsPerSegment = new int[sizes.length];
+        for (int c = 0; c < sizes.length; c++) {
+            long slots = capacityBytes / sizes.length / segmentCount / sizes[c];
+            if (slots < 1 || slots * sizes[c] > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        "Each segment must hold between one slot and 2 GB per slot size; use more segments");
+            }
+            slotsPerSegment[c] = (int) slots;
+        }
+
+        this.slotSizes = sizes;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.nanoClock = nanoClock;
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(slotsPerSegment);
+        }
+    }
+
+    // A copy of the value, or null when absent or expired
+    public byte[] get(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(keyBytes);
+        return segmentFor(hash).get(hash, keyBytes);
+    }
+
+    // False when the entry does not fit in the largest slot; any older value for the key is dropped then
+    public boolean put(String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(keyBytes);
+        int sizeClass = keyBytes.length > Short.MAX_VALUE ? -1 : sizeClassOf(HEADER_BYTES + keyBytes.length + value.length);
+        if (sizeClass < 0) {
+            segmentFor(hash).reject(hash, keyBytes);
+            return false;
+        }
+        segmentFor(hash).put(hash, keyBytes, value, sizeClass);
+        return true;
+    }
+
+    public void remove(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(keyBytes);
+        segmentFor(hash).remove(hash, keyBytes);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long getCapacityBytes() {
+        long perSegment = 0;
+        for (int c = 0; c < slotSizes.length; c++) {
+            perSegment += (long) segments[0].slotCount(c) * slotSizes[c];
+        }
+        return segments.length * perSegment;
+    }
+
+    // Ascending; the last is the largest entry kept, header included
+    public int[] getSlotSizes() {
+        return slotSizes.clone();
+    }
+
+    public int getMaxEntryBytes() {
+        return slotSizes[slotSizes.length - 1];
+    }
+
+    public long size() {
+        return sum(segment -> segment.entries);
+    }
+
+    public long getBytesUsed() {
+        return sum(segment -> segment.bytesUsed);
+    }
+
+    public long getHits() {
+        return sum(segment -> segment.hits);
+    }
+
+    public long getMisses() {
+        return sum(segment -> segment.misses);
+    }
+
+    public long getEvictions() {
+        return sum(segment -> segment.evictions);
+    }
+
+    public long getExpirations() {
+        return sum(segment -> segment.expirations);
+    }
+
+    // Puts of entries larger than the largest slot
+    public long getRejected() {
+        return sum(segment -> segment.rejected);
+    }
+
+    private long sum(ToLongFunction<Segment> stat) {
+        long total = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                total += stat.applyAsLong(segment);
+            }
+        }
+        return total;
+    }
+
+    // The smallest class whose slots hold an entry of this many bytes, or -1
+    private int sizeClassOf(int entryBytes) {
+        for (int c = 0; c < slotSizes.length; c++) {
+            if (entryBytes <= slotSizes[c]) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[segments.length == 1 ? 0 : hash >>> segmentShift];
+    }
+
+    // FNV-1a over the key bytes, then a finalizer so high bits (segment) and low bits (index) both mix
+    private static int hash(byte[] key) {
+        int h = 0x811C9DC5;
+        for (byte b : key) {
+            h = (h ^ b) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    // Slot ids run through the size classes in order: class c owns ids classStart[c] until
+    // classStart[c + 1], each at its own offset in that class's arena
+    private final class Segment {
+
+        private final int slots;
+        private final int[] classStart;
+        private final ByteBuffer[] arenas;
+        private final byte[] slotClass;
+        private final int indexMask;
+        private final int[] indexHash;
+        private final int[] indexSlot;
+        private final int[] slotHash;
+        private final int[] slotLength;
+        private final boolean[] referenced;
+        private final int[][] free;
+        private final int[] freeCount;
+        private final int[] hand;
+
+        private long entries;
+        private long bytesUsed;
+        private long hits;
+        private long misses;
+        private long evictions;
+        private long expirations;
+        private long rejected;
+
+        Segment(int[] slotsPerClass) {
+            int classes = slotsPerClass.length;
+            this.classStart = new int[classes + 1];
+            this.arenas = new ByteBuffer[classes];
+            this.free = new int[classes][];
+            this.freeCount = new int[classes];
+            this.hand = new int[classes];
+            for (int c = 0; c < classes; c++) {
+                classStart[c + 1] = classStart[c] + slotsPerClass[c];
+                arenas[c] = ByteBuffer.allocateDirect(slotsPerClass[c] * slotSizes[c]);
+                free[c] = new int[slotsPerClass[c]];
+            }
+            this.slots = classStart[classes];
+            this.slotClass = new byte[slots];
+            for (int c = 0; c < classes; c++) {
+                Arrays.fill(slotClass, classStart[c], classStart[c + 1], (byte) c);
+            }
+            int indexSize = Integer.highestOneBit(Math.max(2, slots) * 2 - 1) << 1;
+            this.indexMask = indexSize - 1;
+            this.indexHash = new int[indexSize];
+            this.indexSlot = new int[indexSize];
+            this.slotHash = new int[slots];
+            this.slotLength = new int[slots];
+            this.referenced = new boolean[slots];
+            clear();
+        }
+
+        int slotCount(int sizeClass) {
+            return classStart[sizeClass + 1] - classStart[sizeClass];
+        }
+
+        synchronized byte[] get(int hash, byte[] key) {
+            int position = find(hash, key);
+            if (position == EMPTY) {
+                misses++;
+                return null;
+            }
+            int slot = indexSlot[position];
+            ByteBuffer arena = arenaOf(slot);
+            int base = baseOf(slot);
+            if (nanoClock.getAsLong() - arena.getLong(base) > ttlNanos) {
+                expirations++;
+                misses++;
+                delete(position);
+                return null;
+            }
+
+            referenced[slot] = true;
+            hits++;
+            byte[] value = new byte[arena.getInt(base + 10)];
+            arena.get(base + HEADER_BYTES + key.length, value, 0, value.length);
+            return value;
+        }
+
+        synchronized void put(int hash, byte[] key, byte[] value, int sizeClass) {
+            int position = find(hash, key);
+            // A value that changed size class moves to a slot of its new class
+            if (position != EMPTY && slotClass[indexSlot[position]] != sizeClass) {
+                delete(position);
+                position = EMPTY;
+            }
+            int slot;
+            if (position != EMPTY) {
+                slot = indexSlot[position];
+                bytesUsed -= slotLength[slot];
+            } else {
+                slot = allocate(sizeClass);
+                insert(hash, slot);
+                slotHash[slot] = hash;
+                entries++;
+            }
+
+            ByteBuffer arena = arenas[sizeClass];
+            int base = baseOf(slot);
+            arena.putLong(base, nanoClock.getAsLong());
+            arena.putShort(base + 8, (short) key.length);
+            arena.putInt(base + 10, value.length);
+            arena.put(base + HEADER_BYTES, key, 0, key.length);
+            arena.put(base + HEADER_BYTES + key.length, value, 0, value.length);
+            slotLength[slot] = HEADER_BYTES + key.length + value.length;
+            bytesUsed += slotLength[slot];
+            // A new entry has to be read once before it outranks older ones
+            referenced[slot] = false;
+        }
+
+        synchronized void remove(int hash, byte[] key) {
+            int position = find(hash, key);
+            if (position != EMPTY) {
+                delete(position);
+            }
+        }
+
+        // A put too large for any slot; the older value it would have replaced is dropped
+        synchronized void reject(int hash, byte[] key) {
+            rejected++;
+            remove(hash, key);
+        }
+
+        synchronized void clear() {
+            Arrays.fill(indexSlot, EMPTY);
+            Arrays.fill(referenced, false);
+            for (int c = 0; c < free.length; c++) {
+                int count = slotCount(c);
+                for (int i = 0; i < count; i++) {
+                    free[c][i] = classStart[c + 1] - 1 - i;
+                }
+                freeCount[c] = count;
+                hand[c] = classStart[c];
+            }
+            entries = 0;
+            bytesUsed = 0;
+        }
+
+        private ByteBuffer arenaOf(int slot) {
+            return arenas[slotClass[slot]];
+        }
+
+        private int baseOf(int slot) {
+            int sizeClass = slotClass[slot];
+            return (slot - classStart[sizeClass]) * slotSizes[sizeClass];
+        }
+
+        private int find(int hash, byte[] key) {
+            for (int position = hash & indexMask; indexSlot[position] != EMPTY; position = (position + 1) & indexMask) {
+                if (indexHash[position] == hash && keyEquals(indexSlot[position], key)) {
+                    return position;
+                }
+            }
+            return EMPTY;
+        }
+
+        private boolean keyEquals(int slot, byte[] key) {
+            ByteBuffer arena = arenaOf(slot);
+            int base = baseOf(slot);
+            if (arena.getShort(base + 8) != key.length) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (arena.get(base + HEADER_BYTES + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void insert(int hash, int slot) {
+            int position = hash & indexMask;
+            while (indexSlot[position] != EMPTY) {
+                position = (position + 1) & indexMask;
+            }
+            indexHash[position] = hash;
+            indexSlot[position] = slot;
+        }
+
+        // A free slot of the class, or the first one its CLOCK hand finds unreferenced, evicting its entry
+        private int allocate(int sizeClass) {
+            if (freeCount[sizeClass] > 0) {
+                return free[sizeClass][--freeCount[sizeClass]];
+            }
+            int first = classStart[sizeClass];
+            int count = slotCount(sizeClass);
+            while (referenced[hand[sizeClass]]) {
+                referenced[hand[sizeClass]] = false;
+                hand[sizeClass] = first + (hand[sizeClass] - first + 1) % count;
+            }
+            int victim = hand[sizeClass];
+            hand[sizeClass] = first + (victim - first + 1) % count;
+
+            int position = slotHash[victim] & indexMask;
+            while (indexSlot[position] != victim) {
+                position = (position + 1) & indexMask;
+            }
+            delete(position);
+            evictions++;
+            return free[sizeClass][--freeCount[sizeClass]];
+        }
+
+        // Frees the entry's slot and closes the gap in its probe run
+        private void delete(int position) {
+            int slot = indexSlot[position];
+            int sizeClass = slotClass[slot];
+            free[sizeClass][freeCount[sizeClass]++] = slot;
+            referenced[slot] = false;
+            bytesUsed -= slotLength[slot];
+            entries--;
+
+            int hole = position;
+            for (int next = (hole + 1) & indexMask; indexSlot[next] != EMPTY; next = (next + 1) & indexMask) {
+                int home = indexHash[next] & indexMask;
+                // The entry at next may fill the hole only if its home is not between hole and next
+                if (((next - home) & indexMask) >= ((next - hole) & indexMask)) {
+                    indexHash[hole] = indexHash[next];
+                    indexSlot[hole] = indexSlot[next];
+                    hole = next;
+                }
+            }
+            indexSlot[hole] = EMPTY;
+        }
+    }
+}
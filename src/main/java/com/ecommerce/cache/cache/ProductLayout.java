@@ -0,0 +1,100 @@
+package com.ecommerce.cache.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// How a product is stored in the L1 tier. The document layout keeps the whole product
+// as one JSON value; the fields layout keeps one hash per product with one field per
+// attribute group, so listing pages can HMGET just the groups they render and an update
+// rewrites only the groups that changed.
+//
+//   document: l1:product:<id> -> {"id":..,"name":..,"description":..,...}
+//   fields:   l1:product:<id> -> summary {"id":..,"name":..}  pricing {"price":..}  details {...}  ...
+@Component
+public class ProductLayout {
+
+    public enum Mode {
+        DOCUMENT,
+        FIELDS
+    }
+
+    public static final String SUMMARY = "summary";
+    public static final String PRICING = "pricing";
+    public static final String IMAGES = "images";
+    public static final String RATING = "rating";
+    public static final String STOCK = "stock";
+    public static final String DETAILS = "details";
+    public static final String SEO = "seo";
+    public static final String AUDIT = "audit";
+
+    // What a category or search page renders: name, price, image and rating
+    public static final List<String> LISTING = List.of(SUMMARY, PRICING, IMAGES, RATING);
+
+    // Product property -> group; properties not listed here are kept with the details
+    private static final Map<String, String> GROUP_OF = Map.ofEntries(
+            Map.entry("id", SUMMARY),
+            Map.entry("name", SUMMARY),
+            Map.entry("slug", SUMMARY),
+            Map.entry("category", SUMMARY),
+            Map.entry("brand", SUMMARY),
+            Map.entry("sku", SUMMARY),
+            Map.entry("active", SUMMARY),
+            Map.entry("featured", SUMMARY),
+            Map.entry("price", PRICING),
+            Map.entry("originalPrice", PRICING),
+            Map.entry("images", IMAGES),
+            Map.entry("rating", RATING),
+            Map.entry("reviewCount", RATING),
+            Map.entry("stockQuantity", STOCK),
+            Map.entry("description", DETAILS),
+            Map.entry("attributes", DETAILS),
+            Map.entry("tags", DETAILS),
+            Map.entry("metaTitle", SEO),
+            Map.entry("metaDescription", SEO),
+            Map.entry("createdAt", AUDIT),
+            Map.entry("updatedAt", AUDIT));
+
+    @Value("${cache.tiers.l1-product.layout:document}")
+    private Mode mode;
+
+    // Document values are stored as the JSON the API returns, so hits can be written to the
+    // response as they are instead of being decoded into a Product and encoded again
+    @Value("${cache.tiers.l1-product.passthrough:true}")
+    private boolean passthrough;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isFields() {
+        return mode == Mode.FIELDS;
+    }
+
+    public boolean isPassthrough() {
+        return passthrough && mode == Mode.DOCUMENT;
+    }
+
+    // Product properties (as Jackson writes them) -> hash fields, one property map per group
+    public Map<String, Map<String, Object>> split(Map<String, Object> properties) {
+        Map<String, Map<String, Object>> groups = new LinkedHashMap<>();
+        properties.forEach((property, value) -> groups
+                .computeIfAbsent(GROUP_OF.getOrDefault(property, DETAILS), group -> new LinkedHashMap<>())
+                .put(property, value));
+        return groups;
+    }
+
+    // Hash fields back to one property map; groups that are absent leave their properties unset
+    public Map<String, Object> merge(Map<?, ?> groups) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        groups.values().forEach(group -> {
+            if (group instanceof Map<?, ?> values) {
+                values.forEach((property, value) -> properties.put(property.toString(), value));
+            }
+        });
+        return properties;
+    }
+}
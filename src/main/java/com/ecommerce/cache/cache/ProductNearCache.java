@@ -0,0 +1,101 @@
+package com.ecommerce.cache.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Optional in-process near-cache in front of the product tier. Products are kept as their
+// JSON bytes in an OffHeapByteCache, so a near-cache of gigabytes adds next to nothing to the
+// heap the GC traces; hits are decoded on read, or copied straight to the response in
+// passthrough mode. Local writes and invalidations drop the local copy; writes made through
+// other instances are seen once it expires, so ttl-ms bounds how stale a read can be.
+// Each product goes in the smallest of slot-sizes it fits; larger ones are not kept locally
+// and count in cache.near.rejected, which tells when the largest slot size is too small.
+// Size the JVM's -XX:MaxDirectMemorySize above max-bytes.
+@Component
+public class ProductNearCache {
+
+    private final OffHeapByteCache store;
+
+    public ProductNearCache(@Value("${cache.tiers.l1-product.near-cache.enabled:false}") boolean enabled,
+                            @Value("${cache.tiers.l1-product.near-cache.max-bytes:268435456}") long maxBytes,
+                            @Value("${cache.tiers.l1-product.near-cache.segments:16}") int segments,
+                            @Value("${cache.tiers.l1-product.near-cache.slot-sizes:1024,4096,16384,65536}")
+                            List<Integer> slotSizes,
+                            @Value("${cache.tiers.l1-product.near-cache.ttl-ms:5000}") long ttlMillis,
+                            MeterRegistry meterRegistry) {
+        this.store = enabled ? new OffHeapByteCache(maxBytes, segments,
+                slotSizes.stream().mapToInt(Integer::intValue).toArray(), ttlMillis, System::nanoTime) : null;
+        if (store == null) {
+            return;
+        }
+
+        Gauge.builder("cache.near.entries", store, OffHeapByteCache::size)
+                .tag("tier", CacheTier.PRODUCT.getConfigName())
+                .register(meterRegistry);
+        Gauge.builder("cache.near.bytes", store, OffHeapByteCache::getBytesUsed)
+                .description("Off-heap bytes held by near-cache entries")
+                .tag("tier", CacheTier.PRODUCT.getConfigName())
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.near.requests", store, OffHeapByteCache::getHits)
+                .tag("tier", CacheTier.PRODUCT.getConfigName())
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.near.requests", store, OffHeapByteCache::getMisses)
+                .tag("tier", CacheTier.PRODUCT.getConfigName())
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.near.evictions", store, OffHeapByteCache::getEvictions)
+                .tag("tier", CacheTier.PRODUCT.getConfigName())
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.near.rejected", store, OffHeapByteCache::getRejected)
+                .description("Products larger than the largest slot, not kept locally")
+                .tag("tier", CacheTier.PRODUCT.getConfigName())
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    // The product's JSON, or null when not held locally (or the near-cache is off)
+    public byte[] get(String productId) {
+        return store != null ? store.get(productId) : null;
+    }
+
+    public void put(String productId, byte[] json) {
+        if (store != null && json != null) {
+            store.put(productId, json);
+        }
+    }
+
+    public void invalidate(String productId) {
+        if (store != null) {
+            store.remove(productId);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", store != null);
+        if (store != null) {
+            stats.put("entries", store.size());
+            stats.put("bytesUsed", store.getBytesUsed());
+            stats.put("capacityBytes", store.getCapacityBytes());
+            stats.put("slotSizes", store.getSlotSizes());
+            stats.put("maxEntryBytes", store.getMaxEntryBytes());
+            stats.put("hits", store.getHits());
+            stats.put("misses", store.getMisses());
+            stats.put("evictions", store.getEvictions());
+            stats.put("expirations", store.getExpirations());
+            stats.put("rejected", store.getRejected());
+        }
+        return stats;
+    }
+}
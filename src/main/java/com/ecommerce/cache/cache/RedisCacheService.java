@@ -1,24 +1,235 @@
 
 package com.ecommerce.cache.cache;
 
+import com.ecommerce.cache.model.BulkCacheResult;
 import com.ecommerce.cache.model.CacheStats;
+import com.ecommerce.cache.model.CartPricing;
+import com.ecommerce.cache.model.InventoryReservation;
+import com.ecommerce.cache.model.Versioned;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Service
 public class RedisCacheService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    // Writes KEYS[1] only if ARGV[1] is not older than the highest fencing token
+    // already recorded in KEYS[2]
+    private static final RedisScript<Long> FENCED_SET_SCRIPT = new DefaultRedisScript<>("""
+            local highest = tonumber(redis.call('GET', KEYS[2]) or '0')
+            if tonumber(ARGV[1]) < highest then
+                return 0
+            end
+            redis.call('SET', KEYS[2], ARGV[1], 'EX', ARGV[3])
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    // Recomputes tax and shipping from the running subtotal; expects `subtotal` in scope.
+    // One field per HSET, which servers older than Redis 4 also accept.
+    private static final String CART_TOTALS_LUA = """
+            local tax = math.floor(subtotal * tonumber(ARGV[5]) / 10000 + 0.5)
+            local shipping = 0
+            if subtotal > 0 and subtotal < tonumber(ARGV[6]) then
+                shipping = tonumber(ARGV[7])
+            end
+            redis.call('HSET', KEYS[1], 'taxCents', tax)
+            redis.call('HSET', KEYS[1], 'shippingCents', shipping)
+            redis.call('HSET', KEYS[1], 'updatedAt', ARGV[8])
+            redis.call('HSET', KEYS[1], 'expiresAt', ARGV[9])
+            redis.call('EXPIRE', KEYS[1], ARGV[10])
+            return redis.call('HGETALL', KEYS[1])
+            """;
+
+    // ARGV: productId, quantity, unitCents, itemJson, taxBps, freeShippingCents, shippingFeeCents,
+    //       updatedAt, expiresAt, ttl, userId, sessionId, currency
+    // A line keeps the unit price it was first added at; later adds only change its quantity.
+    private static final RedisScript<List<Object>> CART_ADD_SCRIPT = listScript("""
+            local pid = ARGV[1]
+            local qty = tonumber(ARGV[2])
+            redis.call('HSETNX', KEYS[1], 'userId', ARGV[11])
+            redis.call('HSETNX', KEYS[1], 'sessionId', ARGV[12])
+            redis.call('HSETNX', KEYS[1], 'currency', ARGV[13])
+            redis.call('HSETNX', KEYS[1], 'createdAt', ARGV[8])
+            redis.call('HSETNX', KEYS[1], 'price:' .. pid, ARGV[3])
+            redis.call('HSET', KEYS[1], 'item:' .. pid, ARGV[4])
+            local unit = tonumber(redis.call('HGET', KEYS[1], 'price:' .. pid))
+            redis.call('HINCRBY', KEYS[1], 'qty:' .. pid, qty)
+            redis.call('HINCRBY', KEYS[1], 'itemCount', qty)
+            local subtotal = redis.call('HINCRBY', KEYS[1], 'subtotalCents', qty * unit)
+            """ + CART_TOTALS_LUA);
+
+    // ARGV: as CART_ADD_SCRIPT up to ttl; quantity, unitCents and itemJson are ignored
+    private static final RedisScript<List<Object>> CART_REMOVE_SCRIPT = listScript("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return {}
+            end
+            local pid = ARGV[1]
+            local qty = tonumber(redis.call('HGET', KEYS[1], 'qty:' .. pid) or '0')
+            local subtotal
+            if qty > 0 then
+                local unit = tonumber(redis.call('HGET', KEYS[1], 'price:' .. pid) or '0')
+                redis.call('HDEL', KEYS[1], 'qty:' .. pid, 'price:' .. pid, 'item:' .. pid)
+                redis.call('HINCRBY', KEYS[1], 'itemCount', -qty)
+                subtotal = redis.call('HINCRBY', KEYS[1], 'subtotalCents', -qty * unit)
+            else
+                subtotal = tonumber(redis.call('HGET', KEYS[1], 'subtotalCents') or '0')
+            end
+            """ + CART_TOTALS_LUA);
+
+    // Stock values are JSON strings (as written by setInventory). In cluster mode all KEYS of
+    // one call share a slot (Redis rejects anything else with CROSSSLOT before running it).
+    // Returns {0, remaining...} on success or {index, available} for the first short item.
+    private static final RedisScript<List<Object>> RESERVE_INVENTORY_SCRIPT = listScript("""
+            local stock = {}
+            for i, key in ipairs(KEYS) do
+                local value = redis.call('GET', key)
+                if not value then
+                    return {i, -1}
+                end
+                local current = tonumber(value) or tonumber(cjson.decode(value))
+                if current < tonumber(ARGV[i]) then
+                    return {i, current}
+                end
+                stock[i] = current
+            end
+            local result = {0}
+            for i, key in ipairs(KEYS) do
+                local remaining = stock[i] - tonumber(ARGV[i])
+                redis.call('SET', key, cjson.encode(tostring(remaining)), 'EX', ARGV[#KEYS + 1])
+                result[i + 1] = remaining
+            end
+            return result
+            """);
+
+    private static final RedisScript<List<Object>> RELEASE_INVENTORY_SCRIPT = listScript("""
+            local result = {}
+            for i, key in ipairs(KEYS) do
+                local value = redis.call('GET', key)
+                if value then
+                    local restored = (tonumber(value) or tonumber(cjson.decode(value))) + tonumber(ARGV[i])
+                    redis.call('SET', key, cjson.encode(tostring(restored)), 'KEEPTTL')
+                    result[i] = restored
+                else
+                    result[i] = -1
+                end
+            end
+            return result
+            """);
+
+    // Products are written together with their version (KEYS[2]), a content hash the
+    // controller serves as the ETag. The version key wraps the product key in a hash tag,
+    // so both share a slot. ARGV: value, ttl, version.
+    private static final DefaultRedisScript<Long> PRODUCT_SET_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+            redis.call('SET', KEYS[2], ARGV[3], 'EX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    // Fields layout product write. ARGV: ttl, version, then group/value pairs. Only groups whose
+    // encoded value differs are written, so replicas and the AOF see just the changed fields.
+    // A value left over from the document layout is replaced. Returns the number of groups written.
+    private static final DefaultRedisScript<Long> PRODUCT_FIELDS_SCRIPT = new DefaultRedisScript<>("""
+            local kind = redis.call('TYPE', KEYS[1]).ok
+            if kind ~= 'hash' and kind ~= 'none' then
+                redis.call('DEL', KEYS[1])
+            end
+            local changed = 0
+            for i = 3, #ARGV, 2 do
+                if redis.call('HGET', KEYS[1], ARGV[i]) ~= ARGV[i + 1] then
+                    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+                    changed = changed + 1
+                end
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[1])
+            return changed
+            """, Long.class);
+
+    // Fields layout read: the hash and its version in one atomic call, so a concurrent
+    // PRODUCT_FIELDS_SCRIPT cannot land between them. Read-only (EVAL_RO), so replicas may serve it.
+    private static final String PRODUCT_FIELDS_READ_SCRIPT = """
+            return {redis.call('HGETALL', KEYS[1]), redis.call('GET', KEYS[2])}
+            """;
+
+    // Deletes KEYS[1] only while its DUMP still equals ARGV[1]: the source-side guard of a key move
+    private static final String DELETE_IF_UNCHANGED_SCRIPT = """
+            if redis.call('DUMP', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """;
+
+    private static final TypeReference<Map<String, Object>> PROPERTIES = new TypeReference<>() {
+    };
+
+    // Outlives a trending read's pipeline only if the read dies before its DEL
+    private static final long TRENDING_UNION_TTL_MS = 10_000;
+
     private final ObjectMapper objectMapper;
+    private final RedisClusterManager clusterManager;
+    private final RequestLookupMemo requestLookupMemo;
+    private final KeyLayout keyLayout;
+    private final ProductLayout productLayout;
+    private final TieredRedisTemplates tieredTemplates;
+    private final StaleFallbackCache staleFallback;
+    private final ProductNearCache nearCache;
+
+    @Value("${cache.bulk.max-in-flight:1000}")
+    private int bulkMaxInFlight;
 
 
     @Value("${cache.tiers.l1-product.ttl:86400}")
@@ -30,8 +241,8 @@ public class RedisCacheService {
     @Value("${cache.tiers.l2-session.ttl:1800}")
     private long l2SessionTtl;
 
-    @Value("${cache.tiers.l2-session.prefix:l2:session:}")
-    private String l2SessionPrefix;
+    @Value("${cache.tiers.l2-cart.ttl:86400}")
+    private long l2CartTtl;
 
     @Value("${cache.tiers.l3-inventory.ttl:300}")
     private long l3InventoryTtl;
@@ -50,166 +261,1169 @@ public class RedisCacheService {
     private final AtomicLong totalMisses = new AtomicLong(0);
     private final AtomicLong totalSets = new AtomicLong(0);
     private final AtomicLong totalDeletes = new AtomicLong(0);
+    private final AtomicLong totalMemoHits = new AtomicLong(0);
 
-    public RedisCacheService(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper) {
-        this.redisTemplate = redisTemplate;
+    public RedisCacheService(ObjectMapper objectMapper,
+                             RedisClusterManager clusterManager, RequestLookupMemo requestLookupMemo,
+                             KeyLayout keyLayout, ProductLayout productLayout,
+                             TieredRedisTemplates tieredTemplates, StaleFallbackCache staleFallback,
+                             ProductNearCache nearCache) {
         this.objectMapper = objectMapper;
+        this.clusterManager = clusterManager;
+        this.requestLookupMemo = requestLookupMemo;
+        this.keyLayout = keyLayout;
+        this.productLayout = productLayout;
+        this.tieredTemplates = tieredTemplates;
+        this.staleFallback = staleFallback;
+        this.nearCache = nearCache;
     }
 
     // L1 Cache: Product Methods
     public <T> T getProduct(String productId, Class<T> clazz) {
+        return getVersionedProduct(productId, clazz).value();
+    }
+
+    // The product with the version read in the same call; the version is null for a
+    // near-cache hit or a stale copy. Memoized per request: treat the product as read-only.
+    public <T> Versioned<T> getVersionedProduct(String productId, Class<T> clazz) {
         String key = l1ProductPrefix + productId;
+        try {
+            return memoized(key, clazz, () -> loadProduct(key, productId, clazz));
+        } catch (LoadShedException e) {
+            throw e;
+        } catch (Exception e) {
+            logFailure("Error getting product from L1 cache: {}", productId, e);
+            totalMisses.incrementAndGet();
+            return Versioned.unversioned(null);
+        }
+    }
 
+    private <T> Versioned<T> loadProduct(String key, String productId, Class<T> clazz) {
         try {
-            Object cached = redisTemplate.opsForValue().get(key);
+            byte[] near = nearCache.get(productId);
+            if (near != null) {
+                totalHits.incrementAndGet();
+                return Versioned.unversioned(objectMapper.readValue(near, clazz));
+            }
 
+            StoredProduct cached = readStoredProduct(key, productId, false);
+            if (cached != null && cached.value() instanceof byte[] json) {
+                // Stale copy remembered by a passthrough read
+                totalHits.incrementAndGet();
+                return new Versioned<>(objectMapper.readValue(json, clazz), cached.version());
+            }
             if (cached != null) {
                 totalHits.incrementAndGet();
                 log.debug("L1 cache hit for product: {}", productId);
-                return objectMapper.convertValue(cached, clazz);
+                if (nearCache.isEnabled()) {
+                    nearCache.put(productId, objectMapper.writeValueAsBytes(cached.value()));
+                }
+                return new Versioned<>(objectMapper.convertValue(cached.value(), clazz), cached.version());
             }
 
             totalMisses.incrementAndGet();
             log.debug("L1 cache miss for product: {}", productId);
-            return null;
+            return Versioned.unversioned(null);
 
-        } catch (Exception e) {
-            log.error("Error getting product from L1 cache: {}", productId, e);
-            totalMisses.incrementAndGet();
-            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The product and its version in one call, so the version always describes the body it
+    // came with: an MGET in the document layout (the version key shares the product's slot
+    // and shard), a read-only script in the fields layout. Null on a miss; a stale copy
+    // served during an outage carries no version.
+    private StoredProduct readStoredProduct(String key, String productId, boolean passthrough) {
+        byte[] productKey = bytes(key);
+        byte[] versionKey = bytes(productVersionKey(productId));
+        if (productLayout.isFields()) {
+            return readWithFallback(key, () -> hedgedRead(CacheTier.PRODUCT,
+                    () -> decodeProductFields(template(CacheTier.PRODUCT, key).execute(
+                            (RedisCallback<List<Object>>) connection -> connection.scriptingCommands().eval(
+                                    bytes(PRODUCT_FIELDS_READ_SCRIPT), ReturnType.MULTI, 2, productKey, versionKey))),
+                    async -> async.<List<Object>>evalReadOnly(bytes(PRODUCT_FIELDS_READ_SCRIPT),
+                            ScriptOutputType.MULTI, new byte[][]{productKey, versionKey}),
+                    this::decodeProductFields), StoredProduct::stale);
+        }
+
+        Function<byte[], Object> decode = passthrough
+                ? this::plainProductJson
+                : raw -> valueSerializer(CacheTier.PRODUCT).deserialize(raw);
+        return readWithFallback(key, () -> hedgedRead(CacheTier.PRODUCT,
+                () -> {
+                    List<byte[]> values = template(CacheTier.PRODUCT, key).execute(
+                            (RedisCallback<List<byte[]>>) connection ->
+                                    connection.stringCommands().mGet(productKey, versionKey));
+                    return storedProduct(values.get(0), values.get(1), decode);
+                },
+                async -> async.mget(productKey, versionKey),
+                values -> storedProduct(values.get(0).getValueOrElse(null), values.get(1).getValueOrElse(null),
+                        decode)), StoredProduct::stale);
+    }
+
+    private StoredProduct storedProduct(byte[] value, byte[] version, Function<byte[], Object> decode) {
+        return value != null ? new StoredProduct(decode.apply(value), versionString(version)) : null;
+    }
+
+    private static String versionString(byte[] version) {
+        return version != null ? new String(version, StandardCharsets.UTF_8) : null;
+    }
+
+    // PRODUCT_FIELDS_READ_SCRIPT reply: the HGETALL field/value list, then the version
+    private StoredProduct decodeProductFields(List<Object> reply) {
+        List<?> fields = (List<?>) reply.get(0);
+        RedisSerializer<Object> values = valueSerializer(CacheTier.PRODUCT);
+        Map<Object, Object> groups = new HashMap<>();
+        for (int i = 0; i + 1 < fields.size(); i += 2) {
+            groups.put(new String((byte[]) fields.get(i), StandardCharsets.UTF_8),
+                    values.deserialize((byte[]) fields.get(i + 1)));
         }
+        Map<String, Object> product = mergeProductFields(groups);
+        return product != null ? new StoredProduct(product, versionString((byte[]) reply.get(1))) : null;
     }
 
+    // In the fields layout only the attribute groups that differ from the cached copy are
+    // rewritten, so callers should not invalidate first
     public void setProduct(String productId, Object productData) {
         String key = l1ProductPrefix + productId;
+        forget(key);
+        nearCache.invalidate(productId);
 
         try {
-            redisTemplate.opsForValue().set(key, productData, Duration.ofSeconds(l1ProductTtl));
+            if (productLayout.isFields()) {
+                Long changed = template(CacheTier.PRODUCT, key).execute(
+                        PRODUCT_FIELDS_SCRIPT, RedisSerializer.byteArray(),
+                        new GenericToStringSerializer<>(Long.class), List.of(key, productVersionKey(productId)),
+                        (Object[]) productFieldArgs(productData));
+                totalSets.incrementAndGet();
+                log.debug("L1 cache set for product: {} ({} groups changed)", productId, changed);
+                return;
+            }
+            template(CacheTier.PRODUCT, key).execute(PRODUCT_SET_SCRIPT, RedisSerializer.byteArray(),
+                    new GenericToStringSerializer<>(Long.class), List.of(key, productVersionKey(productId)),
+                    (Object[]) productSetArgs(productData));
             totalSets.incrementAndGet();
             log.debug("L1 cache set for product: {}", productId);
         } catch (Exception e) {
-            log.error("Error setting product in L1 cache: {}", productId, e);
+            logFailure("Error setting product in L1 cache: {}", productId, e);
         }
     }
 
-    // L2 Cache: User Sessions
+    // Passthrough reads (document layout): the product's JSON as stored, inflated if it was
+    // compressed but never decoded, ready to be copied to a response. Null on a miss.
+    public byte[] getProductJson(String productId) {
+        return getVersionedProductJson(productId).value();
+    }
 
-    public Map<String, Object> getUserSession(String sessionId) {
-        String key = l2SessionPrefix + sessionId;
+    // Passthrough read with the version read in the same call, as for getVersionedProduct
+    public Versioned<byte[]> getVersionedProductJson(String productId) {
+        String key = l1ProductPrefix + productId;
 
         try {
-            Map<Object, Object> cached = redisTemplate.opsForHash().entries(key);
+            byte[] near = nearCache.get(productId);
+            if (near != null) {
+                totalHits.incrementAndGet();
+                return Versioned.unversioned(near);
+            }
 
-            if (!cached.isEmpty()) {
+            StoredProduct cached = readStoredProduct(key, productId, true);
+            if (cached != null) {
                 totalHits.incrementAndGet();
-                log.debug("L2 cache hit for session: {}", sessionId);
+                log.debug("L1 cache passthrough hit for product: {}", productId);
+                // A stale copy remembered by getProduct is a decoded value
+                byte[] json = cached.value() instanceof byte[] bytes
+                        ? bytes : objectMapper.writeValueAsBytes(cached.value());
+                nearCache.put(productId, json);
+                return new Versioned<>(json, cached.version());
+            }
+
+            totalMisses.incrementAndGet();
+            log.debug("L1 cache passthrough miss for product: {}", productId);
+            return Versioned.unversioned(null);
 
-                // Convert to String keys
-                Map<String, Object> result = new HashMap<>();
-                for (Map.Entry<Object, Object> entry : cached.entrySet()) {
-                    result.put(entry.getKey().toString(), entry.getValue());
+        } catch (LoadShedException e) {
+            throw e;
+        } catch (Exception e) {
+            logFailure("Error getting product JSON from L1 cache: {}", productId, e);
+            totalMisses.incrementAndGet();
+            return Versioned.unversioned(null);
+        }
+    }
+
+    // Batched passthrough reads: near-cache first, then one MGET for the rest (one per shard
+    // when sharded); products not cached are left out
+    public Map<String, byte[]> getProductJsons(List<String> productIds) {
+        Map<String, byte[]> found = new LinkedHashMap<>();
+        List<String> remote = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            byte[] near = nearCache.get(productId);
+            if (near != null) {
+                found.put(productId, near);
+            } else {
+                remote.add(productId);
+            }
+        }
+        if (remote.isEmpty()) {
+            totalHits.addAndGet(found.size());
+            return found;
+        }
+        List<String> keys = new ArrayList<>(remote.size());
+        for (String productId : remote) {
+            keys.add(l1ProductPrefix + productId);
+        }
+
+        try {
+            List<byte[]> cached = mGet(CacheTier.PRODUCT, keys);
+            for (int i = 0; i < cached.size(); i++) {
+                if (cached.get(i) != null) {
+                    byte[] json = plainProductJson(cached.get(i));
+                    found.put(remote.get(i), json);
+                    nearCache.put(remote.get(i), json);
                 }
-                return result;
             }
+            totalHits.addAndGet(found.size());
+            totalMisses.addAndGet(productIds.size() - found.size());
+            log.debug("L1 cache passthrough read: {} of {} products", found.size(), productIds.size());
+            return found;
 
-            totalMisses.incrementAndGet();
-            log.debug("L2 cache miss for session: {}", sessionId);
+        } catch (LoadShedException e) {
+            throw e;
+        } catch (Exception e) {
+            logFailure("Error reading product JSON from L1 cache: {}", productIds, e);
+            totalHits.addAndGet(found.size());
+            totalMisses.addAndGet(remote.size());
+            return found;
+        }
+    }
+
+    private byte[] plainProductJson(byte[] stored) {
+        return stored != null && valueSerializer(CacheTier.PRODUCT) instanceof CompressingRedisSerializer compressing
+                ? compressing.decompress(stored) : stored;
+    }
+
+    // The version alone, for conditional requests; null when the product is not cached
+    public String getProductVersion(String productId) {
+        String key = productVersionKey(productId);
+
+        try {
+            byte[] version = template(CacheTier.PRODUCT, key).execute(
+                    (RedisCallback<byte[]>) connection -> connection.stringCommands().get(bytes(key)));
+            return version != null ? new String(version, StandardCharsets.UTF_8) : null;
+
+        } catch (Exception e) {
+            logFailure("Error getting product version from L1 cache: {}", productId, e);
             return null;
+        }
+    }
+
+    // Cached versions of many products with one MGET (per shard); products not cached are left out
+    public Map<String, String> getProductVersions(List<String> productIds) {
+        Map<String, String> versions = new LinkedHashMap<>();
+        if (productIds.isEmpty()) {
+            return versions;
+        }
+        List<String> keys = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            keys.add(productVersionKey(productId));
+        }
+
+        try {
+            List<byte[]> cached = mGet(CacheTier.PRODUCT, keys);
+            for (int i = 0; i < cached.size(); i++) {
+                if (cached.get(i) != null) {
+                    versions.put(productIds.get(i), new String(cached.get(i), StandardCharsets.UTF_8));
+                }
+            }
+            return versions;
+
+        } catch (Exception e) {
+            logFailure("Error getting product versions from L1 cache: {}", productIds, e);
+            return versions;
+        }
+    }
+
+    // Remaining TTL in milliseconds per product, as PTTL reports it (-2 not cached, -1 no expiry).
+    // One PTTL per product, all in flight at once (per shard when sharded); products whose
+    // PTTL failed are left out.
+    public Map<String, Long> getProductTtls(Collection<String> productIds) {
+        Map<String, Long> ttls = new LinkedHashMap<>();
+        if (productIds.isEmpty()) {
+            return ttls;
+        }
+
+        try {
+            for (Map.Entry<RedisTemplate<String, Object>, List<String>> shard
+                    : byTemplate(CacheTier.PRODUCT, productIds, id -> l1ProductPrefix + id).entrySet()) {
+                List<String> ids = shard.getValue();
+                shard.getKey().execute((RedisCallback<Object>) connection -> {
+                    RedisClusterAsyncCommands<byte[], byte[]> async = nativeAsync(connection);
+                    Map<String, CompletableFuture<Long>> futures = new LinkedHashMap<>();
+                    for (String productId : ids) {
+                        futures.put(productId, async.pttl(bytes(l1ProductPrefix + productId)).toCompletableFuture());
+                    }
+
+                    long deadline = System.nanoTime() + tieredTemplates.timeoutFor(CacheTier.PRODUCT).toNanos();
+                    for (Map.Entry<String, CompletableFuture<Long>> entry : futures.entrySet()) {
+                        try {
+                            ttls.put(entry.getKey(),
+                                    entry.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+                        } catch (Exception e) {
+                            log.debug("L1 TTL read failed for product: {} ({})", entry.getKey(), e.getMessage());
+                        }
+                    }
+                    return null;
+                });
+            }
+            return ttls;
+
+        } catch (Exception e) {
+            logFailure("Error getting product TTLs from L1 cache: {}", productIds, e);
+            return ttls;
+        }
+    }
+
+    // Listing reads: one HMGET of the requested groups per product, all in flight at once on
+    // the tier connection. The document layout has no groups and returns whole products, as
+    // does the near-cache, which is checked first. Products not cached are left out of the result.
+    public <T> Map<String, T> getProductFields(Collection<String> productIds, List<String> groups, Class<T> clazz) {
+        Map<String, T> found = new LinkedHashMap<>();
+        if (productIds.isEmpty()) {
+            return found;
+        }
+
+        try {
+            List<String> remote = new ArrayList<>(productIds.size());
+            for (String productId : productIds) {
+                byte[] near = nearCache.get(productId);
+                if (near != null) {
+                    found.put(productId, objectMapper.readValue(near, clazz));
+                } else {
+                    remote.add(productId);
+                }
+            }
+
+            Map<String, Object> cached = remote.isEmpty() ? Map.of()
+                    : productLayout.isFields()
+                    ? readProductGroups(remote, groups)
+                    : readProductDocuments(remote);
+
+            for (String productId : remote) {
+                Object product = cached.get(productId);
+                if (product != null) {
+                    found.put(productId, objectMapper.convertValue(product, clazz));
+                }
+            }
+            totalHits.addAndGet(found.size());
+            totalMisses.addAndGet(productIds.size() - found.size());
+            log.debug("L1 cache projection read: {} of {} products ({})", found.size(), productIds.size(),
+                    productLayout.isFields() ? groups : "document");
+            return found;
+
+        } catch (LoadShedException e) {
+            throw e;
+        } catch (Exception e) {
+            logFailure("Error reading product fields from L1 cache: {}", productIds, e);
+            totalMisses.addAndGet(productIds.size() - found.size());
+            return found;
+        }
+    }
+
+    private Map<String, Object> readProductGroups(Collection<String> productIds, List<String> groups) {
+        RedisSerializer<Object> values = valueSerializer(CacheTier.PRODUCT);
+        byte[][] fields = new byte[groups.size()][];
+        for (int i = 0; i < groups.size(); i++) {
+            fields[i] = bytes(groups.get(i));
+        }
+
+        Map<String, Object> products = new HashMap<>();
+        for (Map.Entry<RedisTemplate<String, Object>, List<String>> shard
+                : byTemplate(CacheTier.PRODUCT, productIds, id -> l1ProductPrefix + id).entrySet()) {
+            List<String> ids = shard.getValue();
+            shard.getKey().execute((RedisCallback<Object>) connection -> {
+                RedisClusterAsyncCommands<byte[], byte[]> async = nativeAsync(connection);
+                Map<String, CompletableFuture<List<KeyValue<byte[], byte[]>>>> futures = new LinkedHashMap<>();
+                for (String productId : ids) {
+                    futures.put(productId,
+                            async.hmget(bytes(l1ProductPrefix + productId), fields).toCompletableFuture());
+                }
+
+                long deadline = System.nanoTime() + tieredTemplates.timeoutFor(CacheTier.PRODUCT).toNanos();
+                for (Map.Entry<String, CompletableFuture<List<KeyValue<byte[], byte[]>>>> entry : futures.entrySet()) {
+                    try {
+                        Map<Object, Object> present = new HashMap<>();
+                        for (KeyValue<byte[], byte[]> field : entry.getValue()
+                                .get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                            if (field.hasValue()) {
+                                present.put(new String(field.getKey(), StandardCharsets.UTF_8),
+                                        values.deserialize(field.getValue()));
+                            }
+                        }
+                        Object product = mergeProductFields(present);
+                        if (product != null) {
+                            products.put(entry.getKey(), product);
+                        }
+                    } catch (Exception e) {
+                        // Includes WRONGTYPE for values still in the document layout: a miss that the
+                        // caller's write-back converts
+                        log.debug("L1 projection read failed for product: {} ({})", entry.getKey(), e.getMessage());
+                    }
+                }
+                return null;
+            });
+        }
+        return products;
+    }
+
+    private Map<String, Object> readProductDocuments(Collection<String> productIds) {
+        List<String> ids = new ArrayList<>(productIds);
+        List<String> keys = new ArrayList<>(ids.size());
+        for (String productId : ids) {
+            keys.add(l1ProductPrefix + productId);
+        }
+
+        RedisSerializer<Object> values = valueSerializer(CacheTier.PRODUCT);
+        List<byte[]> cached = mGet(CacheTier.PRODUCT, keys);
+        Map<String, Object> products = new HashMap<>();
+        for (int i = 0; i < cached.size(); i++) {
+            if (cached.get(i) != null) {
+                products.put(ids.get(i), values.deserialize(cached.get(i)));
+            }
+        }
+        return products;
+    }
+
+    private byte[][] productSetArgs(Object productData) {
+        return new byte[][]{
+                valueSerializer(CacheTier.PRODUCT).serialize(productData),
+                bytes(String.valueOf(l1ProductTtl)),
+                bytes(productVersion(productData))};
+    }
+
+    // Script arguments for PRODUCT_FIELDS_SCRIPT: ttl, version, then each group and its encoded properties
+    private byte[][] productFieldArgs(Object productData) {
+        Map<String, Map<String, Object>> groups =
+                productLayout.split(objectMapper.convertValue(productData, PROPERTIES));
+        RedisSerializer<Object> values = valueSerializer(CacheTier.PRODUCT);
+
+        byte[][] args = new byte[2 + groups.size() * 2][];
+        args[0] = bytes(String.valueOf(l1ProductTtl));
+        args[1] = bytes(productVersion(productData));
+        int i = 2;
+        for (Map.Entry<String, Map<String, Object>> group : groups.entrySet()) {
+            args[i++] = bytes(group.getKey());
+            args[i++] = values.serialize(group.getValue());
+        }
+        return args;
+    }
+
+    // First 128 bits of the SHA-256 of the product's JSON, hex encoded; what setProduct stores
+    public String productVersion(Object productData) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(productData));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot compute product version", e);
+        }
+    }
+
+    // A product as read from Redis: the decoded value (or JSON bytes on the passthrough path)
+    // and the version stored with it
+    private record StoredProduct(Object value, String version) {
+
+        StoredProduct stale() {
+            return new StoredProduct(value, null);
+        }
+    }
+
+    private String productVersionKey(String productId) {
+        return "{" + l1ProductPrefix + productId + "}:version";
+    }
+
+    private Map<String, Object> mergeProductFields(Map<Object, Object> groups) {
+        return groups == null || groups.isEmpty() ? null : productLayout.merge(groups);
+    }
+
+    // L2 Cache: User Sessions
+
+    public Map<String, Object> getUserSession(String sessionId) {
+        String key = keyLayout.sessionKey(sessionId);
+        try {
+            Map<String, Object> session = memoized(key, () -> {
+                Map<String, Object> loaded = loadUserSession(key, sessionId);
+                if (loaded == null && keyLayout.isReadLegacyFallback()
+                        && moveKey(CacheTier.SESSION, keyLayout.legacySessionKey(sessionId), key)) {
+                    loaded = loadUserSession(key, sessionId);
+                }
+                return loaded;
+            });
+            return session != null ? new HashMap<>(session) : null;
 
+        } catch (LoadShedException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Error getting session from L2 cache: {}", sessionId, e);
+            logFailure("Error getting session from L2 cache: {}", sessionId, e);
             totalMisses.incrementAndGet();
             return null;
         }
     }
 
+    private Map<String, Object> loadUserSession(String key, String sessionId) {
+        Map<Object, Object> cached = readWithFallback(key, () -> hedgedRead(CacheTier.SESSION,
+                () -> template(CacheTier.SESSION).opsForHash().entries(key),
+                async -> async.hgetall(bytes(key)),
+                raw -> decodeHash(CacheTier.SESSION, raw)));
+
+        if (!cached.isEmpty()) {
+            totalHits.incrementAndGet();
+            log.debug("L2 cache hit for session: {}", sessionId);
+
+            // Convert to String keys
+            Map<String, Object> result = new HashMap<>();
+            for (Map.Entry<Object, Object> entry : cached.entrySet()) {
+                result.put(entry.getKey().toString(), entry.getValue());
+            }
+            return result;
+        }
+
+        totalMisses.incrementAndGet();
+        log.debug("L2 cache miss for session: {}", sessionId);
+        return null;
+    }
+
     public void setUserSession(String sessionId, Map<String, Object> sessionData) {
-        String key = l2SessionPrefix + sessionId;
+        String key = keyLayout.sessionKey(sessionId);
+        forget(key);
 
         try {
-            redisTemplate.opsForHash().putAll(key, sessionData);
-            redisTemplate.expire(key, Duration.ofSeconds(l2SessionTtl));
+            template(CacheTier.SESSION).opsForHash().putAll(key, sessionData);
+            template(CacheTier.SESSION).expire(key, Duration.ofSeconds(l2SessionTtl));
 
             totalSets.incrementAndGet();
             log.debug("L2 cache set for session: {}", sessionId);
 
         } catch (Exception e) {
-            log.error("Error setting session in L2 cache: {}", sessionId, e);
+            logFailure("Error setting session in L2 cache: {}", sessionId, e);
         }
     }
 
     public void updateSessionField(String sessionId, String field, Object value) {
-        String key = l2SessionPrefix + sessionId;
+        String key = keyLayout.sessionKey(sessionId);
+        forget(key);
 
         try {
-            redisTemplate.opsForHash().put(key, field, value);
-            redisTemplate.expire(key, Duration.ofSeconds(l2SessionTtl));
+            if (keyLayout.isReadLegacyFallback()) {
+                // Move first, or the field write would start a partial hash under the new key
+                moveKey(CacheTier.SESSION, keyLayout.legacySessionKey(sessionId), key);
+            }
+            template(CacheTier.SESSION).opsForHash().put(key, field, value);
+            template(CacheTier.SESSION).expire(key, Duration.ofSeconds(l2SessionTtl));
             log.debug("L2 cache field updated for session: {} field: {}", sessionId, field);
 
         } catch (Exception e) {
-            log.error("Error updating session field in L2 cache: {} field: {}", sessionId, field, e);
+            logFailure("Error updating session field in L2 cache: {} field: {}", sessionId, field, e);
         }
     }
 
-    // L3 Cache: Inventory
-    public Integer getInventory(String productId) {
-        String key = l3InventoryPrefix + productId;
+    // L2 Cache: Carts, one hash per cart with one field group per line item
+    // (qty:, price:, item:) and totals kept as integer cents.
 
+    public Map<String, Object> getCart(String sessionId, String cartId) {
+        String key = keyLayout.cartKey(sessionId, cartId);
         try {
-            String cached = (String) redisTemplate.opsForValue().get(key);
+            Map<String, Object> cart = memoized(key, () -> {
+                Map<String, Object> loaded = loadCart(key, cartId);
+                if (loaded == null && keyLayout.isReadLegacyFallback()
+                        && moveKey(CacheTier.CART, keyLayout.legacyCartKey(cartId), key)) {
+                    loaded = loadCart(key, cartId);
+                }
+                return loaded;
+            });
+            return cart != null ? new HashMap<>(cart) : null;
 
-            if (cached != null) {
-                totalHits.incrementAndGet();
-                log.debug("L3 cache hit for inventory: {}", productId);
-                return Integer.parseInt(cached);
+        } catch (LoadShedException e) {
+            throw e;
+        } catch (Exception e) {
+            logFailure("Error getting cart from L2 cache: {}", cartId, e);
+            totalMisses.incrementAndGet();
+            return null;
+        }
+    }
+
+    private Map<String, Object> loadCart(String key, String cartId) {
+        Map<Object, Object> cached =
+                readWithFallback(key, () -> template(CacheTier.CART).opsForHash().entries(key));
+
+        if (!cached.isEmpty()) {
+            totalHits.incrementAndGet();
+            log.debug("L2 cache hit for cart: {}", cartId);
+
+            Map<String, Object> result = new HashMap<>();
+            for (Map.Entry<Object, Object> entry : cached.entrySet()) {
+                result.put(entry.getKey().toString(), entry.getValue());
             }
+            return result;
+        }
 
-            totalMisses.incrementAndGet();
-            log.debug("L3 cache miss for inventory: {}", productId);
+        totalMisses.incrementAndGet();
+        log.debug("L2 cache miss for cart: {}", cartId);
+        return null;
+    }
+
+    public void createCart(String sessionId, String cartId, Map<String, Object> cartFields) {
+        String key = keyLayout.cartKey(sessionId, cartId);
+        forget(key);
+
+        try {
+            template(CacheTier.CART).opsForHash().putAll(key, cartFields);
+            template(CacheTier.CART).expire(key, Duration.ofSeconds(l2CartTtl));
+
+            totalSets.incrementAndGet();
+            log.debug("L2 cache created cart: {}", cartId);
+
+        } catch (Exception e) {
+            logFailure("Error creating cart in L2 cache: {}", cartId, e);
+        }
+    }
+
+    // Adds (or increases) a line and updates totals in one atomic round trip; returns the cart fields
+    public Map<String, Object> addCartItem(String sessionId, String cartId, String productId, int quantity,
+                                           long unitPriceCents, Map<String, Object> item, Map<String, Object> owner,
+                                           CartPricing pricing) {
+        try {
+            List<String> args = cartScriptArgs(productId, quantity, unitPriceCents,
+                    objectMapper.writeValueAsString(item), pricing);
+            args.add(objectMapper.writeValueAsString(owner.get("userId")));
+            args.add(objectMapper.writeValueAsString(sessionId));
+            args.add(objectMapper.writeValueAsString(owner.getOrDefault("currency", "USD")));
+
+            Map<String, Object> fields = runCartScript(CART_ADD_SCRIPT, sessionId, cartId, args);
+            totalSets.incrementAndGet();
+            log.debug("L2 cache added {} x {} to cart: {}", quantity, productId, cartId);
+            return fields;
+
+        } catch (Exception e) {
+            logFailure("Error adding item to cart in L2 cache: {} product: {}", cartId, productId, e);
             return null;
+        }
+    }
+
+    public Map<String, Object> removeCartItem(String sessionId, String cartId, String productId, CartPricing pricing) {
+        try {
+            Map<String, Object> fields = runCartScript(CART_REMOVE_SCRIPT, sessionId, cartId,
+                    cartScriptArgs(productId, 0, 0, "null", pricing));
+            totalSets.incrementAndGet();
+            log.debug("L2 cache removed {} from cart: {}", productId, cartId);
+            return fields;
+
+        } catch (Exception e) {
+            logFailure("Error removing item from cart in L2 cache: {} product: {}", cartId, productId, e);
+            return null;
+        }
+    }
+
+    private List<String> cartScriptArgs(String productId, int quantity, long unitPriceCents, String itemJson,
+                                        CartPricing pricing) throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        return new ArrayList<>(List.of(
+                productId,
+                String.valueOf(quantity),
+                String.valueOf(unitPriceCents),
+                itemJson,
+                String.valueOf(pricing.getTaxBasisPoints()),
+                String.valueOf(pricing.getFreeShippingThresholdCents()),
+                String.valueOf(pricing.getShippingFeeCents()),
+                objectMapper.writeValueAsString(now.toString()),
+                objectMapper.writeValueAsString(now.plusSeconds(l2CartTtl).toString()),
+                String.valueOf(l2CartTtl)));
+    }
+
+    // Script arguments are pre-encoded JSON, so raw hash values decode the same way
+    // as values written through the template's hash serializer
+    private Map<String, Object> runCartScript(RedisScript<List<Object>> script, String sessionId, String cartId,
+                                              List<String> args) throws Exception {
+        String key = keyLayout.cartKey(sessionId, cartId);
+        forget(key);
+        if (keyLayout.isReadLegacyFallback()) {
+            moveKey(CacheTier.CART, keyLayout.legacyCartKey(cartId), key);
+        }
 
+        StringRedisSerializer serializer = new StringRedisSerializer();
+        List<Object> raw = template(CacheTier.CART).execute(script, serializer, elementsOf(serializer),
+                List.of(key), args.toArray());
+
+        Map<String, Object> fields = new HashMap<>();
+        if (raw == null) {
+            return fields;
+        }
+        for (int i = 0; i + 1 < raw.size(); i += 2) {
+            fields.put(raw.get(i).toString(), objectMapper.readValue(raw.get(i + 1).toString(), Object.class));
+        }
+        return fields;
+    }
+
+    // Lua tables come back as lists; the declared result type only tells Spring to read a multi-bulk reply
+    @SuppressWarnings("unchecked")
+    private static RedisScript<List<Object>> listScript(String body) {
+        return (RedisScript<List<Object>>) (RedisScript<?>) new DefaultRedisScript<>(body, List.class);
+    }
+
+    // Spring decodes a multi-bulk reply element by element with the result serializer
+    @SuppressWarnings("unchecked")
+    private static RedisSerializer<List<Object>> elementsOf(RedisSerializer<?> serializer) {
+        return (RedisSerializer<List<Object>>) serializer;
+    }
+
+    // L3 Cache: Inventory
+    public Integer getInventory(String productId) {
+        String key = l3InventoryPrefix + productId;
+        try {
+            return memoized(key, () -> loadInventory(key, productId));
+        } catch (LoadShedException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Error getting inventory from L3 cache: {}", productId, e);
+            logFailure("Error getting inventory from L3 cache: {}", productId, e);
             totalMisses.incrementAndGet();
             return null;
         }
     }
 
+    private Integer loadInventory(String key, String productId) {
+        String cached = (String) template(CacheTier.INVENTORY).opsForValue().get(key);
+
+        if (cached != null) {
+            totalHits.incrementAndGet();
+            log.debug("L3 cache hit for inventory: {}", productId);
+            return Integer.parseInt(cached);
+        }
+
+        totalMisses.incrementAndGet();
+        log.debug("L3 cache miss for inventory: {}", productId);
+        return null;
+    }
+
     public void setInventory(String productId, int quantity) {
         String key = l3InventoryPrefix + productId;
+        forget(key);
 
         try {
-            redisTemplate.opsForValue().set(key, String.valueOf(quantity), Duration.ofSeconds(l3InventoryTtl));
+            template(CacheTier.INVENTORY).opsForValue()
+                    .set(key, String.valueOf(quantity), Duration.ofSeconds(l3InventoryTtl));
             totalSets.incrementAndGet();
             log.debug("L3 cache set for inventory: {} = {}", productId, quantity);
 
         } catch (Exception e) {
-            log.error("Error setting inventory in L3 cache: {}", productId, e);
+            logFailure("Error setting inventory in L3 cache: {}", productId, e);
         }
     }
 
     public Long decrementInventory(String productId, int amount) {
         String key = l3InventoryPrefix + productId;
+        forget(key);
 
         try {
-            Long newValue = redisTemplate.opsForValue().increment(key, -amount);
-            redisTemplate.expire(key, Duration.ofSeconds(l3InventoryTtl));
+            Long newValue = template(CacheTier.INVENTORY).opsForValue().increment(key, -amount);
+            template(CacheTier.INVENTORY).expire(key, Duration.ofSeconds(l3InventoryTtl));
             log.debug("L3 cache decremented inventory: {} by {} = {}", productId, amount, newValue);
             return newValue;
 
         } catch (Exception e) {
-            log.error("Error decrementing inventory in L3 cache: {}", productId, e);
+            logFailure("Error decrementing inventory in L3 cache: {}", productId, e);
             return null;
         }
     }
 
+    // Reserves stock for many products at once: keys are grouped by slot (one group in
+    // standalone mode), each group is reserved all-or-nothing by one script, groups run
+    // concurrently, and groups that succeeded are released again if any other group fails.
+    // A group with no answer in time may still have been applied: if its reply arrives
+    // later and says so, it is released then.
+    public InventoryReservation reserveInventory(Map<String, Integer> quantities) {
+        quantities.keySet().forEach(id -> forget(l3InventoryPrefix + id));
+        Map<String, List<String>> groups = inventoryScriptGroups(quantities.keySet());
+
+        try {
+            InventoryReservation reservation = reserveGroups(groups, quantities);
+
+            if (reservation != null && reservation.isSuccess()) {
+                totalSets.addAndGet(quantities.size());
+                log.debug("L3 reserved inventory for {} products across {} slot groups",
+                        quantities.size(), groups.size());
+            } else if (reservation != null) {
+                log.debug("L3 inventory reservation rejected: {} ({})",
+                        reservation.getFailedProductId(), reservation.getFailureReason());
+            }
+            return reservation;
+
+        } catch (Exception e) {
+            logFailure("Error reserving inventory in L3 cache: {}", quantities.keySet(), e);
+            return InventoryReservation.builder()
+                    .success(false)
+                    .unavailable(true)
+                    .failureReason("Redis error: " + e.getMessage())
+                    .nodeGroups(groups.size())
+                    .build();
+        }
+    }
+
+    // One reservation script per group, each taking its own limiter permit; the compensating
+    // releases are not admitted again, since they return stock this reservation already holds
+    private InventoryReservation reserveGroups(Map<String, List<String>> groups, Map<String, Integer> quantities) {
+        long timeoutMs = tieredTemplates.timeoutFor(CacheTier.INVENTORY).toMillis();
+        RedisClusterAsyncCommands<byte[], byte[]> async = tieredTemplates.asyncFor(CacheTier.INVENTORY);
+        CommandGuard guard = tieredTemplates.guardFor(CacheTier.INVENTORY);
+
+        Map<String, CompletableFuture<List<Object>>> futures = new LinkedHashMap<>();
+        groups.forEach((group, ids) -> {
+            CompletableFuture<List<Object>> reply;
+            try {
+                reply = guard.callAsync(() -> evalInventoryScript(
+                        async, RESERVE_INVENTORY_SCRIPT, ids, quantities::get, String.valueOf(l3InventoryTtl)));
+            } catch (RuntimeException e) {
+                reply = CompletableFuture.failedFuture(e);
+            }
+            futures.put(group, reply);
+        });
+
+        Map<String, Long> remaining = new LinkedHashMap<>();
+        List<String> reservedGroups = new ArrayList<>();
+        List<String> unansweredGroups = new ArrayList<>();
+        InventoryReservation.InventoryReservationBuilder result = InventoryReservation.builder()
+                .nodeGroups(groups.size());
+        boolean failed = false;
+
+        for (Map.Entry<String, CompletableFuture<List<Object>>> entry : futures.entrySet()) {
+            List<String> ids = groups.get(entry.getKey());
+            try {
+                List<Object> reply = entry.getValue().get(timeoutMs, TimeUnit.MILLISECONDS);
+                long status = (Long) reply.get(0);
+                if (status == 0) {
+                    reservedGroups.add(entry.getKey());
+                    for (int i = 0; i < ids.size(); i++) {
+                        remaining.put(ids.get(i), (Long) reply.get(i + 1));
+                    }
+                } else if (!failed) {
+                    failed = true;
+                    long available = (Long) reply.get(1);
+                    result.failedProductId(ids.get((int) status - 1))
+                            .availableQuantity(available < 0 ? null : available)
+                            .failureReason(available < 0 ? "Inventory not cached" : "Insufficient inventory");
+                }
+            } catch (Exception e) {
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                logFailure("Inventory reservation failed for {} ({})", ids, entry.getKey(), cause);
+                if (!entry.getValue().isDone()) {
+                    unansweredGroups.add(entry.getKey());
+                }
+                if (!failed) {
+                    failed = true;
+                    result.failedProductId(ids.get(0))
+                            .unavailable(true)
+                            .failureReason("Redis error: " + cause.getMessage());
+                }
+            }
+        }
+
+        if (!failed) {
+            return result.success(true).remaining(remaining).build();
+        }
+
+        // Compensate: put back what the successful groups took
+        List<CompletableFuture<List<Object>>> releases = new ArrayList<>();
+        for (String group : reservedGroups) {
+            releases.add(evalInventoryScript(async, RELEASE_INVENTORY_SCRIPT, groups.get(group),
+                    quantities::get, null));
+        }
+        for (String group : unansweredGroups) {
+            releaseIfReserved(async, futures.get(group), groups.get(group), quantities);
+        }
+        for (CompletableFuture<List<Object>> release : releases) {
+            try {
+                release.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                logFailure("Failed to release inventory during compensation", e);
+            }
+        }
+        return result.success(false).compensatedGroups(reservedGroups.size()).build();
+    }
+
+    // Returns reserved stock, e.g. when a checkout is abandoned after a successful reservation
+    public void releaseInventory(Map<String, Integer> quantities) {
+        quantities.keySet().forEach(id -> forget(l3InventoryPrefix + id));
+        Map<String, List<String>> groups = inventoryScriptGroups(quantities.keySet());
+
+        try {
+            RedisClusterAsyncCommands<byte[], byte[]> async = tieredTemplates.asyncFor(CacheTier.INVENTORY);
+            CommandGuard guard = tieredTemplates.guardFor(CacheTier.INVENTORY);
+            List<CompletableFuture<List<Object>>> releases = new ArrayList<>();
+            groups.values().forEach(ids -> releases.add(guard.callAsync(() -> evalInventoryScript(
+                    async, RELEASE_INVENTORY_SCRIPT, ids, quantities::get, null))));
+            CompletableFuture.allOf(releases.toArray(new CompletableFuture<?>[0]))
+                    .orTimeout(tieredTemplates.timeoutFor(CacheTier.INVENTORY).toMillis(), TimeUnit.MILLISECONDS)
+                    .join();
+            log.debug("L3 released inventory for {} products", quantities.size());
+
+        } catch (Exception e) {
+            logFailure("Error releasing inventory in L3 cache: {}", quantities.keySet(), e);
+        }
+    }
+
+    // A late reservation reply still owns stock when it reports success; nothing else to do
+    // when it failed or was rejected
+    private void releaseIfReserved(RedisClusterAsyncCommands<byte[], byte[]> async,
+                                   CompletableFuture<List<Object>> reservation, List<String> ids,
+                                   Map<String, Integer> quantities) {
+        reservation.thenCompose(reply -> {
+            if ((Long) reply.get(0) != 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            log.warn("Releasing late inventory reservation for {}", ids);
+            return evalInventoryScript(async, RELEASE_INVENTORY_SCRIPT, ids, quantities::get, null);
+        }).whenComplete((released, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                log.error("Inventory reservation for {} has an unknown outcome: {}", ids, cause.toString());
+            }
+        });
+    }
+
+    // Keys one script may take together: a slot's worth in cluster mode, all of them standalone
+    private Map<String, List<String>> inventoryScriptGroups(Collection<String> productIds) {
+        Function<String, String> keyOf = id -> l3InventoryPrefix + id;
+        if (!clusterManager.isCluster()) {
+            return clusterManager.groupByNode(productIds, keyOf);
+        }
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        clusterManager.groupBySlot(productIds, keyOf).forEach((slot, ids) -> groups.put("slot " + slot, ids));
+        return groups;
+    }
+
+    private CompletableFuture<List<Object>> evalInventoryScript(RedisClusterAsyncCommands<byte[], byte[]> async,
+                                                                RedisScript<List<Object>> script, List<String> ids,
+                                                                Function<String, Integer> amountOf,
+                                                                String extraArg) {
+        byte[][] keys = new byte[ids.size()][];
+        byte[][] args = new byte[ids.size() + (extraArg != null ? 1 : 0)][];
+        for (int i = 0; i < ids.size(); i++) {
+            keys[i] = (l3InventoryPrefix + ids.get(i)).getBytes(StandardCharsets.UTF_8);
+            args[i] = String.valueOf(amountOf.apply(ids.get(i))).getBytes(StandardCharsets.UTF_8);
+        }
+        if (extraArg != null) {
+            args[ids.size()] = extraArg.getBytes(StandardCharsets.UTF_8);
+        }
+        return evalScript(async, script, ScriptOutputType.MULTI, keys, args);
+    }
+
+    // EVALSHA first; load the script body only when the node has not seen it yet
+    private static <T> CompletableFuture<T> evalScript(RedisClusterAsyncCommands<byte[], byte[]> async,
+                                                       RedisScript<?> script, ScriptOutputType type,
+                                                       byte[][] keys, byte[][] args) {
+        CompletableFuture<T> bySha = async.<T>evalsha(script.getSha1(), type, keys, args).toCompletableFuture();
+        return bySha.exceptionallyCompose(error -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof RedisNoScriptException) {
+                return async.<T>eval(script.getScriptAsString(), type, keys, args).toCompletableFuture();
+            }
+            return CompletableFuture.failedFuture(cause);
+        });
+    }
+
+    // SCRIPT LOADs every script on the tier it runs on (all nodes in cluster mode, every shard
+    // when sharded), so the first EVALSHA after boot does not miss and resend the body.
+    // Returns the number of loads.
+    public int preloadScripts() {
+        Map<CacheTier, List<RedisScript<?>>> scripts = new LinkedHashMap<>();
+        scripts.put(CacheTier.PRODUCT, List.of(PRODUCT_SET_SCRIPT, PRODUCT_FIELDS_SCRIPT));
+        scripts.put(CacheTier.CART, List.of(CART_ADD_SCRIPT, CART_REMOVE_SCRIPT));
+        scripts.put(CacheTier.INVENTORY, List.of(RESERVE_INVENTORY_SCRIPT, RELEASE_INVENTORY_SCRIPT));
+        scripts.put(CacheTier.ANALYTICS, List.of(FENCED_SET_SCRIPT));
+
+        List<CompletableFuture<String>> loads = new ArrayList<>();
+        scripts.forEach((tier, tierScripts) -> tierScripts.forEach(script -> {
+            TieredRedisTemplates.AsyncCommand<String> load =
+                    async -> async.scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+            if (sharded(tier)) {
+                tieredTemplates.shardsOf(tier)
+                        .forEach(shard -> loads.add(tieredTemplates.sendAsync(tier, shard, load)));
+            } else {
+                loads.add(tieredTemplates.sendAsync(tier, load));
+            }
+        }));
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0])).join();
+        return loads.size();
+    }
+
+    // Remembers every non-empty read; when Redis fails or the tier's circuit is open the
+    // last value seen is served instead. Inventory reads never fall back: stale stock oversells.
+    private <T> T readWithFallback(String key, Supplier<T> read) {
+        return readWithFallback(key, read, UnaryOperator.identity());
+    }
+
+    // As above; asStale adjusts a remembered value before it is served in place of a read
+    private <T> T readWithFallback(String key, Supplier<T> read, UnaryOperator<T> asStale) {
+        try {
+            T value = read.get();
+            if (isEmpty(value)) {
+                staleFallback.remove(key);
+            } else {
+                staleFallback.put(key, value);
+            }
+            return value;
+        } catch (RuntimeException e) {
+            T stale = staleFallback.get(key);
+            if (stale == null) {
+                throw e;
+            }
+            log.debug("Serving stale value for {} ({})", key, e.getMessage());
+            return asStale.apply(stale);
+        }
+    }
+
+    // Hedged read for tiers with cache.tiers.<tier>.hedge.enabled: the primary goes out on
+    // the tier connection, and if it is still pending after the tier's adaptive delay (and
+    // the hedge budget allows) the same read goes to the other side of the cluster. The first
+    // successful answer wins, except that a miss from the hedge only counts once the primary
+    // has failed or the deadline is reached. Tiers without hedging take the plain template path.
+    private <R, T> T hedgedRead(CacheTier tier, Supplier<T> plainRead,
+                                TieredRedisTemplates.AsyncCommand<R> command, Function<R, T> decode) {
+        HedgePolicy policy = tieredTemplates.hedgePolicyFor(tier);
+        if (policy == null) {
+            return plainRead.get();
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + tieredTemplates.timeoutFor(tier).toNanos();
+        CompletableFuture<R> primary = tieredTemplates.guardFor(tier)
+                .callAsync(() -> tieredTemplates.sendAsync(tier, command));
+        primary.whenComplete((value, error) -> {
+            if (error == null) {
+                policy.recordPrimary(System.nanoTime() - start);
+            }
+        });
+
+        try {
+            try {
+                return decode.apply(primary.get(policy.delayNanos(), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException slow) {
+                if (!policy.tryHedge()) {
+                    return decode.apply(primary.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+                }
+            }
+
+            CompletableFuture<T> primaryValue = primary.thenApply(decode);
+            CompletableFuture<T> hedgeValue = tieredTemplates.sendHedge(tier, command).thenApply(decode);
+            CompletableFuture<T> winner = new CompletableFuture<>();
+            primaryValue.whenComplete((value, error) -> {
+                if (error == null) {
+                    winner.complete(value);
+                } else if (hedgeValue.isDone()) {
+                    // The hedge's answer, even a miss, or its failure when both failed
+                    hedgeValue.whenComplete((hedged, hedgeError) -> settle(winner, hedged, hedgeError));
+                }
+            });
+            hedgeValue.whenComplete((value, error) -> {
+                // A miss is not trusted over a primary still in flight: the hedge may have gone
+                // to a replica that has not seen the write yet
+                if (error == null && !isEmpty(value) && winner.complete(value) && !primary.isDone()) {
+                    policy.recordHedgeWin();
+                } else if (primaryValue.isCompletedExceptionally()) {
+                    settle(winner, value, error);
+                }
+            });
+            try {
+                return winner.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Out of time for the primary: a miss from the hedge beats no answer
+                if (hedgeValue.isDone() && !hedgeValue.isCompletedExceptionally()) {
+                    return hedgeValue.join();
+                }
+                throw e;
+            }
+
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Redis read timed out on tier " + tier.getConfigName());
+        } catch (ExecutionException e) {
+            throw new RedisSystemException("Redis read failed on tier " + tier.getConfigName(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("Interrupted reading tier " + tier.getConfigName(), e);
+        }
+    }
+
+    private static <T> void settle(CompletableFuture<T> winner, T value, Throwable error) {
+        if (error == null) {
+            winner.complete(value);
+        } else {
+            winner.completeExceptionally(error);
+        }
+    }
+
+    // A miss as the read paths see it: nothing stored, or an empty hash
+    private static boolean isEmpty(Object value) {
+        return value == null || value instanceof Map<?, ?> map && map.isEmpty();
+    }
+
+    private Map<Object, Object> decodeHash(CacheTier tier, Map<byte[], byte[]> raw) {
+        RedisSerializer<Object> values = valueSerializer(tier);
+        Map<Object, Object> decoded = new HashMap<>();
+        raw.forEach((field, value) ->
+                decoded.put(new String(field, StandardCharsets.UTF_8), values.deserialize(value)));
+        return decoded;
+    }
+
+    // An open circuit or a shed call is expected during an outage or overload: no stack trace per request.
+    // Reads whose miss would send the caller to the backing store (products, sessions, carts,
+    // inventory) rethrow LoadShedException instead of reporting a miss, so overload surfaces as
+    // a 503 rather than turning into source loads; readWithFallback still serves a stale copy first.
+    private void logFailure(String format, Object... args) {
+        if (args.length > 0 && (args[args.length - 1] instanceof CircuitOpenException
+                || args[args.length - 1] instanceof LoadShedException)) {
+            log.debug(format, Arrays.copyOf(args, args.length - 1));
+        } else {
+            log.error(format, args);
+        }
+    }
+
+    // Request-scoped memo; a no-op outside HTTP requests (scheduled jobs, executor threads).
+    // Loaders throw rather than swallow Redis failures, so only real answers are memoized.
+    private <T> T memoized(String key, Supplier<T> loader) {
+        return memoized(key, Object.class, loader);
+    }
+
+    // As above, for a key that may be read as more than one type
+    private <T> T memoized(String key, Class<?> type, Supplier<T> loader) {
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return loader.get();
+        }
+        int hitsBefore = requestLookupMemo.getHits();
+        T value = requestLookupMemo.getOrLoad(key, type, loader);
+        if (requestLookupMemo.getHits() > hitsBefore) {
+            totalMemoHits.incrementAndGet();
+            log.debug("Request memo hit for: {}", key);
+        }
+        return value;
+    }
+
+    private void forget(String key) {
+        staleFallback.remove(key);
+        if (RequestContextHolder.getRequestAttributes() != null) {
+            requestLookupMemo.invalidate(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisClusterAsyncCommands<byte[], byte[]> nativeAsync(
+            RedisConnection connection) {
+        return (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
     // L4 Cache: Analytics
     @SuppressWarnings("unchecked")
     public <T> T getAnalytics(String metric, String date, Class<T> clazz) {
         String key = l4AnalyticsPrefix + date + ":" + metric;
 
         try {
-            Object cached = redisTemplate.opsForValue().get(key);
+            Object cached = readWithFallback(key, () -> template(CacheTier.ANALYTICS).opsForValue().get(key));
 
             if (cached != null) {
                 totalHits.incrementAndGet();
@@ -226,7 +1440,7 @@ public class RedisCacheService {
             return null;
 
         } catch (Exception e) {
-            log.error("Error getting analytics from L4 cache: {}:{}", date, metric, e);
+            logFailure("Error getting analytics from L4 cache: {}:{}", date, metric, e);
             totalMisses.incrementAndGet();
             return null;
         }
@@ -236,45 +1450,606 @@ public class RedisCacheService {
         String key = l4AnalyticsPrefix + date + ":" + metric;
 
         try {
-            redisTemplate.opsForValue().set(key, data, Duration.ofSeconds(l4AnalyticsTtl));
+            template(CacheTier.ANALYTICS).opsForValue().set(key, data, Duration.ofSeconds(l4AnalyticsTtl));
             totalSets.incrementAndGet();
             log.debug("L4 cache set for analytics: {}:{}", date, metric);
 
         } catch (Exception e) {
-            log.error("Error setting analytics in L4 cache: {}:{}", date, metric, e);
+            logFailure("Error setting analytics in L4 cache: {}:{}", date, metric, e);
+        }
+    }
+
+    // Leader-only write guarded by a fencing token. The companion key wraps the
+    // whole data key in a hash tag, so both hash to the same slot.
+    public boolean setAnalyticsFenced(String metric, String date, Object data, long fencingToken) {
+        String key = l4AnalyticsPrefix + date + ":" + metric;
+
+        try {
+            Long written = template(CacheTier.ANALYTICS).execute(FENCED_SET_SCRIPT, new StringRedisSerializer(),
+                    new GenericToStringSerializer<>(Long.class), List.of(key, "{" + key + "}:fence"),
+                    String.valueOf(fencingToken), objectMapper.writeValueAsString(data), String.valueOf(l4AnalyticsTtl));
+
+            if (Long.valueOf(1).equals(written)) {
+                totalSets.incrementAndGet();
+                log.debug("L4 cache fenced set for analytics: {}:{} token {}", date, metric, fencingToken);
+                return true;
+            }
+            log.warn("L4 fenced write rejected for analytics: {}:{} stale token {}", date, metric, fencingToken);
+            return false;
+
+        } catch (Exception e) {
+            logFailure("Error setting fenced analytics in L4 cache: {}:{}", date, metric, e);
+            return false;
+        }
+    }
+
+    // L4 Cache: Trending sketches, one sorted set per event and time bucket.
+    // The event is hash-tagged so every bucket of a window lives on one slot and
+    // can be merged with a single ZUNIONSTORE.
+    // Returns false when the scores did not reach Redis, so the caller can keep them
+    public boolean incrementTrendingScores(String event, long bucket, Map<String, Long> scores, Duration ttl) {
+        if (scores.isEmpty()) {
+            return true;
+        }
+        byte[] key = trendingKey(event, bucket).getBytes(StandardCharsets.UTF_8);
+
+        try {
+            template(CacheTier.ANALYTICS).executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, Long> entry : scores.entrySet()) {
+                    connection.zSetCommands().zIncrBy(key, entry.getValue(), serializeMember(entry.getKey()));
+                }
+                connection.keyCommands().expire(key, ttl.getSeconds());
+                return null;
+            });
+            totalSets.incrementAndGet();
+            log.debug("L4 trending scores flushed: {} bucket {} ({} items)", event, bucket, scores.size());
+            return true;
+
+        } catch (Exception e) {
+            logFailure("Error flushing trending scores for {} bucket {}", event, bucket, e);
+            return false;
+        }
+    }
+
+    public Map<String, Double> getTrendingScores(String event, List<Long> buckets, int limit) {
+        if (buckets.isEmpty() || limit <= 0) {
+            return Collections.emptyMap();
+        }
+        List<String> keys = new ArrayList<>(buckets.size());
+        for (Long bucket : buckets) {
+            keys.add(trendingKey(event, bucket));
+        }
+
+        // Merged on the server into a short-lived key on the same slot, so only the top
+        // members cross the wire; the key is dropped in the same pipeline
+        byte[] union = trendingUnionKey(event).getBytes(StandardCharsets.UTF_8);
+        byte[][] sources = keys.stream().map(key -> key.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+        try {
+            List<Object> replies = template(CacheTier.ANALYTICS).executePipelined((RedisCallback<Object>) connection -> {
+                connection.zSetCommands().zUnionStore(union, sources);
+                connection.keyCommands().pExpire(union, TRENDING_UNION_TTL_MS);
+                connection.zSetCommands().zRevRangeWithScores(union, 0, limit - 1);
+                connection.keyCommands().del(union);
+                return null;
+            }, memberSerializer());
+            @SuppressWarnings("unchecked")
+            Set<ZSetOperations.TypedTuple<Object>> top = (Set<ZSetOperations.TypedTuple<Object>>) replies.get(2);
+
+            if (top == null || top.isEmpty()) {
+                totalMisses.incrementAndGet();
+                return Collections.emptyMap();
+            }
+            totalHits.incrementAndGet();
+
+            Map<String, Double> result = new LinkedHashMap<>();
+            for (ZSetOperations.TypedTuple<Object> tuple : top) {
+                if (tuple.getValue() != null && tuple.getScore() != null) {
+                    result.put(tuple.getValue().toString(), tuple.getScore());
+                }
+            }
+            return result;
+
+        } catch (Exception e) {
+            logFailure("Error reading trending scores for {}", event, e);
+            totalMisses.incrementAndGet();
+            return Collections.emptyMap();
         }
     }
 
+    // L4 Cache: Time-bucketed rollups. Each metric/resolution pair is hash-tagged
+    // so a whole range of buckets is fetched with a single MGET on one slot.
+    // Returns false when the deltas did not reach Redis, so the caller can keep them
+    public boolean incrementRollups(String metric, String resolution, Map<Long, Double> deltas, Duration ttl) {
+        if (deltas.isEmpty()) {
+            return true;
+        }
+
+        try {
+            template(CacheTier.ANALYTICS).executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<Long, Double> entry : deltas.entrySet()) {
+                    byte[] key = rollupKey(metric, resolution, entry.getKey()).getBytes(StandardCharsets.UTF_8);
+                    connection.stringCommands().incrBy(key, entry.getValue());
+                    connection.keyCommands().expire(key, ttl.getSeconds());
+                }
+                return null;
+            });
+            totalSets.addAndGet(deltas.size());
+            log.debug("L4 rollups incremented: {}:{} ({} buckets)", metric, resolution, deltas.size());
+            return true;
+
+        } catch (Exception e) {
+            logFailure("Error incrementing L4 rollups: {}:{}", metric, resolution, e);
+            return false;
+        }
+    }
+
+    public void setRollups(String metric, String resolution, Map<Long, Double> values, Duration ttl) {
+        if (values.isEmpty()) {
+            return;
+        }
+
+        try {
+            template(CacheTier.ANALYTICS).executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<Long, Double> entry : values.entrySet()) {
+                    byte[] key = rollupKey(metric, resolution, entry.getKey()).getBytes(StandardCharsets.UTF_8);
+                    connection.stringCommands().set(key, serializeMember(entry.getValue()));
+                    connection.keyCommands().expire(key, ttl.getSeconds());
+                }
+                return null;
+            });
+            totalSets.addAndGet(values.size());
+            log.debug("L4 rollups set: {}:{} ({} buckets)", metric, resolution, values.size());
+
+        } catch (Exception e) {
+            logFailure("Error setting L4 rollups: {}:{}", metric, resolution, e);
+        }
+    }
+
+    // Returns one entry per requested bucket, null where the bucket has no data
+    public List<Double> getRollups(String metric, String resolution, List<Long> buckets) {
+        List<String> keys = new ArrayList<>(buckets.size());
+        for (Long bucket : buckets) {
+            keys.add(rollupKey(metric, resolution, bucket));
+        }
+
+        List<Double> result = new ArrayList<>(Collections.nCopies(buckets.size(), (Double) null));
+        if (keys.isEmpty()) {
+            return result;
+        }
+
+        try {
+            List<Object> cached = template(CacheTier.ANALYTICS).opsForValue().multiGet(keys);
+            if (cached == null) {
+                totalMisses.incrementAndGet();
+                return result;
+            }
+
+            for (int i = 0; i < cached.size(); i++) {
+                Object value = cached.get(i);
+                if (value instanceof Number number) {
+                    result.set(i, number.doubleValue());
+                } else if (value != null) {
+                    result.set(i, Double.parseDouble(value.toString()));
+                }
+            }
+            totalHits.incrementAndGet();
+            log.debug("L4 rollups read: {}:{} ({} buckets)", metric, resolution, keys.size());
+            return result;
+
+        } catch (Exception e) {
+            logFailure("Error reading L4 rollups: {}:{}", metric, resolution, e);
+            totalMisses.incrementAndGet();
+            return result;
+        }
+    }
+
+    private String rollupKey(String metric, String resolution, long bucket) {
+        return l4AnalyticsPrefix + "rollup:{" + metric + ":" + resolution + "}:" + bucket;
+    }
+
+    private String trendingKey(String event, long bucket) {
+        return l4AnalyticsPrefix + "trending:{" + event + "}:" + bucket;
+    }
+
+    // Same slot as the event's buckets; unique per read so concurrent reads never share it
+    private String trendingUnionKey(String event) {
+        return l4AnalyticsPrefix + "trending:{" + event + "}:union:" + UUID.randomUUID();
+    }
+
+    // Sorted-set members and INCRBYFLOAT counters must stay plain JSON even when the tier compresses
+    private byte[] serializeMember(Object member) {
+        return memberSerializer().serialize(member);
+    }
+
+    // Sorted-set members are never compressed
+    private RedisSerializer<Object> memberSerializer() {
+        RedisSerializer<Object> values = valueSerializer(CacheTier.ANALYTICS);
+        return values instanceof CompressingRedisSerializer compressing ? compressing.getDelegate() : values;
+    }
+
     // Cache Invalidation
 
     public void invalidateProduct(String productId) {
         String key = l1ProductPrefix + productId;
+        forget(key);
+        nearCache.invalidate(productId);
 
         try {
-            Boolean deleted = redisTemplate.delete(key);
-            if (Boolean.TRUE.equals(deleted)) {
+            Long deleted = template(CacheTier.PRODUCT, key).delete(List.of(key, productVersionKey(productId)));
+            if (deleted != null && deleted > 0) {
                 totalDeletes.incrementAndGet();
                 log.debug("L1 cache invalidated for product: {}", productId);
             }
         } catch (Exception e) {
-            log.error("Error invalidating product cache: {}", productId, e);
+            logFailure("Error invalidating product cache: {}", productId, e);
         }
     }
 
+    // Drops the session together with the cart it points to, and the legacy session key when
+    // read-legacy-fallback is on. Only in the colocated layout without that fallback do all keys
+    // share a slot, making this one atomic DEL on one node. Otherwise the cluster client sends a
+    // DEL per slot, and a failure part way can leave some of the keys behind.
     public void invalidateUserSession(String sessionId) {
-        String key = l2SessionPrefix + sessionId;
+        String key = keyLayout.sessionKey(sessionId);
+        forget(key);
 
         try {
-            Boolean deleted = redisTemplate.delete(key);
-            if (Boolean.TRUE.equals(deleted)) {
-                totalDeletes.incrementAndGet();
-                log.debug("L2 cache invalidated for session: {}", sessionId);
+            List<String> keys = new ArrayList<>();
+            keys.add(key);
+            Object cartId = template(CacheTier.SESSION).opsForHash().get(key, "cartId");
+            if (cartId != null) {
+                String cartKey = keyLayout.cartKey(sessionId, cartId.toString());
+                forget(cartKey);
+                keys.add(cartKey);
+            }
+            if (keyLayout.isReadLegacyFallback()) {
+                keys.add(keyLayout.legacySessionKey(sessionId));
+            }
+
+            Long deleted = template(CacheTier.SESSION).delete(keys);
+            if (deleted != null && deleted > 0) {
+                totalDeletes.addAndGet(deleted);
+                log.debug("L2 cache invalidated for session: {} ({} keys)", sessionId, deleted);
+            }
+        } catch (Exception e) {
+            logFailure("Error invalidating session cache: {}", sessionId, e);
+        }
+    }
+
+    // Bulk operations: ids are partitioned by the master owning their key's slot (or by shard
+    // when the tier is sharded) and streamed over the async connections, interleaving nodes so
+    // every node has work in flight at once. A semaphore caps outstanding commands; each id
+    // gets its own outcome. Every command takes its own limiter permit, so a bulk runs at the
+    // tier's adaptive limit and its latencies and failures reach the limiter and the circuit.
+
+    public BulkCacheResult setProducts(Map<String, ?> products) {
+        products.keySet().forEach(nearCache::invalidate);
+        BulkCacheResult result = runBulk("setProducts", CacheTier.PRODUCT, products.keySet(),
+                id -> l1ProductPrefix + id,
+                (async, id) -> RedisCacheService.<Long>evalScript(async,
+                                productLayout.isFields() ? PRODUCT_FIELDS_SCRIPT : PRODUCT_SET_SCRIPT,
+                                ScriptOutputType.INTEGER,
+                                new byte[][]{bytes(l1ProductPrefix + id), bytes(productVersionKey(id))},
+                                productLayout.isFields()
+                                        ? productFieldArgs(products.get(id)) : productSetArgs(products.get(id)))
+                        .thenApply(written -> true));
+        totalSets.addAndGet(result.getSucceeded());
+        return result;
+    }
+
+    public BulkCacheResult setInventories(Map<String, Integer> quantities) {
+        RedisSerializer<Object> values = valueSerializer(CacheTier.INVENTORY);
+        SetArgs expiry = SetArgs.Builder.ex(l3InventoryTtl);
+        BulkCacheResult result = runBulk("setInventories", CacheTier.INVENTORY, quantities.keySet(),
+                id -> l3InventoryPrefix + id,
+                (async, id) -> async.set(bytes(l3InventoryPrefix + id),
+                                values.serialize(String.valueOf(quantities.get(id))), expiry)
+                        .thenApply("OK"::equals));
+        totalSets.addAndGet(result.getSucceeded());
+        return result;
+    }
+
+    public BulkCacheResult invalidateProducts(Collection<String> productIds) {
+        productIds.forEach(nearCache::invalidate);
+        BulkCacheResult result = runBulk("invalidateProducts", CacheTier.PRODUCT, productIds,
+                id -> l1ProductPrefix + id,
+                (async, id) -> async.del(bytes(l1ProductPrefix + id), bytes(productVersionKey(id)))
+                        .thenApply(deleted -> deleted > 0));
+        totalDeletes.addAndGet(result.getSucceeded());
+        return result;
+    }
+
+    // Same semantics as invalidateUserSession: the linked cart goes with the session
+    public BulkCacheResult invalidateUserSessions(Collection<String> sessionIds) {
+        byte[] cartIdField = bytes("cartId");
+        BulkCacheResult result = runBulk("invalidateUserSessions", CacheTier.SESSION, sessionIds,
+                keyLayout::sessionKey, (async, id) -> {
+                    String sessionKey = keyLayout.sessionKey(id);
+                    return async.hget(bytes(sessionKey), cartIdField).thenCompose(cartId -> {
+                        List<byte[]> keys = new ArrayList<>();
+                        keys.add(bytes(sessionKey));
+                        if (cartId != null) {
+                            String cartKey = keyLayout.cartKey(id,
+                                    valueSerializer(CacheTier.SESSION).deserialize(cartId).toString());
+                            forget(cartKey);
+                            keys.add(bytes(cartKey));
+                        }
+                        if (keyLayout.isReadLegacyFallback()) {
+                            keys.add(bytes(keyLayout.legacySessionKey(id)));
+                        }
+                        return async.del(keys.toArray(new byte[0][]));
+                    }).thenApply(deleted -> deleted > 0);
+                });
+        totalDeletes.addAndGet(result.getSucceeded());
+        return result;
+    }
+
+    private BulkCacheResult runBulk(String operation, CacheTier tier, Collection<String> ids,
+                                    Function<String, String> keyOf,
+                                    BiFunction<RedisClusterAsyncCommands<byte[], byte[]>, String,
+                                            CompletionStage<Boolean>> command) {
+        long start = System.currentTimeMillis();
+        ids.forEach(id -> forget(keyOf.apply(id)));
+        boolean sharded = sharded(tier);
+        Map<String, List<String>> groups = sharded
+                ? clusterManager.groupByShard(ids, keyOf) : clusterManager.groupByNode(ids, keyOf);
+        Map<String, BulkCacheResult.Outcome> outcomes = new ConcurrentHashMap<>();
+        Map<String, String> errors = new ConcurrentHashMap<>();
+
+        try {
+            issueBulk(tier, groups, sharded, command, outcomes, errors);
+
+        } catch (Exception e) {
+            logFailure("Bulk {} aborted after {} of {} keys", operation, outcomes.size(), ids.size(), e);
+            for (String id : ids) {
+                if (outcomes.putIfAbsent(id, BulkCacheResult.Outcome.FAILED) == null) {
+                    errors.put(id, String.valueOf(e));
+                }
+            }
+        }
+
+        Map<String, BulkCacheResult.Outcome> ordered = new LinkedHashMap<>();
+        Map<String, String> orderedErrors = new LinkedHashMap<>();
+        int succeeded = 0, notFound = 0, failed = 0;
+        for (String id : ids) {
+            BulkCacheResult.Outcome outcome = outcomes.getOrDefault(id, BulkCacheResult.Outcome.FAILED);
+            ordered.put(id, outcome);
+            switch (outcome) {
+                case OK -> succeeded++;
+                case NOT_FOUND -> notFound++;
+                case FAILED -> {
+                    failed++;
+                    orderedErrors.put(id, errors.getOrDefault(id, "not executed"));
+                }
+            }
+        }
+
+        long durationMs = System.currentTimeMillis() - start;
+        log.debug("Bulk {}: {} ok, {} not found, {} failed across {} nodes in {}ms",
+                operation, succeeded, notFound, failed, groups.size(), durationMs);
+
+        return BulkCacheResult.builder()
+                .operation(operation)
+                .requested(ids.size())
+                .succeeded(succeeded)
+                .notFound(notFound)
+                .failed(failed)
+                .nodeGroups(groups.size())
+                .durationMs(durationMs)
+                .outcomes(ordered)
+                .errors(orderedErrors)
+                .build();
+    }
+
+    // Each shard's commands go out on that shard's connection, under its own circuit
+    private void issueBulk(CacheTier tier, Map<String, List<String>> groups, boolean sharded,
+                           BiFunction<RedisClusterAsyncCommands<byte[], byte[]>, String,
+                                   CompletionStage<Boolean>> command,
+                           Map<String, BulkCacheResult.Outcome> outcomes, Map<String, String> errors) {
+        Semaphore window = new Semaphore(bulkMaxInFlight);
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        AtomicInteger admitted = new AtomicInteger();
+        Semaphore answered = new Semaphore(0);
+
+        List<List<String>> queues = new ArrayList<>(groups.values());
+        List<RedisClusterAsyncCommands<byte[], byte[]>> connections = new ArrayList<>(queues.size());
+        List<CommandGuard> guards = new ArrayList<>(queues.size());
+        for (String group : groups.keySet()) {
+            connections.add(sharded ? tieredTemplates.asyncFor(tier, group) : tieredTemplates.asyncFor(tier));
+            guards.add(sharded ? tieredTemplates.guardFor(tier, group) : tieredTemplates.guardFor(tier));
+        }
+        int longest = queues.stream().mapToInt(List::size).max().orElse(0);
+        for (int i = 0; i < longest; i++) {
+            for (int q = 0; q < queues.size(); q++) {
+                List<String> queue = queues.get(q);
+                if (i >= queue.size()) {
+                    continue;
+                }
+                String id = queue.get(i);
+                RedisClusterAsyncCommands<byte[], byte[]> async = connections.get(q);
+                window.acquireUninterruptibly();
+                CompletableFuture<Boolean> issued = issueWithinLimit(
+                        guards.get(q), () -> command.apply(async, id), admitted, answered);
+                pending.add(issued
+                        .orTimeout(tieredTemplates.timeoutFor(tier).toMillis(), TimeUnit.MILLISECONDS)
+                        .handle((applied, error) -> {
+                            window.release();
+                            if (error != null) {
+                                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                                outcomes.put(id, BulkCacheResult.Outcome.FAILED);
+                                errors.put(id, String.valueOf(cause));
+                            } else {
+                                outcomes.put(id, Boolean.TRUE.equals(applied)
+                                        ? BulkCacheResult.Outcome.OK : BulkCacheResult.Outcome.NOT_FOUND);
+                            }
+                            return null;
+                        }));
+            }
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    // Over the tier's limit, a bulk command waits for one of the bulk's own commands to be
+    // answered and tries again, so the bulk slows to the limit instead of being shed. With
+    // none of its own in flight the limit is held by other callers, and the command is shed.
+    // Answers that came before an attempt are dropped first, so a retry only follows an answer
+    // the limiter has not yet seen.
+    private static CompletableFuture<Boolean> issueWithinLimit(CommandGuard guard,
+                                                               Supplier<CompletionStage<Boolean>> command,
+                                                               AtomicInteger admitted, Semaphore answered) {
+        while (true) {
+            answered.drainPermits();
+            admitted.incrementAndGet();
+            try {
+                return guard.callAsync(command).whenComplete((applied, error) -> {
+                    admitted.decrementAndGet();
+                    answered.release();
+                });
+            } catch (LoadShedException e) {
+                if (admitted.decrementAndGet() == 0) {
+                    return CompletableFuture.failedFuture(e);
+                }
+                answered.acquireUninterruptibly();
+            } catch (RuntimeException e) {
+                admitted.decrementAndGet();
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+
+    private RedisTemplate<String, Object> template(CacheTier tier) {
+        return tieredTemplates.forTier(tier);
+    }
+
+    // The template holding the key: the tier's own, or the owning shard's when the tier is sharded
+    private RedisTemplate<String, Object> template(CacheTier tier, String key) {
+        return sharded(tier) ? tieredTemplates.forShard(tier, clusterManager.shardFor(key)) : template(tier);
+    }
+
+    private boolean sharded(CacheTier tier) {
+        return tieredTemplates.isSharded(tier) && clusterManager.isSharded();
+    }
+
+    // Items grouped by the template holding their key: a single group unless the tier is sharded
+    private <T> Map<RedisTemplate<String, Object>, List<T>> byTemplate(CacheTier tier, Collection<T> items,
+                                                                       Function<T, String> keyOf) {
+        Map<RedisTemplate<String, Object>, List<T>> groups = new LinkedHashMap<>();
+        if (!sharded(tier)) {
+            groups.put(template(tier), new ArrayList<>(items));
+            return groups;
+        }
+        clusterManager.groupByShard(items, keyOf)
+                .forEach((shard, group) -> groups.put(tieredTemplates.forShard(tier, shard), group));
+        return groups;
+    }
+
+    // Raw values in key order, null where missing: one MGET, or one per shard holding any of the keys
+    private List<byte[]> mGet(CacheTier tier, List<String> keys) {
+        List<byte[]> values = new ArrayList<>(Collections.nCopies(keys.size(), null));
+        List<Integer> positions = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            positions.add(i);
+        }
+
+        byTemplate(tier, positions, keys::get).forEach((template, group) -> {
+            byte[][] groupKeys = new byte[group.size()][];
+            for (int i = 0; i < groupKeys.length; i++) {
+                groupKeys[i] = bytes(keys.get(group.get(i)));
+            }
+            List<byte[]> found = template.execute(
+                    (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(groupKeys));
+            for (int i = 0; found != null && i < found.size(); i++) {
+                values.set(group.get(i), found.get(i));
+            }
+        });
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer(CacheTier tier) {
+        return (RedisSerializer<Object>) template(tier).getValueSerializer();
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Key layout migration: moves one legacy key to its colocated name, keeping the TTL.
+    // Safe to repeat; an already-migrated colocated key wins over a stale legacy copy.
+
+    public boolean migrateSessionKey(String sessionId) {
+        return moveKey(CacheTier.SESSION,
+                keyLayout.legacySessionKey(sessionId), keyLayout.colocatedSessionKey(sessionId));
+    }
+
+    public boolean migrateCartKey(String cartId) {
+        String legacyKey = keyLayout.legacyCartKey(cartId);
+
+        try {
+            Object sessionId = template(CacheTier.CART).opsForHash().get(legacyKey, "sessionId");
+            if (sessionId == null) {
+                log.warn("Cannot migrate cart without owning session: {}", cartId);
+                return false;
             }
+            return moveKey(CacheTier.CART, legacyKey, keyLayout.colocatedCartKey(sessionId.toString(), cartId));
+
         } catch (Exception e) {
-            log.error("Error invalidating session cache: {}", sessionId, e);
+            logFailure("Error migrating cart key: {}", cartId, e);
+            return false;
         }
     }
 
+    // The two names hash to different slots, so the move cannot be one script. The legacy key
+    // is only deleted while it still holds the payload that was copied; if a writer still on the
+    // legacy layout changed it meanwhile, the copy is withdrawn and a later read moves it again.
+    private boolean moveKey(CacheTier tier, String from, String to) {
+        byte[] source = from.getBytes(StandardCharsets.UTF_8);
+        byte[] target = to.getBytes(StandardCharsets.UTF_8);
+
+        try {
+            Boolean moved = template(tier).execute((RedisCallback<Boolean>) connection -> {
+                byte[] payload = connection.keyCommands().dump(source);
+                if (payload == null) {
+                    return false;
+                }
+                Long pttl = connection.keyCommands().pTtl(source);
+                if (pttl == null || pttl == -2) {
+                    return false; // expired between DUMP and PTTL
+                }
+                boolean restored = false;
+                if (!Boolean.TRUE.equals(connection.keyCommands().exists(target))) {
+                    connection.keyCommands().restore(target, pttl > 0 ? pttl : 0, payload);
+                    restored = true;
+                }
+                if (deleteIfUnchanged(connection, source, payload)) {
+                    return true;
+                }
+                if (restored) {
+                    deleteIfUnchanged(connection, target, payload);
+                }
+                log.debug("Key {} changed while being moved; left in place", from);
+                return false;
+            });
+
+            if (Boolean.TRUE.equals(moved)) {
+                log.debug("Moved key {} -> {}", from, to);
+                return true;
+            }
+            return false;
+
+        } catch (Exception e) {
+            logFailure("Error moving key {} -> {}", from, to, e);
+            return false;
+        }
+    }
+
+    private static boolean deleteIfUnchanged(RedisConnection connection, byte[] key, byte[] payload) {
+        Long deleted = connection.scriptingCommands().eval(bytes(DELETE_IF_UNCHANGED_SCRIPT),
+                ReturnType.INTEGER, 1, key, payload);
+        return deleted != null && deleted > 0;
+    }
+
     // Statistics
     public CacheStats getStats() {
         long totalRequests = totalHits.get() + totalMisses.get();
@@ -287,6 +2062,8 @@ public class RedisCacheService {
                 .deletes(totalDeletes.get())
                 .totalRequests(totalRequests)
                 .hitRate(String.format("%.2f%%", hitRate))
+                .requestMemoHits(totalMemoHits.get())
+                .staleServed(staleFallback.getServed())
                 .build();
     }
 
@@ -295,6 +2072,7 @@ public class RedisCacheService {
         totalMisses.set(0);
         totalSets.set(0);
         totalDeletes.set(0);
+        totalMemoHits.set(0);
         log.info("Cache statistics reset");
     }
 }
\ No newline at end of file
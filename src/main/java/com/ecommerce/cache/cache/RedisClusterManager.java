@@ -1,4 +1,324 @@
 package com.ecommerce.cache.cache;
 
-public class RedisClusterManager {
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Key placement for the primary connection (Redis Cluster slots, or one standalone node) and,
+// when cache.sharding.nodes lists standalone instances, for the sharded product tier: keys map
+// to shards through a consistent-hash ring. Each shard is pinged on its own connection; one
+// failing failure-threshold checks in a row is ejected from the ring (its keys spread over the
+// others, which reload them from source) and readmitted after recovery-threshold good checks.
+// Health, and so the ring, is each instance's own view: pods are not coordinated, and for a
+// while after a flap they may route a key to different shards. A pod can then read a copy on
+// one shard that another pod has since replaced or invalidated on a different one, until the
+// TTL runs out; the shards hold only cache, so that is a staleness bound, not lost data.
+@Slf4j
+@Component
+public class RedisClusterManager implements DisposableBean {
+
+    static final String STANDALONE_NODE = "standalone";
+
+    private static final class Shard {
+        private final LettuceConnectionFactory healthFactory;
+        private int failures;
+        private int successes;
+        private boolean ejected;
+        private long ejections;
+
+        Shard(LettuceConnectionFactory healthFactory) {
+            this.healthFactory = healthFactory;
+        }
+    }
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final Map<String, Shard> shards = new LinkedHashMap<>();
+    private final int virtualNodes;
+    private final int failureThreshold;
+    private final int recoveryThreshold;
+    private final boolean flushOnRejoin;
+    // Healthy shards only; replaced, never modified, when a shard is ejected or readmitted
+    private volatile ConsistentHashRing ring;
+
+    public RedisClusterManager(LettuceConnectionFactory connectionFactory, RedisProperties properties,
+                               Environment environment) {
+        this.connectionFactory = connectionFactory;
+        this.virtualNodes = environment.getProperty("cache.sharding.virtual-nodes", Integer.class, 160);
+        this.failureThreshold = environment.getProperty("cache.sharding.failure-threshold", Integer.class, 3);
+        this.recoveryThreshold = environment.getProperty("cache.sharding.recovery-threshold", Integer.class, 2);
+        this.flushOnRejoin = environment.getProperty("cache.sharding.flush-on-rejoin", Boolean.class, true);
+        Duration healthTimeout = environment.getProperty(
+                "cache.sharding.health-timeout", Duration.class, Duration.ofMillis(500));
+
+        for (String node : shardNodes(environment)) {
+            // Own connection, so health pings never queue behind product traffic
+            LettuceConnectionFactory healthFactory = new LettuceConnectionFactory(
+                    shardConfiguration(node, properties),
+                    LettuceClientConfiguration.builder().commandTimeout(healthTimeout).build());
+            healthFactory.afterPropertiesSet();
+            healthFactory.start();
+            shards.put(node, new Shard(healthFactory));
+        }
+        this.ring = shards.isEmpty() ? null : new ConsistentHashRing(shards.keySet(), virtualNodes);
+        if (ring != null) {
+            log.info("Product tier sharded over {} standalone nodes ({} virtual nodes each)",
+                    shards.size(), virtualNodes);
+        }
+    }
+
+    // Configured shard addresses (host:port), which double as shard ids; empty when not sharding
+    public static List<String> shardNodes(Environment environment) {
+        return Binder.get(environment)
+                .bind("cache.sharding.nodes", Bindable.listOf(String.class))
+                .orElse(List.of())
+                .stream()
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    public static RedisStandaloneConfiguration shardConfiguration(String node, RedisProperties properties) {
+        int colon = node.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Shard address must be host:port: " + node);
+        }
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                node.substring(0, colon), Integer.parseInt(node.substring(colon + 1)));
+        configuration.setUsername(properties.getUsername());
+        configuration.setPassword(RedisPassword.of(properties.getPassword()));
+        return configuration;
+    }
+
+    public int slotOf(String key) {
+        return SlotHash.getSlot(key);
+    }
+
+    // Partitions items by the master currently serving their key's slot, using the
+    // client's cached topology (no round trip). Order within a group is preserved.
+    public <T> Map<String, List<T>> groupByNode(Collection<T> items, Function<T, String> keyOf) {
+        Map<String, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(nodeIdForKey(keyOf.apply(item)), n -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    public <T> Map<Integer, List<T>> groupBySlot(Collection<T> items, Function<T, String> keyOf) {
+        Map<Integer, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(slotOf(keyOf.apply(item)), s -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    public String nodeIdForKey(String key) {
+        RedisClusterClient clusterClient = clusterClient();
+        if (clusterClient == null) {
+            return STANDALONE_NODE;
+        }
+
+        RedisClusterNode master = clusterClient.getPartitions().getMasterBySlot(slotOf(key));
+        return master != null ? master.getNodeId() : STANDALONE_NODE;
+    }
+
+    // Incrementally SCANs every master (a cluster-wide SCAN is not a thing), handing
+    // each matching key to the consumer. Returns the number of keys visited.
+    public long scanKeys(String pattern, int count, Consumer<String> consumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(count).build();
+        long visited = 0;
+
+        if (!isCluster()) {
+            try (var connection = connectionFactory.getConnection();
+                 Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    consumer.accept(new String(cursor.next(), StandardCharsets.UTF_8));
+                    visited++;
+                }
+            }
+            return visited;
+        }
+
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            for (var master : connection.clusterGetMasterReplicaMap().keySet()) {
+                try (Cursor<byte[]> cursor = connection.scan(master, options)) {
+                    while (cursor.hasNext()) {
+                        consumer.accept(new String(cursor.next(), StandardCharsets.UTF_8));
+                        visited++;
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+
+    // Reloads slot ownership from the cluster into the client's cached topology. Returns the
+    // number of slots no master serves: zero on a healthy cluster, and always in standalone mode.
+    public int refreshTopology() {
+        RedisClusterClient clusterClient = clusterClient();
+        if (clusterClient == null) {
+            return 0;
+        }
+
+        clusterClient.refreshPartitions();
+        Partitions partitions = clusterClient.getPartitions();
+        int uncovered = 0;
+        for (int slot = 0; slot < SlotHash.SLOT_COUNT; slot++) {
+            if (partitions.getMasterBySlot(slot) == null) {
+                uncovered++;
+            }
+        }
+        return uncovered;
+    }
+
+    public boolean isCluster() {
+        return clusterClient() != null;
+    }
+
+    public boolean isSharded() {
+        return ring != null;
+    }
+
+    // The healthy shard owning the key; keys sharing a {hash tag} share a shard
+    public String shardFor(String key) {
+        return ring.nodeFor(key);
+    }
+
+    // Partitions items by the shard owning their key, so multi-key commands can be batched
+    // per shard. Order within a group is preserved.
+    public <T> Map<String, List<T>> groupByShard(Collection<T> items, Function<T, String> keyOf) {
+        ConsistentHashRing current = ring;
+        Map<String, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(current.nodeFor(keyOf.apply(item)), n -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    // Pings every shard, ejecting or readmitting those that crossed a threshold. The last
+    // healthy shard is never ejected: failing its calls beats having nowhere to send them.
+    @Scheduled(fixedDelayString = "${cache.sharding.health-interval-ms:2000}")
+    public synchronized void checkShards() {
+        if (!isSharded()) {
+            return;
+        }
+
+        boolean changed = false;
+        for (Map.Entry<String, Shard> entry : shards.entrySet()) {
+            String node = entry.getKey();
+            Shard shard = entry.getValue();
+            if (ping(shard)) {
+                shard.failures = 0;
+                shard.successes++;
+                if (shard.ejected && shard.successes >= recoveryThreshold && rejoin(node, shard)) {
+                    shard.ejected = false;
+                    changed = true;
+                    log.warn("Shard {} readmitted after {} good health checks", node, shard.successes);
+                }
+            } else {
+                shard.successes = 0;
+                shard.failures++;
+                if (!shard.ejected && shard.failures >= failureThreshold) {
+                    if (healthyShards() > 1) {
+                        shard.ejected = true;
+                        shard.ejections++;
+                        changed = true;
+                        log.warn("Shard {} ejected after {} failed health checks", node, shard.failures);
+                    } else {
+                        log.error("Shard {} is failing but is the last healthy shard; keeping it", node);
+                    }
+                }
+            }
+        }
+
+        if (changed) {
+            List<String> healthy = shards.entrySet().stream()
+                    .filter(entry -> !entry.getValue().ejected)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            ring = new ConsistentHashRing(healthy, virtualNodes);
+            log.warn("Shard ring rebalanced over {} of {} shards: {}", healthy.size(), shards.size(), healthy);
+        }
+    }
+
+    public synchronized Map<String, Map<String, Object>> getShardStatus() {
+        Map<String, Map<String, Object>> status = new LinkedHashMap<>();
+        shards.forEach((node, shard) -> {
+            Map<String, Object> shardStatus = new LinkedHashMap<>();
+            shardStatus.put("inRing", !shard.ejected);
+            shardStatus.put("consecutiveFailures", shard.failures);
+            shardStatus.put("ejections", shard.ejections);
+            status.put(node, shardStatus);
+        });
+        return status;
+    }
+
+    @Override
+    public void destroy() {
+        shards.values().forEach(shard -> shard.healthFactory.destroy());
+    }
+
+    private long healthyShards() {
+        return shards.values().stream().filter(shard -> !shard.ejected).count();
+    }
+
+    private static boolean ping(Shard shard) {
+        try (RedisConnection connection = shard.healthFactory.getConnection()) {
+            connection.ping();
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("Shard health check failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // While the shard was out its keys were written elsewhere, so what it still holds may be
+    // stale for up to a full TTL. With flush-on-rejoin (the default) it starts over empty, and
+    // is kept out of the ring while the flush fails. This instance decides alone, so a flap only
+    // it saw also empties a shard the other pods kept using: a burst of misses, not stale reads.
+    private boolean rejoin(String node, Shard shard) {
+        if (!flushOnRejoin) {
+            return true;
+        }
+        try (RedisConnection connection = shard.healthFactory.getConnection()) {
+            connection.serverCommands().flushDb();
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not flush shard {} before readmitting it: {}", node, e.getMessage());
+            return false;
+        }
+    }
+
+    private RedisClusterClient clusterClient() {
+        AbstractRedisClient client = connectionFactory.getNativeClient();
+        return client instanceof RedisClusterClient clusterClient ? clusterClient : null;
+    }
 }
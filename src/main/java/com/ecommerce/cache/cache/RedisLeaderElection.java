@@ -0,0 +1,163 @@
+package com.ecommerce.cache.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Lease-based leader election for cluster-wide scheduled jobs. The lease value is
+// "<fencing token>:<instance id>"; every new acquisition increments the token, so
+// writes guarded by it are rejected once a newer leader has taken over.
+@Slf4j
+@Component
+public class RedisLeaderElection {
+
+    // Acquire or renew. Returns the fencing token held, or -1 if another instance owns the lease.
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if current then
+                local sep = string.find(current, ':', 1, true)
+                if string.sub(current, sep + 1) == ARGV[1] then
+                    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+                    return tonumber(string.sub(current, 1, sep - 1))
+                end
+                return -1
+            end
+            local token = redis.call('INCR', KEYS[2])
+            redis.call('SET', KEYS[1], token .. ':' .. ARGV[1], 'PX', ARGV[2])
+            return token
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if current and string.sub(current, string.find(current, ':', 1, true) + 1) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String instanceId;
+    // Renewal has its own thread: queued behind a slow job on the shared @Scheduled pool it
+    // could run late enough for the lease to lapse while this instance still acts as leader
+    private final ThreadPoolTaskScheduler renewer = new ThreadPoolTaskScheduler();
+
+    private volatile long fencingToken = -1;
+    private volatile long leaseDeadlineNanos;
+
+    @Value("${cache.leader.key:{l4:analytics:leader}}")
+    private String leaseKey;
+
+    @Value("${cache.leader.lease-ms:15000}")
+    private long leaseMs;
+
+    @Value("${cache.leader.renew-interval-ms:5000}")
+    private long renewIntervalMs;
+
+    public RedisLeaderElection(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.instanceId = ManagementFactory.getRuntimeMXBean().getName() + "-"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @PostConstruct
+    public void start() {
+        renewer.setPoolSize(1);
+        renewer.setThreadNamePrefix("leader-renew-");
+        renewer.initialize();
+        renewer.scheduleAtFixedRate(this::campaign, Duration.ofMillis(renewIntervalMs));
+    }
+
+    public void campaign() {
+        // Measure the lease from before the round trip so local expiry is conservative
+        long started = System.nanoTime();
+
+        try {
+            Long token = redisTemplate.execute(ACQUIRE_SCRIPT, new StringRedisSerializer(),
+                    new GenericToStringSerializer<>(Long.class), leaseKeys(), instanceId, String.valueOf(leaseMs));
+
+            if (token != null && token > 0) {
+                if (token != fencingToken) {
+                    log.info("Acquired leadership for {} with fencing token {}", leaseKey, token);
+                }
+                fencingToken = token;
+                leaseDeadlineNanos = started + leaseMs * 1_000_000;
+            } else {
+                stepDown("lease held by another instance");
+            }
+
+        } catch (Exception e) {
+            log.warn("Leader election round failed for {}: {}", leaseKey, e.getMessage());
+            // Keep the current lease until it runs out locally; Redis may be unreachable
+            if (System.nanoTime() >= leaseDeadlineNanos) {
+                stepDown("lease expired without renewal");
+            }
+        }
+    }
+
+    public boolean isLeader() {
+        return fencingToken > 0 && System.nanoTime() < leaseDeadlineNanos;
+    }
+
+    // Token to attach to leader-only writes, or -1 when this instance is not the leader
+    public long getFencingToken() {
+        return isLeader() ? fencingToken : -1;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("instanceId", instanceId);
+        status.put("leaseKey", leaseKey);
+        status.put("leader", isLeader());
+        status.put("fencingToken", getFencingToken());
+        return status;
+    }
+
+    @PreDestroy
+    public void release() {
+        renewer.shutdown();
+        if (fencingToken <= 0) {
+            return;
+        }
+
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, new StringRedisSerializer(),
+                    new GenericToStringSerializer<>(Long.class), List.of(leaseKey), instanceId);
+            log.info("Released leadership for {}", leaseKey);
+        } catch (Exception e) {
+            log.warn("Could not release leadership for {}: {}", leaseKey, e.getMessage());
+        } finally {
+            fencingToken = -1;
+        }
+    }
+
+    private void stepDown(String reason) {
+        if (fencingToken > 0) {
+            log.info("Lost leadership for {}: {}", leaseKey, reason);
+        }
+        fencingToken = -1;
+    }
+
+    private List<String> leaseKeys() {
+        // The fence counter shares the lease key's hash tag so both live on one slot
+        return List.of(leaseKey, leaseKey + ":fence");
+    }
+}
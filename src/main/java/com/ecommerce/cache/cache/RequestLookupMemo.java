@@ -0,0 +1,64 @@
+package com.ecommerce.cache.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Per-HTTP-request memo of Redis lookups, keyed by Redis key and then by the type the
+// value was read as. Lives for one request only, so it never serves another request's
+// data; the request's own writes invalidate the affected keys. Repeat lookups return
+// the same instance, so callers must not modify what they get back.
+@Component
+@RequestScope
+public class RequestLookupMemo {
+
+    private static final Object NULL = new Object();
+
+    private final Map<String, Map<Class<?>, Object>> entries = new HashMap<>();
+    private final DistributionSummary savedPerRequest;
+    private int hits;
+
+    public RequestLookupMemo(MeterRegistry meterRegistry) {
+        this.savedPerRequest = DistributionSummary.builder("cache.request.memo.saved")
+                .description("Redis round trips avoided per HTTP request")
+                .register(meterRegistry);
+    }
+
+    public <T> T getOrLoad(String key, Supplier<T> loader) {
+        return getOrLoad(key, Object.class, loader);
+    }
+
+    // A loader that throws leaves nothing behind, so a failed read is retried, not replayed
+    @SuppressWarnings("unchecked")
+    public <T> T getOrLoad(String key, Class<?> type, Supplier<T> loader) {
+        Map<Class<?>, Object> byType = entries.get(key);
+        Object memoized = byType != null ? byType.get(type) : null;
+        if (memoized != null) {
+            hits++;
+            return memoized == NULL ? null : (T) memoized;
+        }
+
+        T loaded = loader.get();
+        entries.computeIfAbsent(key, k -> new HashMap<>(2)).put(type, loaded == null ? NULL : loaded);
+        return loaded;
+    }
+
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    @PreDestroy
+    public void recordRequest() {
+        savedPerRequest.record(hits);
+    }
+}
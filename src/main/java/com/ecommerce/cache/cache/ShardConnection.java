@@ -0,0 +1,34 @@
+package com.ecommerce.cache.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// One standalone shard of a sharded tier (cache.sharding.nodes): its own connection and circuit
+// breaker, sharing the tier's concurrency limit, serializers and command counters
+record ShardConnection(RedisTemplate<String, Object> template, LettuceConnectionFactory factory,
+                       CircuitBreaker circuitBreaker, CommandGuard guard) {
+
+    // Keyed by shard id, in configuration order
+    static Map<String, ShardConnection> openAll(CacheTier tier, List<String> nodes, Duration timeout, int queueSize,
+                                                AdaptiveConcurrencyLimiter limiter,
+                                                CompressingRedisSerializer compression,
+                                                TierConnectionFactory connections, Environment environment,
+                                                MeterRegistry meterRegistry) {
+        Map<String, ShardConnection> shards = new LinkedHashMap<>();
+        for (String node : nodes) {
+            LettuceConnectionFactory factory = connections.openShard(tier, node, timeout, queueSize);
+            CircuitBreaker circuitBreaker = CircuitBreakers.forShard(tier, node, timeout, environment, meterRegistry);
+            CommandGuard guard = new CommandGuard(tier, circuitBreaker, limiter);
+            shards.put(node, new ShardConnection(
+                    connections.template(factory, guard, compression), factory, circuitBreaker, guard));
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.cache.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded, in-process LRU of the last value read per Redis key. Only consulted when
+// Redis cannot answer (error or open circuit); entries older than maxAge are not served.
+@Component
+public class StaleFallbackCache {
+
+    private record Entry(Object value, long storedAt) {
+    }
+
+    private final Map<String, Entry> entries;
+    private final long maxAgeMillis;
+    private final Counter served;
+    private final Counter unavailable;
+
+    public StaleFallbackCache(@Value("${cache.resilience.stale.max-entries:10000}") int maxEntries,
+                              @Value("${cache.resilience.stale.max-age-ms:600000}") long maxAgeMillis,
+                              MeterRegistry meterRegistry) {
+        this.maxAgeMillis = maxAgeMillis;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.served = Counter.builder("cache.stale.served")
+                .description("Reads answered from the local stale cache while Redis was unavailable")
+                .register(meterRegistry);
+        this.unavailable = Counter.builder("cache.stale.unavailable")
+                .description("Reads that failed with no stale value to fall back on")
+                .register(meterRegistry);
+    }
+
+    public synchronized void put(String key, Object value) {
+        entries.put(key, new Entry(value, System.currentTimeMillis()));
+    }
+
+    public synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || System.currentTimeMillis() - entry.storedAt() > maxAgeMillis) {
+            unavailable.increment();
+            return null;
+        }
+        served.increment();
+        return (T) entry.value();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getServed() {
+        return (long) served.count();
+    }
+}
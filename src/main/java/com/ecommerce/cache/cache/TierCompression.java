@@ -0,0 +1,67 @@
+package com.ecommerce.cache.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+// Per-tier value compression: values at or over cache.tiers.<tier>.compression.threshold-bytes
+// are stored deflated, with the ratio and CPU spent published per tier
+@Slf4j
+final class TierCompression {
+
+    // Lua scripts edit these tiers' values in place (HINCRBY, cjson), so they stay plain JSON
+    private static final Set<CacheTier> SCRIPTED_TIERS = EnumSet.of(CacheTier.CART, CacheTier.INVENTORY);
+
+    private TierCompression() {
+    }
+
+    // Null when the tier has no threshold configured
+    static CompressingRedisSerializer forTier(CacheTier tier, RedisSerializer<Object> valueSerializer,
+                                              Environment environment, MeterRegistry meterRegistry) {
+        String prefix = "cache.tiers." + tier.getConfigName() + ".compression.";
+        int threshold = environment.getProperty(prefix + "threshold-bytes", Integer.class, 0);
+        if (threshold <= 0) {
+            return null;
+        }
+        if (SCRIPTED_TIERS.contains(tier)) {
+            log.warn("Ignoring compression for {}: its values are modified by Lua scripts", tier.getConfigName());
+            return null;
+        }
+
+        int maxInflated = environment.getProperty(prefix + "max-inflated-bytes", Integer.class, 67_108_864);
+        CompressingRedisSerializer compression = new CompressingRedisSerializer(valueSerializer, threshold, maxInflated);
+        Gauge.builder("cache.compression.ratio", compression, CompressingRedisSerializer::getRatio)
+                .description("Compressed over original size of values stored compressed")
+                .tag("tier", tier.getConfigName())
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.compression.cpu", compression, CompressingRedisSerializer::getCompressNanos)
+                .baseUnit("nanoseconds")
+                .tag("tier", tier.getConfigName())
+                .tag("operation", "compress")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.compression.cpu", compression, CompressingRedisSerializer::getDecompressNanos)
+                .baseUnit("nanoseconds")
+                .tag("tier", tier.getConfigName())
+                .tag("operation", "decompress")
+                .register(meterRegistry);
+        return compression;
+    }
+
+    static void describe(CompressingRedisSerializer compression, Map<String, Object> stats) {
+        stats.put("compressionThresholdBytes", compression.getThresholdBytes());
+        stats.put("compressedValues", compression.getCompressed());
+        stats.put("incompressibleValues", compression.getSkipped());
+        stats.put("decompressedValues", compression.getDecompressed());
+        stats.put("compressionRatio", Math.round(compression.getRatio() * 1000) / 1000.0);
+        stats.put("bytesSaved", compression.getBytesIn() - compression.getBytesOut());
+        stats.put("compressCpuMicros", compression.getCompressNanos() / 1_000);
+        stats.put("decompressCpuMicros", compression.getDecompressNanos() / 1_000);
+    }
+}
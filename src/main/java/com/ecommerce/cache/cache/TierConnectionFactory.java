@@ -0,0 +1,261 @@
+package com.ecommerce.cache.cache;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.api.async.AsyncExecutions;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.event.command.CommandFailedEvent;
+import io.lettuce.core.event.command.CommandListener;
+import io.lettuce.core.event.command.CommandStartedEvent;
+import io.lettuce.core.event.command.CommandSucceededEvent;
+import io.lettuce.core.models.role.RedisNodeDescription;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Opens the Lettuce clients behind the tier templates: same topology refresh and client
+// options as the primary factory, plus the tier's read routing, command timeout and request
+// queue bound. Every client of a tier (primary, hedge side, shards) reports to the tier's
+// command counters, and each template carries the tier's serializers behind a CommandGuard.
+class TierConnectionFactory {
+
+    static final String UPSTREAM = "upstream";
+    static final String REPLICA_NEAREST = "replica-nearest";
+
+    // Replicas ordered by measured latency, falling back to the master when none is up
+    static final ReadFrom REPLICA_NEAREST_READ_FROM = new ReadFrom() {
+        @Override
+        public List<RedisNodeDescription> select(Nodes nodes) {
+            List<RedisNodeDescription> selected = new ArrayList<>();
+            List<RedisNodeDescription> upstream = new ArrayList<>();
+            for (RedisNodeDescription node : nodes) {
+                (node.getRole().isReplica() ? selected : upstream).add(node);
+            }
+            selected.addAll(upstream);
+            return selected;
+        }
+
+        @Override
+        protected boolean isOrderSensitive() {
+            return true;
+        }
+    };
+
+    private final RedisTemplate<String, Object> shared;
+    private final RedisProperties properties;
+    private final ClientResources clientResources;
+    private final ObjectProvider<LettuceClientConfigurationBuilderCustomizer> customizers;
+    private final MeterRegistry meterRegistry;
+    private final boolean cluster;
+    private final Map<CacheTier, CommandCounters> counters = new EnumMap<>(CacheTier.class);
+
+    TierConnectionFactory(RedisTemplate<String, Object> shared, RedisProperties properties,
+                          ClientResources clientResources,
+                          ObjectProvider<LettuceClientConfigurationBuilderCustomizer> customizers,
+                          MeterRegistry meterRegistry) {
+        this.shared = shared;
+        this.properties = properties;
+        this.clientResources = clientResources;
+        this.customizers = customizers;
+        this.meterRegistry = meterRegistry;
+        this.cluster = properties.getCluster() != null
+                && properties.getCluster().getNodes() != null
+                && !properties.getCluster().getNodes().isEmpty();
+    }
+
+    boolean isCluster() {
+        return cluster;
+    }
+
+    // The tier's connection to the configured cluster or standalone server
+    LettuceConnectionFactory open(CacheTier tier, String readFrom, Duration timeout, int queueSize) {
+        return open(tier, cluster, readFrom, timeout, queueSize, serverConfiguration());
+    }
+
+    // The tier's connection to one standalone shard (cache.sharding.nodes)
+    LettuceConnectionFactory openShard(CacheTier tier, String node, Duration timeout, int queueSize) {
+        return open(tier, false, UPSTREAM, timeout, queueSize, RedisClusterManager.shardConfiguration(node, properties));
+    }
+
+    // Null compression stores values as the shared template's serializer writes them
+    RedisTemplate<String, Object> template(LettuceConnectionFactory factory, CommandGuard guard,
+                                           CompressingRedisSerializer compression) {
+        RedisTemplate<String, Object> template = new CircuitBreakingRedisTemplate(guard);
+        template.setConnectionFactory(factory);
+        template.setKeySerializer(shared.getKeySerializer());
+        template.setHashKeySerializer(shared.getHashKeySerializer());
+        template.setValueSerializer(compression != null ? compression : shared.getValueSerializer());
+        template.setHashValueSerializer(compression != null ? compression : shared.getHashValueSerializer());
+        template.setDefaultSerializer(shared.getValueSerializer());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    @SuppressWarnings("unchecked")
+    RedisSerializer<Object> sharedValueSerializer() {
+        return (RedisSerializer<Object>) shared.getValueSerializer();
+    }
+
+    int inFlight(CacheTier tier) {
+        return counters.get(tier).inFlight.get();
+    }
+
+    // Peak since the previous call
+    int takePeakInFlight(CacheTier tier) {
+        CommandCounters tierCounters = counters.get(tier);
+        return tierCounters.peakInFlight.getAndSet(tierCounters.inFlight.get());
+    }
+
+    // Opens the connection to every node, masters and replicas, and pings it through that
+    // connection; returns the nodes reached
+    static int warm(LettuceConnectionFactory factory) {
+        try (RedisConnection connection = factory.getConnection()) {
+            if (connection.getNativeConnection() instanceof RedisAdvancedClusterAsyncCommands<?, ?> cluster) {
+                // Selecting every node opens the shared connection's own connection to each of them
+                AsyncExecutions<String> pings = cluster.nodes(node -> true).commands().ping();
+                pings.toCompletableFuture().join();
+                return pings.nodes().size();
+            }
+            connection.ping();
+            return 1;
+        }
+    }
+
+    // Closing the wrapper leaves the shared native connection, and commands pending on it, alone
+    @SuppressWarnings("unchecked")
+    static RedisClusterAsyncCommands<byte[], byte[]> nativeAsync(LettuceConnectionFactory factory) {
+        try (RedisConnection connection = factory.getConnection()) {
+            return (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+        }
+    }
+
+    private LettuceConnectionFactory open(CacheTier tier, boolean cluster, String readFrom, Duration timeout,
+                                          int queueSize, RedisConfiguration serverConfiguration) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+                .clientResources(clientResources)
+                .commandTimeout(timeout);
+        // Same topology refresh and client options as the primary factory, plus this tier's
+        // queue bound and a connect timeout no longer than its command timeout
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        builder.clientOptions(tierOptions(
+                builder.build().getClientOptions().orElse(null), queueSize, timeout, cluster));
+        if (!UPSTREAM.equalsIgnoreCase(readFrom)) {
+            builder.readFrom(readFromOf(readFrom.toLowerCase()));
+        }
+
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(serverConfiguration, builder.build());
+        factory.afterPropertiesSet();
+        factory.start();
+        factory.getNativeClient().addListener(counters.computeIfAbsent(tier, this::instrument));
+        return factory;
+    }
+
+    private CommandCounters instrument(CacheTier tier) {
+        CommandCounters tierCounters = new CommandCounters(
+                Timer.builder("cache.redis.command.latency")
+                        .tag("tier", tier.getConfigName())
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry),
+                Counter.builder("cache.redis.command.failures")
+                        .tag("tier", tier.getConfigName())
+                        .register(meterRegistry));
+        Gauge.builder("cache.redis.commands.in-flight", tierCounters.inFlight, AtomicInteger::get)
+                .description("Commands written to the tier's connection and not yet answered")
+                .tag("tier", tier.getConfigName())
+                .register(meterRegistry);
+        return tierCounters;
+    }
+
+    // Runs on Lettuce I/O threads; keep it to counters
+    private static final class CommandCounters implements CommandListener {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+        private final Timer latency;
+        private final Counter failures;
+
+        private CommandCounters(Timer latency, Counter failures) {
+            this.latency = latency;
+            this.failures = failures;
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            inFlight.decrementAndGet();
+            latency.record(event.getDuration());
+        }
+
+        @Override
+        public void commandFailed(CommandFailedEvent event) {
+            inFlight.decrementAndGet();
+            failures.increment();
+        }
+    }
+
+    private static ClientOptions tierOptions(ClientOptions options, int queueSize, Duration timeout, boolean cluster) {
+        if (options == null) {
+            options = cluster ? ClusterClientOptions.create() : ClientOptions.create();
+        }
+        SocketOptions socketOptions = options.getSocketOptions().mutate()
+                .connectTimeout(timeout.compareTo(options.getSocketOptions().getConnectTimeout()) < 0
+                        ? timeout : options.getSocketOptions().getConnectTimeout())
+                .build();
+
+        if (options instanceof ClusterClientOptions clusterOptions) {
+            return clusterOptions.mutate().requestQueueSize(queueSize).socketOptions(socketOptions).build();
+        }
+        return options.mutate().requestQueueSize(queueSize).socketOptions(socketOptions).build();
+    }
+
+    private RedisConfiguration serverConfiguration() {
+        if (cluster) {
+            RedisClusterConfiguration configuration = new RedisClusterConfiguration(properties.getCluster().getNodes());
+            if (properties.getCluster().getMaxRedirects() != null) {
+                configuration.setMaxRedirects(properties.getCluster().getMaxRedirects());
+            }
+            configuration.setUsername(properties.getUsername());
+            configuration.setPassword(RedisPassword.of(properties.getPassword()));
+            return configuration;
+        }
+
+        RedisStandaloneConfiguration configuration =
+                new RedisStandaloneConfiguration(properties.getHost(), properties.getPort());
+        configuration.setDatabase(properties.getDatabase());
+        configuration.setUsername(properties.getUsername());
+        configuration.setPassword(RedisPassword.of(properties.getPassword()));
+        return configuration;
+    }
+
+    private static ReadFrom readFromOf(String setting) {
+        return REPLICA_NEAREST.equals(setting) ? REPLICA_NEAREST_READ_FROM : ReadFrom.valueOf(setting);
+    }
+}
@@ -0,0 +1,236 @@
+package com.ecommerce.cache.cache;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+// One Lettuce client, connection and command queue per cache tier, so a large
+// analytics payload or a bulk warm never queues in front of inventory commands.
+// Each tier has its own read routing, command timeout and request queue limit under
+// cache.tiers.<tier>. This class assembles a tier from its parts and is the one entry
+// point to them: TierConnectionFactory opens and instruments the connections,
+// CircuitBreakers and ConcurrencyLimiters guard them, TierCompression deflates large
+// values, HedgeConnection carries hedged reads and ShardConnection the product shards.
+@Slf4j
+@Component
+public class TieredRedisTemplates implements DisposableBean {
+
+    // The tier with by far the most keys; the others keep a single connection
+    private static final Set<CacheTier> SHARDED_TIERS = EnumSet.of(CacheTier.PRODUCT);
+
+    private record TierConnection(RedisTemplate<String, Object> template, LettuceConnectionFactory factory,
+                                  CircuitBreaker circuitBreaker, AdaptiveConcurrencyLimiter limiter,
+                                  CommandGuard guard, String readFrom, Duration timeout, int requestQueueSize,
+                                  CompressingRedisSerializer compression, HedgeConnection hedge,
+                                  Map<String, ShardConnection> shards) {
+    }
+
+    private final TierConnectionFactory connectionFactory;
+    private final Map<CacheTier, TierConnection> connections = new EnumMap<>(CacheTier.class);
+
+    public TieredRedisTemplates(RedisTemplate<String, Object> redisTemplate, RedisProperties properties,
+                                ClientResources clientResources,
+                                ObjectProvider<LettuceClientConfigurationBuilderCustomizer> customizers,
+                                Environment environment, MeterRegistry meterRegistry) {
+        connectionFactory = new TierConnectionFactory(
+                redisTemplate, properties, clientResources, customizers, meterRegistry);
+        Duration defaultTimeout = properties.getTimeout() != null ? properties.getTimeout() : Duration.ofSeconds(2);
+        List<String> shardNodes = RedisClusterManager.shardNodes(environment);
+
+        for (CacheTier tier : CacheTier.values()) {
+            String prefix = "cache.tiers." + tier.getConfigName();
+            String readFrom = connectionFactory.isCluster()
+                    ? environment.getProperty(prefix + ".read-from", TierConnectionFactory.UPSTREAM)
+                    : TierConnectionFactory.UPSTREAM;
+            Duration timeout = environment.getProperty(prefix + ".connection.timeout", Duration.class, defaultTimeout);
+            int queueSize = environment.getProperty(
+                    prefix + ".connection.request-queue-size", Integer.class, Integer.MAX_VALUE);
+
+            LettuceConnectionFactory factory = connectionFactory.open(tier, readFrom, timeout, queueSize);
+            CircuitBreaker circuitBreaker = CircuitBreakers.forTier(tier, timeout, environment, meterRegistry);
+            AdaptiveConcurrencyLimiter limiter = ConcurrencyLimiters.create(
+                    "redis-" + tier.getConfigName(), environment, meterRegistry);
+            CommandGuard guard = new CommandGuard(tier, circuitBreaker, limiter);
+            CompressingRedisSerializer compression = TierCompression.forTier(
+                    tier, connectionFactory.sharedValueSerializer(), environment, meterRegistry);
+
+            Map<String, ShardConnection> shards = SHARDED_TIERS.contains(tier)
+                    ? ShardConnection.openAll(tier, shardNodes, timeout, queueSize, limiter, compression,
+                            connectionFactory, environment, meterRegistry)
+                    : Map.of();
+            HedgeConnection hedge = shards.isEmpty()
+                    ? HedgeConnection.open(tier, readFrom, timeout, queueSize, connectionFactory, environment)
+                    : null;
+
+            connections.put(tier, new TierConnection(
+                    connectionFactory.template(factory, guard, compression), factory, circuitBreaker, limiter,
+                    guard, readFrom, timeout, queueSize, compression, hedge, shards));
+        }
+
+        log.info("Redis tier connections: {}", getConnectionStats());
+    }
+
+    public RedisTemplate<String, Object> forTier(CacheTier tier) {
+        return connections.get(tier).template();
+    }
+
+    public boolean isSharded(CacheTier tier) {
+        return !connections.get(tier).shards().isEmpty();
+    }
+
+    // The template for one shard of a sharded tier; shard ids come from RedisClusterManager
+    public RedisTemplate<String, Object> forShard(CacheTier tier, String shard) {
+        return connections.get(tier).shards().get(shard).template();
+    }
+
+    public Set<String> shardsOf(CacheTier tier) {
+        return connections.get(tier).shards().keySet();
+    }
+
+    public CircuitBreaker circuitBreakerFor(CacheTier tier) {
+        return connections.get(tier).circuitBreaker();
+    }
+
+    public AdaptiveConcurrencyLimiter limiterFor(CacheTier tier) {
+        return connections.get(tier).limiter();
+    }
+
+    // Admission for calls made outside the tier's template, e.g. each command of an async fan-out
+    CommandGuard guardFor(CacheTier tier) {
+        return connections.get(tier).guard();
+    }
+
+    // The tier's limit with the shard's own circuit
+    CommandGuard guardFor(CacheTier tier, String shard) {
+        return connections.get(tier).shards().get(shard).guard();
+    }
+
+    // Null when hedged reads are off for the tier
+    public HedgePolicy hedgePolicyFor(CacheTier tier) {
+        HedgeConnection hedge = connections.get(tier).hedge();
+        return hedge != null ? hedge.policy() : null;
+    }
+
+    // Sends one command on the tier's shared native connection without blocking
+    public <T> CompletableFuture<T> sendAsync(CacheTier tier, AsyncCommand<T> command) {
+        return send(connections.get(tier).factory(), command);
+    }
+
+    public <T> CompletableFuture<T> sendAsync(CacheTier tier, String shard, AsyncCommand<T> command) {
+        return send(connections.get(tier).shards().get(shard).factory(), command);
+    }
+
+    // The tier's shared native connection, for callers issuing many commands without blocking;
+    // unlike the template it admits nothing, so each command goes through guardFor(tier)
+    public RedisClusterAsyncCommands<byte[], byte[]> asyncFor(CacheTier tier) {
+        return TierConnectionFactory.nativeAsync(connections.get(tier).factory());
+    }
+
+    // As above for one shard, guarded by guardFor(tier, shard)
+    public RedisClusterAsyncCommands<byte[], byte[]> asyncFor(CacheTier tier, String shard) {
+        return TierConnectionFactory.nativeAsync(connections.get(tier).shards().get(shard).factory());
+    }
+
+    public <T> CompletableFuture<T> sendHedge(CacheTier tier, AsyncCommand<T> command) {
+        return send(connections.get(tier).hedge().factory(), command);
+    }
+
+    public interface AsyncCommand<T> {
+        RedisFuture<T> send(RedisClusterAsyncCommands<byte[], byte[]> commands);
+    }
+
+    // Opens every tier connection to every node, masters and replicas, and pings it through
+    // that connection, so the first commands after boot skip topology discovery and the
+    // handshakes. Returns the node connections checked per tier.
+    public Map<String, Integer> warmConnections() {
+        Map<String, Integer> reached = new LinkedHashMap<>();
+        connections.forEach((tier, connection) -> {
+            int nodes = TierConnectionFactory.warm(connection.factory());
+            if (connection.hedge() != null) {
+                nodes += TierConnectionFactory.warm(connection.hedge().factory());
+            }
+            for (ShardConnection shard : connection.shards().values()) {
+                nodes += TierConnectionFactory.warm(shard.factory());
+            }
+            reached.put(tier.getConfigName(), nodes);
+        });
+        return reached;
+    }
+
+    public Duration timeoutFor(CacheTier tier) {
+        return connections.get(tier).timeout();
+    }
+
+    public Map<CacheTier, String> getReadRouting() {
+        Map<CacheTier, String> routing = new EnumMap<>(CacheTier.class);
+        connections.forEach((tier, connection) -> routing.put(tier, connection.readFrom()));
+        return routing;
+    }
+
+    // Current and peak in-flight commands per tier; peak resets on each read
+    public Map<String, Map<String, Object>> getConnectionStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        connections.forEach((tier, connection) -> {
+            Map<String, Object> tierStats = new LinkedHashMap<>();
+            tierStats.put("readFrom", connection.readFrom());
+            tierStats.put("timeoutMs", connection.timeout().toMillis());
+            tierStats.put("requestQueueSize", connection.requestQueueSize());
+            tierStats.put("inFlight", connectionFactory.inFlight(tier));
+            tierStats.put("peakInFlight", connectionFactory.takePeakInFlight(tier));
+            tierStats.put("circuit", connection.circuitBreaker().getState());
+            tierStats.put("circuitOpenedCount", connection.circuitBreaker().getTimesOpened());
+            tierStats.put("circuitRejected", connection.circuitBreaker().getRejected());
+            tierStats.put("concurrencyLimit", connection.limiter().getLimit());
+            tierStats.put("limiterInFlight", connection.limiter().getInFlight());
+            tierStats.put("shed", connection.limiter().getRejected());
+            if (!connection.shards().isEmpty()) {
+                Map<String, Object> shardCircuits = new LinkedHashMap<>();
+                connection.shards().forEach(
+                        (node, shard) -> shardCircuits.put(node, shard.circuitBreaker().getState()));
+                tierStats.put("shardCircuits", shardCircuits);
+            }
+            if (connection.hedge() != null) {
+                connection.hedge().describe(tierStats);
+            }
+            if (connection.compression() != null) {
+                TierCompression.describe(connection.compression(), tierStats);
+            }
+            stats.put(tier.getConfigName(), tierStats);
+        });
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        connections.values().forEach(connection -> {
+            connection.factory().destroy();
+            if (connection.hedge() != null) {
+                connection.hedge().factory().destroy();
+            }
+            connection.shards().values().forEach(shard -> shard.factory().destroy());
+        });
+    }
+
+    private static <T> CompletableFuture<T> send(LettuceConnectionFactory factory, AsyncCommand<T> command) {
+        return command.send(TierConnectionFactory.nativeAsync(factory)).toCompletableFuture();
+    }
+}
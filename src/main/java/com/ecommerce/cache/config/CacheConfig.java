@@ -1,4 +1,56 @@
 package com.ecommerce.cache.config;
 
+import com.ecommerce.cache.cache.AdaptiveConcurrencyLimiter;
+import com.ecommerce.cache.cache.ConcurrencyLimiters;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
 public class CacheConfig {
+
+    // Shared pool for fan-out work in front of Redis (dashboard sections, bulk operations).
+    // Tasks keep the limiter priority of the thread that submitted them.
+    @Bean
+    public ThreadPoolTaskExecutor cacheTaskExecutor(
+            @Value("${cache.executor.core-size:8}") int coreSize,
+            @Value("${cache.executor.max-size:32}") int maxSize,
+            @Value("${cache.executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cache-exec-");
+        executor.setTaskDecorator(AdaptiveConcurrencyLimiter.Priority::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+
+    // Catalog loads run apart from the shared pool: one thread reads the file and the others
+    // write the batches it lets through (at most max-batches-in-flight), so the queue never
+    // holds more than that. Batches keep the priority of the request that started the load.
+    @Bean
+    public ThreadPoolTaskExecutor catalogLoaderExecutor(
+            @Value("${products.catalog-loader.max-batches-in-flight:4}") int maxBatchesInFlight) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxBatchesInFlight + 1);
+        executor.setMaxPoolSize(maxBatchesInFlight + 1);
+        executor.setThreadNamePrefix("catalog-load-");
+        executor.setTaskDecorator(AdaptiveConcurrencyLimiter.Priority::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+
+    // Concurrency limit on backing-store loads after cache misses; the Redis tiers have their own
+    @Bean
+    public AdaptiveConcurrencyLimiter sourceLoadLimiter(Environment environment, MeterRegistry meterRegistry) {
+        return ConcurrencyLimiters.create("backing-store", environment, meterRegistry);
+    }
 }
@@ -0,0 +1,51 @@
+package com.ecommerce.cache.config;
+
+import com.ecommerce.cache.cache.AdaptiveConcurrencyLimiter.Priority;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import static com.ecommerce.cache.cache.AdaptiveConcurrencyLimiter.PRIORITY_ATTRIBUTE;
+
+// Tags each request with the priority the concurrency limiters admit it at, from its path:
+// checkout (inventory reservations) outranks everything, category browsing and search yield
+// first, and anything else is normal.
+@Component
+public class RequestPriorityInterceptor implements HandlerInterceptor {
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    @Value("${cache.resilience.concurrency-limit.priorities.critical:/api/cache/inventory/reservations/**}")
+    private String[] criticalPaths;
+
+    @Value("${cache.resilience.concurrency-limit.priorities.low:/api/products/category/**,/api/products/search}")
+    private String[] lowPaths;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(PRIORITY_ATTRIBUTE, priorityOf(request.getRequestURI()));
+        return true;
+    }
+
+    Priority priorityOf(String path) {
+        if (matchesAny(criticalPaths, path)) {
+            return Priority.CRITICAL;
+        }
+        if (matchesAny(lowPaths, path)) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+
+    private boolean matchesAny(String[] patterns, String path) {
+        for (String pattern : patterns) {
+            if (matcher.match(pattern.trim(), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.cache.config;
+
+import com.ecommerce.cache.service.StartupWarmupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// "warmup" health component; part of the readiness group so a new instance only takes
+// traffic once its connections, scripts and codecs are warm
+@Component
+@RequiredArgsConstructor
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final StartupWarmupService startupWarmupService;
+
+    @Override
+    public Health health() {
+        return (startupWarmupService.isReady() ? Health.up() : Health.outOfService())
+                .withDetails(startupWarmupService.getStatus())
+                .build();
+    }
+}
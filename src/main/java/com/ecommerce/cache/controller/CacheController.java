@@ -1,17 +1,27 @@
 package com.ecommerce.cache.controller;
 
+import com.ecommerce.cache.cache.KeyLayoutMigrator;
 import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.model.BulkCacheResult;
 import com.ecommerce.cache.model.CacheStats;
+import com.ecommerce.cache.model.InventoryReservation;
+import com.ecommerce.cache.model.Product;
+import com.ecommerce.cache.service.CatalogLoader;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/cache")
 @RequiredArgsConstructor
 public class CacheController {
 
     private final RedisCacheService redisCacheService;
+    private final KeyLayoutMigrator keyLayoutMigrator;
+    private final CatalogLoader catalogLoader;
 
     @GetMapping("/stats")
     public ResponseEntity<CacheStats> getCacheStats() {
@@ -30,9 +40,71 @@ public class CacheController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/products")
+    public ResponseEntity<BulkCacheResult> setProducts(@RequestBody Map<String, Product> products) {
+        return ResponseEntity.ok(redisCacheService.setProducts(products));
+    }
+
+    @DeleteMapping("/products")
+    public ResponseEntity<BulkCacheResult> invalidateProducts(@RequestBody List<String> productIds) {
+        return ResponseEntity.ok(redisCacheService.invalidateProducts(productIds));
+    }
+
+    @DeleteMapping("/sessions")
+    public ResponseEntity<BulkCacheResult> invalidateSessions(@RequestBody List<String> sessionIds) {
+        return ResponseEntity.ok(redisCacheService.invalidateUserSessions(sessionIds));
+    }
+
+    @PutMapping("/inventory")
+    public ResponseEntity<BulkCacheResult> setInventories(@RequestBody Map<String, Integer> quantities) {
+        return ResponseEntity.ok(redisCacheService.setInventories(quantities));
+    }
+
     @DeleteMapping("/sessions/{sessionId}")
     public ResponseEntity<Void> invalidateSession(@PathVariable String sessionId) {
         redisCacheService.invalidateUserSession(sessionId);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    @PostMapping("/inventory/reservations")
+    public ResponseEntity<InventoryReservation> reserveInventory(@RequestBody Map<String, Integer> quantities) {
+        InventoryReservation reservation = redisCacheService.reserveInventory(quantities);
+        if (reservation.isUnavailable()) {
+            return ResponseEntity.status(503).body(reservation);
+        }
+        if (!reservation.isSuccess()) {
+            return ResponseEntity.status(409).body(reservation);
+        }
+        return ResponseEntity.ok(reservation);
+    }
+
+    @DeleteMapping("/inventory/reservations")
+    public ResponseEntity<Void> releaseInventory(@RequestBody Map<String, Integer> quantities) {
+        redisCacheService.releaseInventory(quantities);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/migrations/key-layout")
+    public ResponseEntity<Map<String, Object>> migrateKeyLayout(@RequestParam(defaultValue = "500") int batchSize) {
+        return ResponseEntity.ok(keyLayoutMigrator.migrate(batchSize));
+    }
+
+    // Starts streaming an NDJSON catalog file (under products.catalog-loader.directory) into
+    // the product tier; poll GET for progress and throughput
+    @PostMapping("/catalog/load")
+    public ResponseEntity<Map<String, Object>> loadCatalog(@RequestParam String file) {
+        try {
+            if (!catalogLoader.start(file)) {
+                return ResponseEntity.status(409).body(catalogLoader.getStatus());
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.accepted().body(catalogLoader.getStatus());
+    }
+
+    @GetMapping("/catalog/load")
+    public ResponseEntity<Map<String, Object>> getCatalogLoadStatus() {
+        return ResponseEntity.ok(catalogLoader.getStatus());
+    }
+}
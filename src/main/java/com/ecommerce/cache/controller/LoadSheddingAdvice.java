@@ -0,0 +1,23 @@
+package com.ecommerce.cache.controller;
+
+import com.ecommerce.cache.cache.LoadShedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+// A request shed by a concurrency limiter is answered at once with 503 and a short
+// Retry-After, so clients back off instead of holding a connection open
+@RestControllerAdvice
+public class LoadSheddingAdvice {
+
+    @ExceptionHandler(LoadShedException.class)
+    public ResponseEntity<Map<String, Object>> handleLoadShed(LoadShedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "overloaded", "limiter", e.getLimiter()));
+    }
+}
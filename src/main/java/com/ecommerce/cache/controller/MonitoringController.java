@@ -1,16 +1,26 @@
 package com.ecommerce.cache.controller;
 
 
-import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.cache.ProductNearCache;
+import com.ecommerce.cache.cache.RedisClusterManager;
+import com.ecommerce.cache.cache.RedisLeaderElection;
+import com.ecommerce.cache.cache.TieredRedisTemplates;
+import com.ecommerce.cache.model.TrendingProduct;
+import com.ecommerce.cache.service.AnalyticsRollupService;
 import com.ecommerce.cache.service.AnalyticsService;
+import com.ecommerce.cache.service.DashboardService;
+import com.ecommerce.cache.service.ProductRefreshService;
+import com.ecommerce.cache.service.TrendingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,27 +28,20 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class MonitoringController {
 
-    private final RedisCacheService redisCacheService;
     private final AnalyticsService analyticsService;
+    private final TrendingService trendingService;
+    private final AnalyticsRollupService analyticsRollupService;
+    private final RedisLeaderElection leaderElection;
+    private final DashboardService dashboardService;
+    private final ProductRefreshService productRefreshService;
+    private final TieredRedisTemplates tieredRedisTemplates;
+    private final ProductNearCache productNearCache;
+    private final RedisClusterManager redisClusterManager;
     private final RedisTemplate<String, Object> redisTemplate;
 
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getDashboard() {
-        Map<String, Object> dashboard = new HashMap<>();
-
-        // Cache statistics
-        dashboard.put("cacheStats", redisCacheService.getStats());
-
-        // Redis cluster info
-        dashboard.put("redisClusterInfo", getRedisClusterInfo());
-
-        // Today's analytics
-        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        dashboard.put("dailySales", analyticsService.getDailyAnalytics(today, "daily_sales"));
-        dashboard.put("userActivity", analyticsService.getDailyAnalytics(today, "user_activity"));
-        dashboard.put("productViews", analyticsService.getDailyAnalytics(today, "product_views"));
-
-        return ResponseEntity.ok(dashboard);
+        return ResponseEntity.ok(dashboardService.getDashboard());
     }
 
     @GetMapping("/health")
@@ -65,6 +68,31 @@ public class MonitoringController {
         return ResponseEntity.ok(health);
     }
 
+    @GetMapping("/leader")
+    public ResponseEntity<Map<String, Object>> getLeaderStatus() {
+        return ResponseEntity.ok(leaderElection.getStatus());
+    }
+
+    @GetMapping("/refresh-ahead")
+    public ResponseEntity<Map<String, Object>> getRefreshAheadStatus() {
+        return ResponseEntity.ok(productRefreshService.getStatus());
+    }
+
+    @GetMapping("/near-cache")
+    public ResponseEntity<Map<String, Object>> getNearCacheStats() {
+        return ResponseEntity.ok(productNearCache.getStats());
+    }
+
+    @GetMapping("/shards")
+    public ResponseEntity<Map<String, Map<String, Object>>> getShardStatus() {
+        return ResponseEntity.ok(redisClusterManager.getShardStatus());
+    }
+
+    @GetMapping("/connections")
+    public ResponseEntity<Map<String, Map<String, Object>>> getConnectionStats() {
+        return ResponseEntity.ok(tieredRedisTemplates.getConnectionStats());
+    }
+
     @GetMapping("/analytics/{date}/{metric}")
     public ResponseEntity<Map<String, Object>> getAnalytics(
             @PathVariable String date,
@@ -73,6 +101,29 @@ public class MonitoringController {
         return ResponseEntity.ok(analytics);
     }
 
+    @GetMapping("/analytics/{metric}/range")
+    public ResponseEntity<?> getAnalyticsRange(
+            @PathVariable String metric,
+            @RequestParam(defaultValue = "day") String resolution,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        AnalyticsRollupService.Resolution res = AnalyticsRollupService.Resolution.fromName(resolution);
+        if (res == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown resolution: " + resolution));
+        }
+        return ResponseEntity.ok(analyticsRollupService.getRange(metric, res, start, end));
+    }
+
+    @GetMapping("/trending/{event}")
+    public ResponseEntity<List<TrendingProduct>> getTrending(
+            @PathVariable String event,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "60") long windowMinutes) {
+        return ResponseEntity.ok(trendingService.getTrending(event, limit, windowMinutes));
+    }
+
     @PostMapping("/cache/warm")
     public ResponseEntity<Map<String, Object>> warmCache(
             @RequestParam(defaultValue = "100") int productCount) {
@@ -93,23 +144,4 @@ public class MonitoringController {
 
         return ResponseEntity.ok(result);
     }
-
-    private Map<String, Object> getRedisClusterInfo() {
-        Map<String, Object> info = new HashMap<>();
-
-        try {
-            // Get cluster nodes info
-            info.put("clusterEnabled", true);
-            info.put("nodeCount", 6);
-            info.put("masterCount", 3);
-            info.put("replicaCount", 3);
-            info.put("status", "connected");
-
-            return info;
-        } catch (Exception e) {
-            info.put("status", "error");
-            info.put("error", e.getMessage());
-            return info;
-        }
-    }
 }
\ No newline at end of file
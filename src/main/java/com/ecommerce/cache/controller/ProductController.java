@@ -1,10 +1,14 @@
 package com.ecommerce.cache.controller;
 
 import com.ecommerce.cache.model.Product;
+import com.ecommerce.cache.model.Versioned;
 import com.ecommerce.cache.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -16,20 +20,45 @@ public class ProductController {
 
     private final ProductService productService;
 
+    // Strong ETag from the cached version. A request carrying If-None-Match first reads only the
+    // version and is answered with 304 when it matches, without loading the product; requests
+    // without one skip that read and go straight to the product. The ETag sent with a body
+    // is the version read together with that body (or of the product just loaded on a miss);
+    // a body from the near-cache or a stale copy goes out without one. In passthrough mode
+    // the cached JSON bytes are written to the response as they are.
     @GetMapping("/{productId}")
-    public ResponseEntity<Product> getProduct(@PathVariable String productId) {
-        Product product = productService.getProduct(productId);
-        if (product == null) {
+    public ResponseEntity<?> getProduct(@PathVariable String productId, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String version = productService.getProductVersion(productId);
+            if (version != null && request.checkNotModified(version)) {
+                return null;
+            }
+        }
+
+        Versioned<?> product = productService.isPassthrough()
+                ? productService.getVersionedProductJson(productId)
+                : productService.getVersionedProduct(productId);
+        if (product.value() == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(product);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (product.version() != null) {
+            response.eTag(product.version());
+        }
+        return response.body(product.value());
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Product>> getProductsByCategory(
+    public ResponseEntity<?> getProductsByCategory(
             @PathVariable String category,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
+        if (productService.isPassthrough()) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(productService.getProductsByCategoryJson(category, page, size));
+        }
         List<Product> products = productService.getProductsByCategory(category, page, size);
         return ResponseEntity.ok(products);
     }
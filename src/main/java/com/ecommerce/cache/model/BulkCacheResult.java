@@ -0,0 +1,31 @@
+package com.ecommerce.cache.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCacheResult {
+
+    public enum Outcome {
+        OK,
+        NOT_FOUND,   // delete of a key that was not cached
+        FAILED
+    }
+
+    private String operation;
+    private int requested;
+    private int succeeded;
+    private int notFound;
+    private int failed;
+    private int nodeGroups;
+    private long durationMs;
+    private Map<String, Outcome> outcomes;   // id -> outcome, in request order
+    private Map<String, String> errors;      // id -> error message, failed ids only
+}
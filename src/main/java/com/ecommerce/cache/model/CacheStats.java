@@ -16,6 +16,8 @@ public class CacheStats {
     private long deletes;
     private long totalRequests;
     private String hitRate;
+    private long requestMemoHits; // Redis round trips avoided by per-request memoization
+    private long staleServed;     // reads answered locally while Redis was unavailable
 
     // Tier-specific stats
     private TierStats l1ProductStats;
@@ -0,0 +1,17 @@
+package com.ecommerce.cache.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Pricing rules applied by the cart scripts, all amounts in integer cents
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartPricing {
+    private long taxBasisPoints;          // 800 = 8%
+    private long freeShippingThresholdCents;
+    private long shippingFeeCents;
+}
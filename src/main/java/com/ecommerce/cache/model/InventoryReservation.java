@@ -0,0 +1,23 @@
+package com.ecommerce.cache.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryReservation {
+    private boolean success;
+    private Map<String, Long> remaining;     // product id -> stock left after reservation
+    private String failedProductId;
+    private Long availableQuantity;          // stock seen for the failed product, null if not cached
+    private String failureReason;
+    private boolean unavailable;             // Redis failed or timed out: not a stock decision
+    private int nodeGroups;                  // script calls made: one per slot, or one in standalone mode
+    private int compensatedGroups;
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.cache.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingProduct {
+    private int rank;
+    private String productId;
+    private long score; // estimated event count across the window, never undercounted
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.cache.model;
+
+// A product (or its JSON) with the version that describes exactly that value, for use as
+// its ETag. The version is null when none is known for the value served, e.g. a near-cache
+// hit or a stale copy; the value is null on a miss.
+public record Versioned<T>(T value, String version) {
+
+    public static <T> Versioned<T> unversioned(T value) {
+        return new Versioned<>(value, null);
+    }
+}
@@ -0,0 +1,219 @@
+package com.ecommerce.cache.service;
+
+import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.cache.RedisLeaderElection;
+import com.ecommerce.cache.model.AnalyticsRange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+public class AnalyticsRollupService {
+
+    public static final String PRODUCT_VIEWS = "product_views";
+    public static final String ADD_TO_CART = "add_to_cart";
+    public static final String CART_VALUE = "cart_value";
+    public static final String SESSIONS_CREATED = "sessions_created";
+
+    public enum Resolution {
+        MINUTE("m", 60),
+        HOUR("h", 3600),
+        DAY("d", 86400);
+
+        private final String code;
+        private final long seconds;
+
+        Resolution(String code, long seconds) {
+            this.code = code;
+            this.seconds = seconds;
+        }
+
+        public String code() {
+            return code;
+        }
+
+        // Case-insensitive; null for an unknown name
+        public static Resolution fromName(String name) {
+            for (Resolution resolution : values()) {
+                if (resolution.name().equalsIgnoreCase(name)) {
+                    return resolution;
+                }
+            }
+            return null;
+        }
+
+        long bucketOf(long epochSecond) {
+            return Math.floorDiv(epochSecond, seconds);
+        }
+
+        LocalDateTime startOf(long bucket) {
+            return LocalDateTime.ofEpochSecond(bucket * seconds, 0, ZoneOffset.UTC);
+        }
+    }
+
+    private record BucketKey(String metric, long minute) {
+    }
+
+    private final RedisCacheService redisCacheService;
+    private final RedisLeaderElection leaderElection;
+    private final Map<BucketKey, Double> pending = new ConcurrentHashMap<>();
+
+    @Value("${analytics.rollup.metrics:product_views,add_to_cart,cart_value,sessions_created}")
+    private List<String> metrics;
+
+    @Value("${analytics.rollup.retention.minute:172800}")
+    private long minuteRetention;
+
+    @Value("${analytics.rollup.retention.hour:3024000}")
+    private long hourRetention;
+
+    @Value("${analytics.rollup.retention.day:34560000}")
+    private long dayRetention;
+
+    @Value("${analytics.rollup.max-range-buckets:1500}")
+    private int maxRangeBuckets;
+
+    public AnalyticsRollupService(RedisCacheService redisCacheService, RedisLeaderElection leaderElection) {
+        this.redisCacheService = redisCacheService;
+        this.leaderElection = leaderElection;
+    }
+
+    public void record(String metric, double amount) {
+        long minute = Resolution.MINUTE.bucketOf(Instant.now().getEpochSecond());
+        pending.merge(new BucketKey(metric, minute), amount, Double::sum);
+    }
+
+    // Deltas that do not reach Redis go back into pending and are retried on the next flush
+    @Scheduled(fixedRateString = "${analytics.rollup.flush-interval-ms:5000}")
+    public void flush() {
+        Map<String, Map<Long, Double>> byMetric = new HashMap<>();
+        for (BucketKey key : pending.keySet()) {
+            Double amount = pending.remove(key);
+            if (amount != null) {
+                byMetric.computeIfAbsent(key.metric(), m -> new HashMap<>()).put(key.minute(), amount);
+            }
+        }
+
+        byMetric.forEach((metric, deltas) -> {
+            if (!redisCacheService.incrementRollups(
+                    metric, Resolution.MINUTE.code(), deltas, Duration.ofSeconds(minuteRetention))) {
+                deltas.forEach((minute, amount) -> pending.merge(new BucketKey(metric, minute), amount, Double::sum));
+            }
+        });
+    }
+
+    // Folds minute buckets into the current and previous hour, then hours into the
+    // current and previous day. Rewrites are idempotent, so partial buckets stay
+    // fresh and a missed run is repaired by the next one. Only the leader runs it;
+    // a deposed leader racing the new one writes the same sums, so no fencing.
+    @Scheduled(fixedRateString = "${analytics.rollup.downsample-interval-ms:60000}")
+    public void downsample() {
+        if (!leaderElection.isLeader()) {
+            return;
+        }
+
+        long now = Instant.now().getEpochSecond();
+        long currentHour = Resolution.HOUR.bucketOf(now);
+        long currentDay = Resolution.DAY.bucketOf(now);
+
+        for (String metric : metrics) {
+            Map<Long, Double> hours = new HashMap<>();
+            for (long hour = currentHour - 1; hour <= currentHour; hour++) {
+                Double sum = sumChildren(metric, Resolution.MINUTE, hour * 60, 60);
+                if (sum != null) {
+                    hours.put(hour, sum);
+                }
+            }
+            redisCacheService.setRollups(metric, Resolution.HOUR.code(), hours, Duration.ofSeconds(hourRetention));
+
+            Map<Long, Double> days = new HashMap<>();
+            for (long day = currentDay - 1; day <= currentDay; day++) {
+                Double sum = sumChildren(metric, Resolution.HOUR, day * 24, 24);
+                if (sum != null) {
+                    days.put(day, sum);
+                }
+            }
+            redisCacheService.setRollups(metric, Resolution.DAY.code(), days, Duration.ofSeconds(dayRetention));
+        }
+        log.debug("Downsampled rollups for {} metrics", metrics.size());
+    }
+
+    public AnalyticsRange getRange(String metric, Resolution resolution, LocalDateTime from, LocalDateTime to) {
+        long startBucket = resolution.bucketOf(from.toEpochSecond(ZoneOffset.UTC));
+        long endBucket = resolution.bucketOf(to.toEpochSecond(ZoneOffset.UTC));
+        if (endBucket < startBucket) {
+            long swap = startBucket;
+            startBucket = endBucket;
+            endBucket = swap;
+        }
+        // Keep the most recent buckets when a range is wider than we serve
+        startBucket = Math.max(startBucket, endBucket - maxRangeBuckets + 1);
+
+        List<Long> buckets = new ArrayList<>();
+        for (long bucket = startBucket; bucket <= endBucket; bucket++) {
+            buckets.add(bucket);
+        }
+        List<Double> values = redisCacheService.getRollups(metric, resolution.code(), buckets);
+
+        List<AnalyticsRange.Point> points = new ArrayList<>(buckets.size());
+        double total = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        int empty = 0;
+        for (int i = 0; i < buckets.size(); i++) {
+            Double value = values.get(i);
+            if (value == null) {
+                empty++;
+                value = 0.0;
+            }
+            total += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            points.add(AnalyticsRange.Point.builder()
+                    .start(resolution.startOf(buckets.get(i)))
+                    .value(value)
+                    .build());
+        }
+
+        return AnalyticsRange.builder()
+                .metric(metric)
+                .resolution(resolution.name().toLowerCase())
+                .from(resolution.startOf(startBucket))
+                .to(resolution.startOf(endBucket))
+                .points(points)
+                .total(total)
+                .min(points.isEmpty() ? 0 : min)
+                .max(points.isEmpty() ? 0 : max)
+                .average(points.isEmpty() ? 0 : total / points.size())
+                .bucketCount(points.size())
+                .emptyBuckets(empty)
+                .build();
+    }
+
+    private Double sumChildren(String metric, Resolution child, long firstBucket, int count) {
+        List<Long> buckets = new ArrayList<>(count);
+        for (long bucket = firstBucket; bucket < firstBucket + count; bucket++) {
+            buckets.add(bucket);
+        }
+
+        Double sum = null;
+        for (Double value : redisCacheService.getRollups(metric, child.code(), buckets)) {
+            if (value != null) {
+                sum = (sum == null ? 0 : sum) + value;
+            }
+        }
+        return sum;
+    }
+}
@@ -2,6 +2,7 @@ package com.ecommerce.cache.service;
 
 
 import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.cache.RedisLeaderElection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -19,10 +20,18 @@ import java.util.concurrent.ThreadLocalRandom;
 public class AnalyticsService {
 
     private final RedisCacheService redisCacheService;
+    private final TrendingService trendingService;
+    private final RedisLeaderElection leaderElection;
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     @Scheduled(fixedRate = 300000)
     public void generateDailyAnalytics() {
+        long fencingToken = leaderElection.getFencingToken();
+        if (fencingToken < 0) {
+            log.debug("Skipping daily analytics generation, instance is not the leader");
+            return;
+        }
+
         String today = LocalDate.now().format(dateFormatter);
 
         // Generate mock analytics data
@@ -30,10 +39,10 @@ public class AnalyticsService {
         Map<String, Object> userActivityData = generateUserActivityAnalytics();
         Map<String, Object> productViewsData = generateProductViewsAnalytics();
 
-        // Store in L4 cache
-        redisCacheService.setAnalytics("daily_sales", today, salesData);
-        redisCacheService.setAnalytics("user_activity", today, userActivityData);
-        redisCacheService.setAnalytics("product_views", today, productViewsData);
+        // Store in L4 cache, rejected if a newer leader has written since
+        redisCacheService.setAnalyticsFenced("daily_sales", today, salesData, fencingToken);
+        redisCacheService.setAnalyticsFenced("user_activity", today, userActivityData, fencingToken);
+        redisCacheService.setAnalyticsFenced("product_views", today, productViewsData, fencingToken);
 
         log.debug("Generated daily analytics for: {}", today);
     }
@@ -92,11 +101,7 @@ public class AnalyticsService {
 
         analytics.put("totalViews", random.nextInt(5000, 20000));
         analytics.put("uniqueViews", random.nextInt(3000, 15000));
-        analytics.put("topProducts", Map.of(
-                "product-1", random.nextInt(100, 500),
-                "product-2", random.nextInt(80, 400),
-                "product-3", random.nextInt(60, 300)
-        ));
+        analytics.put("topProducts", trendingService.getTopProducts(TrendingService.VIEWS, 3));
 
         return analytics;
     }
@@ -2,14 +2,19 @@ package com.ecommerce.cache.service;
 
 import com.ecommerce.cache.cache.RedisCacheService;
 import com.ecommerce.cache.model.Cart;
+import com.ecommerce.cache.model.CartPricing;
 import com.ecommerce.cache.model.Product;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -20,17 +25,32 @@ public class CartService {
 
     private final RedisCacheService redisCacheService;
     private final ProductService productService;
+    private final TrendingService trendingService;
+    private final AnalyticsRollupService analyticsRollupService;
+
+    @Value("${cart.tax-basis-points:800}")
+    private long taxBasisPoints; // 8% tax
+
+    @Value("${cart.free-shipping-threshold-cents:5000}")
+    private long freeShippingThresholdCents; // Free shipping over $50
+
+    @Value("${cart.shipping-fee-cents:999}")
+    private long shippingFeeCents;
 
     public Cart getOrCreateCart(String userId, String sessionId) {
         Map<String, Object> session = redisCacheService.getUserSession(sessionId);
         if (session != null && session.containsKey("cartId")) {
             String cartId = session.get("cartId").toString();
-            // In a real implementation, you'd fetch from database or L2 cache
-            return createMockCart(cartId, userId, sessionId);
+            Map<String, Object> fields = redisCacheService.getCart(sessionId, cartId);
+            if (fields != null) {
+                return toCart(cartId, fields);
+            }
+            // Cart expired while the session lived on; start an empty one under the same id
+            return createCart(cartId, userId, sessionId);
         }
 
         String cartId = UUID.randomUUID().toString();
-        Cart cart = createMockCart(cartId, userId, sessionId);
+        Cart cart = createCart(cartId, userId, sessionId);
 
         if (session != null) {
             redisCacheService.updateSessionField(sessionId, "cartId", cartId);
@@ -64,28 +84,30 @@ public class CartService {
 
         Long newStock = redisCacheService.decrementInventory(productId, quantity);
         log.info("Added {} of product {} to cart. New inventory: {}", quantity, productId, newStock);
+        trendingService.recordAddToCart(productId);
+        analyticsRollupService.record(AnalyticsRollupService.ADD_TO_CART, quantity);
+        analyticsRollupService.record(AnalyticsRollupService.CART_VALUE,
+                product.getPrice().multiply(BigDecimal.valueOf(quantity)).doubleValue());
 
         String userId = session.get("userId").toString();
-        Cart cart = getOrCreateCart(userId, sessionId);
-
-        Cart.CartItem newItem = Cart.CartItem.builder()
-                .productId(productId)
-                .productName(product.getName())
-                .sku(product.getSku())
-                .quantity(quantity)
-                .unitPrice(product.getPrice())
-                .totalPrice(product.getPrice().multiply(BigDecimal.valueOf(quantity)))
-                .imageUrl(!product.getImages().isEmpty() ? product.getImages().get(0) : null)
-                .build();
+        String cartId = resolveCartId(session, sessionId);
 
-        if (cart.getItems() == null) {
-            cart.setItems(new ArrayList<>());
-        }
-        cart.getItems().add(newItem);
+        Map<String, Object> item = new HashMap<>();
+        item.put("productName", product.getName());
+        item.put("sku", product.getSku());
+        item.put("imageUrl", product.getImages() != null && !product.getImages().isEmpty()
+                ? product.getImages().get(0) : null);
 
-        recalculateCartTotals(cart);
+        Map<String, Object> owner = Map.of("userId", userId, "currency", "USD");
 
-        return cart;
+        // The script creates the cart hash on first use, so no separate read is needed
+        Map<String, Object> fields = redisCacheService.addCartItem(
+                sessionId, cartId, productId, quantity, toCents(product.getPrice()), item, owner, pricing());
+        if (fields == null) {
+            throw new RuntimeException("Unable to update cart: " + cartId);
+        }
+
+        return toCart(cartId, fields);
     }
 
     public Cart removeItemFromCart(String sessionId, String productId) {
@@ -95,56 +117,112 @@ public class CartService {
         }
 
         String userId = session.get("userId").toString();
-        Cart cart = getOrCreateCart(userId, sessionId);
+        if (!session.containsKey("cartId")) {
+            return getOrCreateCart(userId, sessionId);
+        }
 
-        if (cart.getItems() != null) {
-            cart.getItems().removeIf(item -> item.getProductId().equals(productId));
-            recalculateCartTotals(cart);
+        String cartId = session.get("cartId").toString();
+        Map<String, Object> fields = redisCacheService.removeCartItem(sessionId, cartId, productId, pricing());
+        if (fields == null) {
+            throw new RuntimeException("Unable to update cart: " + cartId);
         }
 
         log.debug("Removed product {} from cart for user: {}", productId, userId);
-        return cart;
+        return fields.isEmpty() ? createCart(cartId, userId, sessionId) : toCart(cartId, fields);
     }
 
-    private void recalculateCartTotals(Cart cart) {
-        if (cart.getItems() == null || cart.getItems().isEmpty()) {
-            cart.setSubtotal(BigDecimal.ZERO);
-            cart.setTax(BigDecimal.ZERO);
-            cart.setShipping(BigDecimal.ZERO);
-            cart.setTotal(BigDecimal.ZERO);
-            return;
+    private String resolveCartId(Map<String, Object> session, String sessionId) {
+        if (session.containsKey("cartId")) {
+            return session.get("cartId").toString();
         }
 
-        BigDecimal subtotal = cart.getItems().stream()
-                .map(Cart.CartItem::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal tax = subtotal.multiply(BigDecimal.valueOf(0.08)); // 8% tax
-        BigDecimal shipping = subtotal.compareTo(BigDecimal.valueOf(50)) >= 0
-                ? BigDecimal.ZERO
-                : BigDecimal.valueOf(9.99); // Free shipping over $50
+        String cartId = UUID.randomUUID().toString();
+        redisCacheService.updateSessionField(sessionId, "cartId", cartId);
+        log.debug("Assigned new cart: {} to session: {}", cartId, sessionId);
+        return cartId;
+    }
 
-        cart.setSubtotal(subtotal);
-        cart.setTax(tax);
-        cart.setShipping(shipping);
-        cart.setTotal(subtotal.add(tax).add(shipping));
-        cart.setUpdatedAt(LocalDateTime.now());
+    private CartPricing pricing() {
+        return CartPricing.builder()
+                .taxBasisPoints(taxBasisPoints)
+                .freeShippingThresholdCents(freeShippingThresholdCents)
+                .shippingFeeCents(shippingFeeCents)
+                .build();
     }
 
-    private Cart createMockCart(String cartId, String userId, String sessionId) {
+    @SuppressWarnings("unchecked")
+    private Cart toCart(String cartId, Map<String, Object> fields) {
+        List<Cart.CartItem> items = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            if (!entry.getKey().startsWith("qty:")) {
+                continue;
+            }
+            String productId = entry.getKey().substring("qty:".length());
+            int quantity = ((Number) entry.getValue()).intValue();
+            BigDecimal unitPrice = fromCents(fields.get("price:" + productId));
+            Map<String, Object> item = fields.get("item:" + productId) instanceof Map<?, ?> map
+                    ? (Map<String, Object>) map : Map.of();
+
+            items.add(Cart.CartItem.builder()
+                    .productId(productId)
+                    .productName((String) item.get("productName"))
+                    .sku((String) item.get("sku"))
+                    .quantity(quantity)
+                    .unitPrice(unitPrice)
+                    .totalPrice(unitPrice.multiply(BigDecimal.valueOf(quantity)))
+                    .imageUrl((String) item.get("imageUrl"))
+                    .variant((String) item.get("variant"))
+                    .build());
+        }
+
+        BigDecimal subtotal = fromCents(fields.get("subtotalCents"));
+        BigDecimal tax = fromCents(fields.get("taxCents"));
+        BigDecimal shipping = fromCents(fields.get("shippingCents"));
+
         return Cart.builder()
                 .id(cartId)
-                .userId(userId)
-                .sessionId(sessionId)
-                .items(new ArrayList<>())
-                .subtotal(BigDecimal.ZERO)
-                .tax(BigDecimal.ZERO)
-                .shipping(BigDecimal.ZERO)
-                .total(BigDecimal.ZERO)
-                .currency("USD")
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusHours(24))
+                .userId((String) fields.get("userId"))
+                .sessionId((String) fields.get("sessionId"))
+                .items(items)
+                .subtotal(subtotal)
+                .tax(tax)
+                .shipping(shipping)
+                .total(subtotal.add(tax).add(shipping))
+                .currency((String) fields.getOrDefault("currency", "USD"))
+                .createdAt(parseTime(fields.get("createdAt")))
+                .updatedAt(parseTime(fields.get("updatedAt")))
+                .expiresAt(parseTime(fields.get("expiresAt")))
                 .build();
     }
-}
\ No newline at end of file
+
+    private Cart createCart(String cartId, String userId, String sessionId) {
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("userId", userId);
+        fields.put("sessionId", sessionId);
+        fields.put("currency", "USD");
+        fields.put("subtotalCents", 0L);
+        fields.put("taxCents", 0L);
+        fields.put("shippingCents", 0L);
+        fields.put("itemCount", 0L);
+        fields.put("createdAt", now.toString());
+        fields.put("updatedAt", now.toString());
+        fields.put("expiresAt", now.plusHours(24).toString());
+
+        redisCacheService.createCart(sessionId, cartId, fields);
+        return toCart(cartId, fields);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    private static BigDecimal fromCents(Object cents) {
+        return cents instanceof Number number ? BigDecimal.valueOf(number.longValue(), 2) : BigDecimal.ZERO.setScale(2);
+    }
+
+    private static LocalDateTime parseTime(Object value) {
+        return value != null ? LocalDateTime.parse(value.toString()) : null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.cache.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+// Command-line catalog load: with --catalog-load=<file> the application loads the file,
+// logs the outcome and exits (status 1 if any line was skipped or not written). Add
+// --spring.main.web-application-type=none to run it without the web server.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogLoadRunner implements ApplicationRunner {
+
+    static final String OPTION = "catalog-load";
+
+    private final CatalogLoader catalogLoader;
+    private final ApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> files = args.getOptionValues(OPTION);
+        if (files == null || files.isEmpty()) {
+            return;
+        }
+
+        boolean clean = true;
+        for (String file : files) {
+            Map<String, Object> status = catalogLoader.load(Path.of(file));
+            log.info("Catalog {}: {}", file, status);
+            clean &= "completed".equals(status.get("status"))
+                    && (long) status.get("invalid") == 0 && (long) status.get("failed") == 0;
+        }
+
+        int exitCode = clean ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
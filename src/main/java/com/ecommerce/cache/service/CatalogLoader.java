@@ -0,0 +1,250 @@
+package com.ecommerce.cache.service;
+
+import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.model.BulkCacheResult;
+import com.ecommerce.cache.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+// Streams an NDJSON catalog (one product per line, optionally gzipped) from a file channel
+// into the product tier. Lines are parsed one at a time, so memory stays flat whatever the
+// file size; products are written in bulk batches (slot-grouped, pipelined per node) with at
+// most max-batches-in-flight batches outstanding, so reading waits for Redis to keep up.
+// Lines that do not parse or have no id are counted and skipped. One load runs at a time, on
+// its own executor (catalogLoaderExecutor), so a long load never queues request fan-out work.
+@Slf4j
+@Service
+public class CatalogLoader {
+
+    private static final long PROGRESS_INTERVAL_MS = 10_000;
+
+    private final RedisCacheService redisCacheService;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong lines = new AtomicLong();
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private volatile String file;
+    private volatile long fileBytes;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String status = "idle";
+
+    @Value("${products.catalog-loader.directory:./catalog}")
+    private String directory;
+
+    @Value("${products.catalog-loader.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${products.catalog-loader.max-batches-in-flight:4}")
+    private int maxBatchesInFlight;
+
+    public CatalogLoader(RedisCacheService redisCacheService, ObjectMapper objectMapper,
+                         @Qualifier("catalogLoaderExecutor") ThreadPoolTaskExecutor executor) {
+        this.redisCacheService = redisCacheService;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+    }
+
+    // Admin entry point: the file must be under the configured catalog directory. Starts the
+    // load in the background; false when a load is already running.
+    public boolean start(String fileName) {
+        Path path = catalogFile(fileName);
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        reset(path);
+        try {
+            executor.execute(() -> run(path));
+        } catch (RuntimeException e) {
+            status = "failed: " + e.getMessage();
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    // CLI entry point: any readable path, loaded on the calling thread. Returns the status.
+    public Map<String, Object> load(Path path) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A catalog load is already running");
+        }
+        reset(path);
+        run(path);
+        return getStatus();
+    }
+
+    public Map<String, Object> getStatus() {
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        long elapsedMs = startedAt > 0 ? Math.max(1, end - startedAt) : 0;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", status);
+        result.put("file", file);
+        result.put("lines", lines.get());
+        result.put("loaded", loaded.get());
+        result.put("invalid", invalid.get());
+        result.put("failed", failed.get());
+        result.put("bytesRead", bytesRead.get());
+        result.put("fileBytes", fileBytes);
+        result.put("progress", fileBytes > 0 ? Math.round(bytesRead.get() * 1000.0 / fileBytes) / 1000.0 : 0);
+        result.put("elapsedMs", elapsedMs);
+        result.put("productsPerSecond", elapsedMs > 0 ? loaded.get() * 1000 / elapsedMs : 0);
+        result.put("megabytesPerSecond",
+                elapsedMs > 0 ? Math.round(bytesRead.get() / 1048.576 / elapsedMs * 10) / 10.0 : 0);
+        return result;
+    }
+
+    private void run(Path path) {
+        Semaphore batchesInFlight = new Semaphore(maxBatchesInFlight);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             BufferedReader reader = reader(channel, path)) {
+            fileBytes = channel.size();
+
+            Map<String, Product> batch = new LinkedHashMap<>();
+            long lastReport = System.currentTimeMillis();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.incrementAndGet();
+                bytesRead.set(channel.position());
+                if (System.currentTimeMillis() - lastReport >= PROGRESS_INTERVAL_MS) {
+                    lastReport = System.currentTimeMillis();
+                    log.info("Catalog load progress: {}", getStatus());
+                }
+                Product product = parse(line);
+                if (product == null) {
+                    continue;
+                }
+                batch.put(product.getId(), product);
+                if (batch.size() >= batchSize) {
+                    write(batch, batchesInFlight);
+                    batch = new LinkedHashMap<>();
+                }
+            }
+            write(batch, batchesInFlight);
+
+            // Wait for the last batches
+            batchesInFlight.acquireUninterruptibly(maxBatchesInFlight);
+            batchesInFlight.release(maxBatchesInFlight);
+            bytesRead.set(fileBytes);
+            status = "completed";
+        } catch (IOException | RuntimeException e) {
+            batchesInFlight.acquireUninterruptibly(maxBatchesInFlight);
+            log.error("Catalog load of {} aborted", path, e);
+            status = "failed: " + e.getMessage();
+        } finally {
+            finishedAt = System.currentTimeMillis();
+            running.set(false);
+        }
+        log.info("Catalog load finished: {}", getStatus());
+    }
+
+    // Checked again once symlinks are resolved: a link under the directory may point anywhere
+    private Path catalogFile(String fileName) {
+        Path base = Path.of(directory).toAbsolutePath().normalize();
+        Path path = base.resolve(fileName).normalize();
+        if (!path.startsWith(base)) {
+            throw new IllegalArgumentException("Catalog file must be under " + base);
+        }
+        try {
+            path = path.toRealPath();
+            if (!path.startsWith(base.toRealPath())) {
+                throw new IllegalArgumentException("Catalog file must be under " + base);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Catalog file not readable: " + fileName, e);
+        }
+        return path;
+    }
+
+    private void reset(Path path) {
+        file = path.toString();
+        lines.set(0);
+        loaded.set(0);
+        invalid.set(0);
+        failed.set(0);
+        bytesRead.set(0);
+        fileBytes = 0;
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+        status = "running";
+    }
+
+    private Product parse(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            Product product = objectMapper.readValue(line, Product.class);
+            if (product.getId() != null && !product.getId().isBlank()) {
+                return product;
+            }
+        } catch (IOException e) {
+            log.debug("Skipping catalog line {}: {}", lines.get(), e.getMessage());
+        }
+        invalid.incrementAndGet();
+        return null;
+    }
+
+    // Blocks while max-batches-in-flight batches are still being written
+    private void write(Map<String, Product> batch, Semaphore batchesInFlight) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchesInFlight.acquireUninterruptibly();
+        CompletableFuture<BulkCacheResult> written;
+        try {
+            written = CompletableFuture.supplyAsync(() -> redisCacheService.setProducts(batch), executor);
+        } catch (RuntimeException e) {
+            batchesInFlight.release();
+            throw e;
+        }
+        written.whenComplete((result, error) -> {
+            batchesInFlight.release();
+            if (error != null) {
+                failed.addAndGet(batch.size());
+                log.warn("Catalog batch of {} products failed: {}", batch.size(), error.getMessage());
+            } else {
+                tally(result);
+            }
+        });
+    }
+
+    private void tally(BulkCacheResult result) {
+        loaded.addAndGet(result.getSucceeded());
+        failed.addAndGet(result.getFailed());
+    }
+
+    private static BufferedReader reader(FileChannel channel, Path path) throws IOException {
+        InputStream in = Channels.newInputStream(channel);
+        if (path.getFileName().toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+}
@@ -0,0 +1,211 @@
+package com.ecommerce.cache.service;
+
+import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.cache.RedisLeaderElection;
+import com.ecommerce.cache.model.Product;
+import com.ecommerce.cache.model.TrendingProduct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Refresh-ahead for the hottest products: on the leader, the top viewed products are
+// re-loaded from the backing store and re-cached shortly before their TTL runs out, so
+// readers never see the miss. Each hot product is also re-checked against the source
+// every source-check interval and re-cached only when its version changed.
+@Slf4j
+@Service
+public class ProductRefreshService {
+
+    private final RedisCacheService redisCacheService;
+    private final ProductService productService;
+    private final TrendingService trendingService;
+    private final RedisLeaderElection leaderElection;
+    private final ThreadPoolTaskExecutor executor;
+
+    // When each hot product was last compared with the source
+    private final Map<String, Long> lastSourceCheck = new ConcurrentHashMap<>();
+
+    private final AtomicLong cycles = new AtomicLong();
+    private final AtomicLong refreshedExpiring = new AtomicLong();
+    private final AtomicLong refreshedChanged = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong removed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile int lastHotProducts;
+    private volatile long lastCycleMs;
+
+    @Value("${products.refresh-ahead.enabled:true}")
+    private boolean enabled;
+
+    @Value("${products.refresh-ahead.hot-products:200}")
+    private int hotProducts;
+
+    @Value("${products.refresh-ahead.window-minutes:15}")
+    private long windowMinutes;
+
+    @Value("${products.refresh-ahead.refresh-before-seconds:600}")
+    private long refreshBeforeSeconds;
+
+    @Value("${products.refresh-ahead.source-check-seconds:300}")
+    private long sourceCheckSeconds;
+
+    @Value("${products.refresh-ahead.parallelism:8}")
+    private int parallelism;
+
+    @Value("${products.refresh-ahead.batch-size:100}")
+    private int batchSize;
+
+    public ProductRefreshService(RedisCacheService redisCacheService,
+                                 ProductService productService,
+                                 TrendingService trendingService,
+                                 RedisLeaderElection leaderElection,
+                                 @Qualifier("cacheTaskExecutor") ThreadPoolTaskExecutor executor) {
+        this.redisCacheService = redisCacheService;
+        this.productService = productService;
+        this.trendingService = trendingService;
+        this.leaderElection = leaderElection;
+        this.executor = executor;
+    }
+
+    @Scheduled(fixedDelayString = "${products.refresh-ahead.interval-ms:30000}")
+    public void refreshHotProducts() {
+        if (!enabled) {
+            return;
+        }
+        if (!leaderElection.isLeader()) {
+            log.debug("Skipping product refresh-ahead, instance is not the leader");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<String> hot = new ArrayList<>();
+        for (TrendingProduct product : trendingService.getTrending(TrendingService.VIEWS, hotProducts, windowMinutes)) {
+            hot.add(product.getProductId());
+        }
+        lastSourceCheck.keySet().retainAll(hot);
+        lastHotProducts = hot.size();
+        if (hot.isEmpty()) {
+            return;
+        }
+
+        // Expiring soon (or already gone) must be re-set; due a source check only if it changed
+        Map<String, Long> ttls = redisCacheService.getProductTtls(hot);
+        Map<String, String> versions = redisCacheService.getProductVersions(hot);
+        long refreshBeforeMs = refreshBeforeSeconds * 1000;
+        long sourceCheckMs = sourceCheckSeconds * 1000;
+
+        List<String> expiring = new ArrayList<>();
+        List<String> check = new ArrayList<>();
+        for (String productId : hot) {
+            Long ttl = ttls.get(productId);
+            if (ttl != null && (ttl == -2 || ttl >= 0 && ttl < refreshBeforeMs)) {
+                expiring.add(productId);
+            } else if (start - lastSourceCheck.getOrDefault(productId, 0L) >= sourceCheckMs) {
+                check.add(productId);
+            }
+        }
+        if (expiring.isEmpty() && check.isEmpty()) {
+            lastCycleMs = System.currentTimeMillis() - start;
+            return;
+        }
+
+        Map<String, Product> loaded = load(expiring, check);
+
+        Map<String, Product> batch = new LinkedHashMap<>();
+        for (Map.Entry<String, Product> entry : loaded.entrySet()) {
+            String productId = entry.getKey();
+            Product product = entry.getValue();
+            lastSourceCheck.put(productId, start);
+
+            if (product == null) {
+                // Gone from the source: stop serving it
+                redisCacheService.invalidateProduct(productId);
+                removed.incrementAndGet();
+            } else if (expiring.contains(productId)) {
+                batch.put(productId, product);
+                refreshedExpiring.incrementAndGet();
+            } else if (!redisCacheService.productVersion(product).equals(versions.get(productId))) {
+                batch.put(productId, product);
+                refreshedChanged.incrementAndGet();
+            } else {
+                unchanged.incrementAndGet();
+            }
+
+            if (batch.size() >= batchSize) {
+                flush(batch);
+            }
+        }
+        flush(batch);
+
+        cycles.incrementAndGet();
+        lastCycleMs = System.currentTimeMillis() - start;
+        log.debug("Refresh-ahead: {} hot, {} expiring, {} source-checked in {}ms",
+                hot.size(), expiring.size(), check.size(), lastCycleMs);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("leader", leaderElection.isLeader());
+        status.put("hotProducts", lastHotProducts);
+        status.put("cycles", cycles.get());
+        status.put("refreshedExpiring", refreshedExpiring.get());
+        status.put("refreshedChanged", refreshedChanged.get());
+        status.put("unchanged", unchanged.get());
+        status.put("removed", removed.get());
+        status.put("failed", failed.get());
+        status.put("lastCycleMs", lastCycleMs);
+        return status;
+    }
+
+    // Source loads on the shared executor, at most `parallelism` in flight. Products that
+    // failed to load are left out; a null value means the product no longer exists.
+    private Map<String, Product> load(List<String> expiring, List<String> check) {
+        Semaphore permits = new Semaphore(parallelism);
+        Map<String, CompletableFuture<Product>> futures = new LinkedHashMap<>();
+        List<String> productIds = new ArrayList<>(expiring);
+        productIds.addAll(check);
+
+        for (String productId : productIds) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<Product> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> productService.loadProductFromSource(productId), executor);
+            } catch (Exception e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.put(productId, future.whenComplete((product, error) -> permits.release()));
+        }
+
+        Map<String, Product> loaded = new LinkedHashMap<>();
+        futures.forEach((productId, future) -> {
+            try {
+                loaded.put(productId, future.join());
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.warn("Refresh-ahead could not load product {}: {}", productId, e.getMessage());
+            }
+        });
+        return loaded;
+    }
+
+    private void flush(Map<String, Product> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        failed.addAndGet(redisCacheService.setProducts(batch).getFailed());
+        batch.clear();
+    }
+}
@@ -1,11 +1,19 @@
 package com.ecommerce.cache.service;
 
+import com.ecommerce.cache.cache.AdaptiveConcurrencyLimiter;
+import com.ecommerce.cache.cache.LoadShedException;
+import com.ecommerce.cache.cache.ProductLayout;
 import com.ecommerce.cache.cache.RedisCacheService;
 import com.ecommerce.cache.model.Product;
+import com.ecommerce.cache.model.Versioned;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -16,32 +24,88 @@ import java.util.concurrent.ThreadLocalRandom;
 @RequiredArgsConstructor
 public class ProductService {
 
+    // Mock timestamps are fixed per product, so an unchanged product keeps the same version
+    private static final LocalDateTime CATALOG_EPOCH = LocalDateTime.of(2025, 1, 1, 0, 0);
+
     private final RedisCacheService redisCacheService;
+    private final ProductLayout productLayout;
+    private final TrendingService trendingService;
+    private final AnalyticsRollupService analyticsRollupService;
+    private final ObjectMapper objectMapper;
+    private final AdaptiveConcurrencyLimiter sourceLoadLimiter;
 
     public Product getProduct(String productId) {
+        return getVersionedProduct(productId).value();
+    }
+
+    // getProduct with the version to serve as its ETag: the one read with the cached copy,
+    // or on a miss the version of the product just loaded and cached
+    public Versioned<Product> getVersionedProduct(String productId) {
         log.debug("Getting product: {}", productId);
+        recordView(productId);
 
-        Product cachedProduct = redisCacheService.getProduct(productId, Product.class);
-        if (cachedProduct != null) {
+        Versioned<Product> cachedProduct = redisCacheService.getVersionedProduct(productId, Product.class);
+        if (cachedProduct.value() != null) {
             return cachedProduct;
         }
 
-        Product product = fetchProductFromDatabase(productId);
-        if (product != null) {
-            // Cache the product
-            redisCacheService.setProduct(productId, product);
+        Product product = loadFromSource(productId);
+        if (product == null) {
+            return cachedProduct;
         }
+        // Cache the product
+        redisCacheService.setProduct(productId, product);
+        return new Versioned<>(product, redisCacheService.productVersion(product));
+    }
+
+    public boolean isPassthrough() {
+        return productLayout.isPassthrough();
+    }
+
+    // Passthrough variant of getVersionedProduct: a hit is returned as the cached JSON bytes,
+    // a miss is loaded, cached and encoded once. The value is null when the product does not exist.
+    public Versioned<byte[]> getVersionedProductJson(String productId) {
+        log.debug("Getting product JSON: {}", productId);
+        recordView(productId);
+
+        Versioned<byte[]> cached = redisCacheService.getVersionedProductJson(productId);
+        if (cached.value() != null) {
+            return cached;
+        }
+
+        Product product = loadFromSource(productId);
+        if (product == null) {
+            return cached;
+        }
+        redisCacheService.setProduct(productId, product);
+        return new Versioned<>(toJson(product), redisCacheService.productVersion(product));
+    }
 
-        return product;
+    // Cached version of the product, for conditional requests; null when it is not cached
+    public String getProductVersion(String productId) {
+        return redisCacheService.getProductVersion(productId);
     }
 
     public List<Product> getProductsByCategory(String category, int page, int size) {
         log.debug("Getting products by category: {} page: {} size: {}", category, page, size);
 
+        List<String> productIds = categoryProductIds(category, page, size);
+
+        // One batched read of the listing fields; misses load and cache the whole product
+        Map<String, Product> cached =
+                redisCacheService.getProductFields(productIds, ProductLayout.LISTING, Product.class);
+
         List<Product> products = new ArrayList<>();
-        for (int i = 0; i < size; i++) {
-            String productId = String.format("%s-product-%d", category, (page * size) + i);
-            Product product = getProduct(productId);
+        for (String productId : productIds) {
+            recordView(productId);
+
+            Product product = cached.get(productId);
+            if (product == null) {
+                product = loadListingProduct(productId);
+                if (product != null) {
+                    redisCacheService.setProduct(productId, product);
+                }
+            }
             if (product != null) {
                 products.add(product);
             }
@@ -50,13 +114,51 @@ public class ProductService {
         return products;
     }
 
+    // Passthrough variant of getProductsByCategory: cached product JSON is spliced into the
+    // response array as it is; only misses are encoded
+    public byte[] getProductsByCategoryJson(String category, int page, int size) {
+        log.debug("Getting products JSON by category: {} page: {} size: {}", category, page, size);
+
+        List<String> productIds = categoryProductIds(category, page, size);
+        Map<String, byte[]> cached = redisCacheService.getProductJsons(productIds);
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream(64 + cached.values().stream()
+                .mapToInt(bytes -> bytes.length + 1).sum());
+        json.write('[');
+        boolean first = true;
+        for (String productId : productIds) {
+            recordView(productId);
+
+            byte[] product = cached.get(productId);
+            if (product == null) {
+                Product loaded = loadListingProduct(productId);
+                if (loaded == null) {
+                    continue;
+                }
+                redisCacheService.setProduct(productId, loaded);
+                product = toJson(loaded);
+            }
+            if (!first) {
+                json.write(',');
+            }
+            json.writeBytes(product);
+            first = false;
+        }
+        json.write(']');
+
+        return json.toByteArray();
+    }
+
     public Product updateProduct(String productId, Product updatedProduct) {
         log.debug("Updating product: {}", productId);
 
         updatedProduct.setId(productId);
         updatedProduct.setUpdatedAt(LocalDateTime.now());
 
-        redisCacheService.invalidateProduct(productId);
+        // The fields layout diffs against the cached groups; deleting first would rewrite them all
+        if (!productLayout.isFields()) {
+            redisCacheService.invalidateProduct(productId);
+        }
 
         redisCacheService.setProduct(productId, updatedProduct);
 
@@ -83,6 +185,59 @@ public class ProductService {
         return results;
     }
 
+    // Straight from the backing store, bypassing the cache; used by the refresh-ahead job
+    public Product loadProductFromSource(String productId) {
+        return loadFromSource(productId);
+    }
+
+    private List<String> categoryProductIds(String category, int page, int size) {
+        List<String> productIds = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            productIds.add(String.format("%s-product-%d", category, (page * size) + i));
+        }
+        return productIds;
+    }
+
+    private void recordView(String productId) {
+        trendingService.recordView(productId);
+        analyticsRollupService.record(AnalyticsRollupService.PRODUCT_VIEWS, 1);
+    }
+
+    private byte[] toJson(Product product) {
+        try {
+            return objectMapper.writeValueAsBytes(product);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Backing-store load under the adaptive limit: over it, the load is refused at once
+    // (LoadShedException, a 503 for single-product reads) instead of queueing on the store
+    private Product loadFromSource(String productId) {
+        if (!sourceLoadLimiter.tryAcquire(AdaptiveConcurrencyLimiter.Priority.current())) {
+            throw new LoadShedException(sourceLoadLimiter.getName());
+        }
+        long start = System.nanoTime();
+        try {
+            Product product = fetchProductFromDatabase(productId);
+            sourceLoadLimiter.onSuccess(System.nanoTime() - start);
+            return product;
+        } catch (RuntimeException e) {
+            sourceLoadLimiter.onDropped();
+            throw e;
+        }
+    }
+
+    // Listings degrade instead of failing: a product whose load was shed is left off the page
+    private Product loadListingProduct(String productId) {
+        try {
+            return loadFromSource(productId);
+        } catch (LoadShedException e) {
+            log.debug("Leaving {} out of the listing: {}", productId, e.getMessage());
+            return null;
+        }
+    }
+
     private Product fetchProductFromDatabase(String productId) {
         log.debug("Fetching product from database: {}", productId);
 
@@ -127,8 +282,8 @@ public class ProductService {
                 .tags(Arrays.asList("popular", "trending", "new"))
                 .active(random.nextBoolean())
                 .featured(random.nextDouble() < 0.2) // 20% chance of being featured
-                .createdAt(LocalDateTime.now().minusDays(random.nextInt(365)))
-                .updatedAt(LocalDateTime.now().minusHours(random.nextInt(24)))
+                .createdAt(CATALOG_EPOCH.minusDays(random.nextInt(365)))
+                .updatedAt(CATALOG_EPOCH.minusHours(random.nextInt(24)))
                 .metaTitle(productId + " - Best Quality Product")
                 .metaDescription("Buy " + productId + " at the best price with fast delivery")
                 .slug(productId.toLowerCase().replace(" ", "-"))
@@ -0,0 +1,175 @@
+package com.ecommerce.cache.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Space-Saving heavy hitters (Metwally et al.) backed by a stream-summary:
+// counters are grouped in buckets of equal count kept in ascending order, so
+// unit increments and evictions of the minimum are O(1). Estimates never undercount;
+// each estimate overcounts by at most its recorded error. A closed sketch refuses
+// further offers, so whoever closed it can read a final set of counts.
+public class SpaceSavingSketch {
+
+    public record Estimate(String item, long count, long error) {
+    }
+
+    private static final class Counter {
+        private String item;
+        private long error;
+        private Bucket bucket;
+    }
+
+    private static final class Bucket {
+        private final long count;
+        private final Set<Counter> counters = new LinkedHashSet<>();
+        private Bucket prev;
+        private Bucket next;
+
+        private Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private Bucket head; // lowest count
+    private long total;
+    private boolean closed;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Sketch capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public boolean offer(String item) {
+        return offer(item, 1);
+    }
+
+    // Returns false, counting nothing, once the sketch is closed
+    public synchronized boolean offer(String item, long count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Offered count must be positive: " + count);
+        }
+        if (closed) {
+            return false;
+        }
+        total += count;
+
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            increment(counter, count);
+            return true;
+        }
+
+        if (counters.size() < capacity) {
+            counter = new Counter();
+            counter.item = item;
+            counters.put(item, counter);
+            place(counter, null, count);
+            return true;
+        }
+
+        // Replace the item with the smallest count and inherit its count as error
+        Counter victim = head.counters.iterator().next();
+        counters.remove(victim.item);
+        victim.item = item;
+        victim.error = head.count;
+        counters.put(item, victim);
+        increment(victim, count);
+        return true;
+    }
+
+    public synchronized void close() {
+        closed = true;
+    }
+
+    public synchronized List<Estimate> top(int limit) {
+        List<Estimate> result = new ArrayList<>(Math.min(limit, counters.size()));
+        Bucket tail = head;
+        while (tail != null && tail.next != null) {
+            tail = tail.next;
+        }
+
+        for (Bucket bucket = tail; bucket != null && result.size() < limit; bucket = bucket.prev) {
+            Iterator<Counter> it = bucket.counters.iterator();
+            while (it.hasNext() && result.size() < limit) {
+                Counter counter = it.next();
+                result.add(new Estimate(counter.item, bucket.count, counter.error));
+            }
+        }
+        return result;
+    }
+
+    public synchronized List<Estimate> estimates() {
+        return top(counters.size());
+    }
+
+    public synchronized long total() {
+        return total;
+    }
+
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private void increment(Counter counter, long by) {
+        Bucket current = counter.bucket;
+        current.counters.remove(counter);
+        place(counter, current, current.count + by);
+
+        if (current.counters.isEmpty()) {
+            unlink(current);
+        }
+    }
+
+    // Counts only grow, so the target bucket is searched upward from the counter's old
+    // bucket (from the lowest one for a new counter); a unit step looks at one bucket
+    private void place(Counter counter, Bucket from, long count) {
+        Bucket prev = from;
+        Bucket next = from != null ? from.next : head;
+        while (next != null && next.count < count) {
+            prev = next;
+            next = next.next;
+        }
+
+        Bucket target = next;
+        if (target == null || target.count != count) {
+            target = new Bucket(count);
+            target.prev = prev;
+            target.next = next;
+            if (next != null) {
+                next.prev = target;
+            }
+            if (prev != null) {
+                prev.next = target;
+            } else {
+                head = target;
+            }
+        }
+
+        target.counters.add(counter);
+        counter.bucket = target;
+    }
+
+    private void unlink(Bucket bucket) {
+        if (bucket.prev != null) {
+            bucket.prev.next = bucket.next;
+        } else {
+            head = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ecommerce.cache.service;
+
+import com.ecommerce.cache.cache.CacheTier;
+import com.ecommerce.cache.cache.ProductLayout;
+import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.cache.RedisClusterManager;
+import com.ecommerce.cache.cache.TieredRedisTemplates;
+import com.ecommerce.cache.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+// Runs once the context is up but before ApplicationReadyEvent, so Spring keeps the
+// readiness probe at REFUSING_TRAFFIC until it is done: fetches slot ownership, opens and
+// pings every tier connection to every node, loads the Lua scripts, and pushes a synthetic
+// product through the codecs and the product cache paths to get them JIT-compiled.
+// A failed phase is logged and reported; it blocks readiness only with cache.warmup.required.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StartupWarmupService {
+
+    private final RedisClusterManager clusterManager;
+    private final TieredRedisTemplates tieredTemplates;
+    private final RedisCacheService redisCacheService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Object> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile boolean finished;
+    private volatile boolean failed;
+
+    @Value("${cache.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.warmup.required:false}")
+    private boolean required;
+
+    @Value("${cache.warmup.codec-iterations:2000}")
+    private int codecIterations;
+
+    @Value("${cache.warmup.cache-iterations:50}")
+    private int cacheIterations;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            finished = true;
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        phase("topology", () -> Map.of("uncoveredSlots", clusterManager.refreshTopology()));
+        phase("connections", tieredTemplates::warmConnections);
+        phase("scripts", () -> Map.of("loaded", redisCacheService.preloadScripts()));
+        phase("codecs", this::warmCodecs);
+        phase("cachePaths", this::warmCachePaths);
+        finished = true;
+
+        log.info("Startup warm-up {} in {}ms: {}", failed ? "finished with failures" : "done",
+                System.currentTimeMillis() - start, phases);
+    }
+
+    // Ready once the warm-up has run; a failed one keeps the instance out only when required
+    public boolean isReady() {
+        return finished && !(failed && required);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("finished", finished);
+        status.put("failed", failed);
+        status.put("required", required);
+        synchronized (phases) {
+            status.put("phases", new LinkedHashMap<>(phases));
+        }
+        return status;
+    }
+
+    private void phase(String name, Callable<Object> work) {
+        long start = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            result.put("result", work.call());
+            result.put("ok", true);
+        } catch (Exception e) {
+            failed = true;
+            result.put("ok", false);
+            result.put("error", e.getMessage());
+            log.warn("Startup warm-up phase {} failed: {}", name, e.getMessage());
+        }
+        result.put("ms", (System.nanoTime() - start) / 1_000_000);
+        phases.put(name, result);
+    }
+
+    // Local only: Jackson and every tier's value serializer, enough rounds to get them compiled
+    @SuppressWarnings("unchecked")
+    private Object warmCodecs() throws Exception {
+        Product sample = sampleProduct("warmup");
+        for (int i = 0; i < codecIterations; i++) {
+            objectMapper.readValue(objectMapper.writeValueAsBytes(sample), Product.class);
+            for (CacheTier tier : CacheTier.values()) {
+                RedisSerializer<Object> serializer =
+                        (RedisSerializer<Object>) tieredTemplates.forTier(tier).getValueSerializer();
+                serializer.deserialize(serializer.serialize(sample));
+            }
+        }
+        return Map.of("iterations", codecIterations);
+    }
+
+    // Write, read (decoded, passthrough, projected, version) and delete a throwaway product
+    private Object warmCachePaths() {
+        String productId = "warmup-" + UUID.randomUUID();
+        Product sample = sampleProduct(productId);
+        try {
+            for (int i = 0; i < cacheIterations; i++) {
+                redisCacheService.setProduct(productId, sample);
+                redisCacheService.getProduct(productId, Product.class);
+                redisCacheService.getProductJson(productId);
+                redisCacheService.getProductVersion(productId);
+                redisCacheService.getProductFields(List.of(productId), ProductLayout.LISTING, Product.class);
+            }
+        } finally {
+            redisCacheService.invalidateProduct(productId);
+            // Keep the synthetic traffic out of the hit rate
+            redisCacheService.resetStats();
+        }
+        return Map.of("iterations", cacheIterations);
+    }
+
+    private static Product sampleProduct(String productId) {
+        LocalDateTime timestamp = LocalDateTime.of(2025, 1, 1, 0, 0);
+        return Product.builder()
+                .id(productId)
+                .name("Warm-up product")
+                .description("Synthetic product used to warm the cache paths at startup")
+                .category("warmup")
+                .brand("warmup")
+                .sku("WARMUP-0001")
+                .price(new BigDecimal("19.99"))
+                .originalPrice(new BigDecimal("24.99"))
+                .stockQuantity(100)
+                .rating(4.5)
+                .reviewCount(10)
+                .images(List.of("https://example.com/images/warmup.jpg"))
+                .attributes(Map.of("color", "black", "size", "M"))
+                .tags(List.of("warmup"))
+                .active(true)
+                .createdAt(timestamp)
+                .updatedAt(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.ecommerce.cache.service;
+
+import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.model.TrendingProduct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+public class TrendingService {
+
+    public static final String VIEWS = "views";
+    public static final String ADD_TO_CART = "add_to_cart";
+
+    private static final List<String> EVENTS = List.of(VIEWS, ADD_TO_CART);
+
+    private final RedisCacheService redisCacheService;
+    private final Map<String, AtomicReference<SpaceSavingSketch>> sketches = new ConcurrentHashMap<>();
+
+    @Value("${analytics.trending.capacity:1000}")
+    private int capacity;
+
+    @Value("${analytics.trending.bucket-seconds:60}")
+    private long bucketSeconds;
+
+    @Value("${analytics.trending.window-minutes:60}")
+    private long windowMinutes;
+
+    public TrendingService(RedisCacheService redisCacheService) {
+        this.redisCacheService = redisCacheService;
+    }
+
+    public void recordView(String productId) {
+        record(VIEWS, productId);
+    }
+
+    public void recordAddToCart(String productId) {
+        record(ADD_TO_CART, productId);
+    }
+
+    // Each flush swaps in a fresh sketch and merges the old one into the current
+    // cluster-wide bucket, so local memory stays bounded by the sketch capacity.
+    // The old sketch is closed before it is read: an offer that raced the swap is
+    // refused and retried on the fresh sketch. Counts that fail to reach Redis are
+    // folded into the fresh sketch and go out with the next flush.
+    @Scheduled(fixedRateString = "${analytics.trending.flush-interval-ms:10000}")
+    public void flush() {
+        long bucket = currentBucket();
+        Duration ttl = Duration.ofMinutes(windowMinutes).plusSeconds(bucketSeconds);
+
+        for (String event : EVENTS) {
+            AtomicReference<SpaceSavingSketch> current = sketches.get(event);
+            if (current == null || current.get().size() == 0) {
+                continue;
+            }
+            SpaceSavingSketch sketch = current.getAndSet(new SpaceSavingSketch(capacity));
+            sketch.close();
+
+            Map<String, Long> scores = new LinkedHashMap<>();
+            for (SpaceSavingSketch.Estimate estimate : sketch.estimates()) {
+                scores.put(estimate.item(), estimate.count());
+            }
+            if (!redisCacheService.incrementTrendingScores(event, bucket, scores, ttl)) {
+                scores.forEach((productId, count) -> offer(current, productId, count));
+                continue;
+            }
+            log.debug("Flushed {} trending {} entries ({} events)", scores.size(), event, sketch.total());
+        }
+    }
+
+    public List<TrendingProduct> getTrending(String event, int limit, long windowMinutes) {
+        long window = Math.max(1, Math.min(windowMinutes, this.windowMinutes));
+        long bucketCount = Math.max(1, window * 60 / bucketSeconds);
+        long current = currentBucket();
+
+        List<Long> buckets = new ArrayList<>();
+        for (long i = 0; i < bucketCount; i++) {
+            buckets.add(current - i);
+        }
+
+        Map<String, Double> scores = redisCacheService.getTrendingScores(event, buckets, limit);
+
+        List<TrendingProduct> trending = new ArrayList<>(scores.size());
+        int rank = 1;
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            trending.add(TrendingProduct.builder()
+                    .rank(rank++)
+                    .productId(entry.getKey())
+                    .score(entry.getValue().longValue())
+                    .build());
+        }
+        return trending;
+    }
+
+    public Map<String, Object> getTopProducts(String event, int limit) {
+        Map<String, Object> top = new LinkedHashMap<>();
+        for (TrendingProduct product : getTrending(event, limit, windowMinutes)) {
+            top.put(product.getProductId(), product.getScore());
+        }
+        return top;
+    }
+
+    private void record(String event, String productId) {
+        offer(sketches.computeIfAbsent(event, e -> new AtomicReference<>(new SpaceSavingSketch(capacity))),
+                productId, 1);
+    }
+
+    // A refused offer means a flush closed the sketch after swapping in its successor
+    private static void offer(AtomicReference<SpaceSavingSketch> current, String productId, long count) {
+        while (!current.get().offer(productId, count)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / 1000 / bucketSeconds;
+    }
+}
@@ -17,6 +17,7 @@ import java.util.UUID;
 public class UserService {
 
     private final RedisCacheService redisCacheService;
+    private final AnalyticsRollupService analyticsRollupService;
 
     public Map<String, Object> createUserSession(String userId) {
         String sessionId = UUID.randomUUID().toString();
@@ -40,6 +41,7 @@ public class UserService {
 
         // Store in L2 cache using write-through pattern
         redisCacheService.setUserSession(sessionId, sessionData);
+        analyticsRollupService.record(AnalyticsRollupService.SESSIONS_CREATED, 1);
 
         log.info("Created session for user: {} sessionId: {}", userId, sessionId);
         return sessionData;
@@ -0,0 +1,105 @@
+package com.ecommerce.cache.cache;
+
+import com.ecommerce.cache.cache.AdaptiveConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final AdaptiveConcurrencyLimiter limiter =
+            new AdaptiveConcurrencyLimiter("test", 10, 2, 20, 4, 2.0, 0.5, 100);
+
+    @Test
+    void lowerPrioritiesGetAShareOfTheLimit() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(Priority.LOW));
+        }
+        assertFalse(limiter.tryAcquire(Priority.LOW));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(Priority.NORMAL));
+        }
+        assertFalse(limiter.tryAcquire(Priority.NORMAL));
+
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL));
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL));
+        assertFalse(limiter.tryAcquire(Priority.CRITICAL));
+
+        assertEquals(10, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected(Priority.LOW));
+        assertEquals(3, limiter.getRejected());
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndBacksOffWhenItRises() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(Priority.NORMAL));
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.onSuccess(FAST);
+        }
+        assertEquals(11, limiter.getLimit());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(Priority.NORMAL));
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.onSuccess(SLOW);
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhenTheLimitIsNotUsed() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(Priority.NORMAL));
+            limiter.onSuccess(FAST);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void droppedCallsCutTheLimitDownToTheMinimum() {
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(limiter.tryAcquire(Priority.CRITICAL));
+                limiter.onDropped();
+            }
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void tasksRunAtTheirSubmittersPriority() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(AdaptiveConcurrencyLimiter.PRIORITY_ATTRIBUTE, Priority.CRITICAL);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        Runnable task;
+        AtomicReference<Priority> seen = new AtomicReference<>();
+        try {
+            task = Priority.propagate(() -> seen.set(Priority.current()));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        Thread worker = new Thread(task);
+        worker.start();
+        worker.join();
+
+        assertEquals(Priority.CRITICAL, seen.get());
+        assertEquals(Priority.NORMAL, Priority.current());
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecommerce.cache.cache;
+
+import com.ecommerce.cache.model.BulkCacheResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// A bulk call sends one command per key, and each must count as one call against the
+// tier's concurrency limit and circuit, not the whole bulk as one
+class BulkCommandGuardTest {
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger peakOutstanding = new AtomicInteger();
+    private final AtomicInteger immediateReplies = new AtomicInteger();
+    private final TieredRedisTemplates tieredTemplates = mock(TieredRedisTemplates.class);
+    private RedisCacheService service;
+
+    @BeforeEach
+    void setUp() {
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        doReturn(new StringRedisSerializer()).when(template).getValueSerializer();
+        when(tieredTemplates.forTier(CacheTier.INVENTORY)).thenReturn(template);
+        when(tieredTemplates.timeoutFor(CacheTier.INVENTORY)).thenReturn(Duration.ofSeconds(1));
+
+        RedisClusterManager clusterManager = new RedisClusterManager(
+                mock(LettuceConnectionFactory.class), new RedisProperties(), new MockEnvironment());
+        service = new RedisCacheService(new ObjectMapper(), clusterManager,
+                null, null, null, tieredTemplates, new StaleFallbackCache(100, 1000, new SimpleMeterRegistry()), null);
+        ReflectionTestUtils.setField(service, "l3InventoryPrefix", "l3:inventory:");
+        ReflectionTestUtils.setField(service, "l3InventoryTtl", 300L);
+        ReflectionTestUtils.setField(service, "bulkMaxInFlight", 100);
+    }
+
+    @Test
+    void bulkSlowsToTheLimitInsteadOfBeingShed() {
+        // A limit of 2 admits one NORMAL call at a time
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("l3-inventory", 2, 2, 2, 1000, 2.0, 0.5, 100);
+        guard(limiter, new CircuitBreaker("l3-inventory", 50, 20, 0.5, 1.0, 1000, 1000, 1, System::nanoTime));
+        when(tieredTemplates.asyncFor(CacheTier.INVENTORY)).thenReturn(fakeRedis(null));
+
+        BulkCacheResult result = service.setInventories(stock(20));
+
+        assertEquals(20, result.getSucceeded());
+        assertEquals(1, peakOutstanding.get());
+        assertTrue(limiter.getRejected() > 0);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shedCommandWaitsForAnAnswerBeforeTryingAgain() {
+        AtomicInteger attempts = new AtomicInteger();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("l3-inventory", 2, 2, 2, 1000, 2.0, 0.5, 100) {
+            @Override
+            public synchronized boolean tryAcquire(Priority priority) {
+                attempts.incrementAndGet();
+                return super.tryAcquire(priority);
+            }
+        };
+        guard(limiter, new CircuitBreaker("l3-inventory", 50, 20, 0.5, 1.0, 1000, 1000, 1, System::nanoTime));
+        // The first answers arrive before the next command is issued and must not wake later retries
+        immediateReplies.set(10);
+        when(tieredTemplates.asyncFor(CacheTier.INVENTORY)).thenReturn(fakeRedis(null));
+
+        BulkCacheResult result = service.setInventories(stock(20));
+
+        assertEquals(20, result.getSucceeded());
+        // Ten admitted at once, the eleventh too, and each of the other nine shed at most once
+        assertTrue(attempts.get() <= 29, "tryAcquire calls: " + attempts.get());
+    }
+
+    @Test
+    void everyTimedOutCommandCountsAgainstTheCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("l3-inventory", 10, 5, 0.5, 1.0, 1000, 60_000, 1,
+                System::nanoTime);
+        guard(new AdaptiveConcurrencyLimiter("l3-inventory", 100, 1, 100, 1000, 2.0, 0.5, 100), circuitBreaker);
+        when(tieredTemplates.asyncFor(CacheTier.INVENTORY))
+                .thenReturn(fakeRedis(new RedisCommandTimeoutException("Command timed out")));
+
+        BulkCacheResult result = service.setInventories(stock(10));
+
+        assertEquals(10, result.getFailed());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    private void guard(AdaptiveConcurrencyLimiter limiter, CircuitBreaker circuitBreaker) {
+        when(tieredTemplates.guardFor(CacheTier.INVENTORY))
+                .thenReturn(new CommandGuard(CacheTier.INVENTORY, circuitBreaker, limiter));
+    }
+
+    private static Map<String, Integer> stock(int products) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (int i = 0; i < products; i++) {
+            quantities.put("sku-" + i, 10);
+        }
+        return quantities;
+    }
+
+    // SET only; each reply (or the given error) arrives a few milliseconds later, except the
+    // first immediateReplies, which are answered before the call returns
+    @SuppressWarnings("unchecked")
+    private RedisClusterAsyncCommands<byte[], byte[]> fakeRedis(RuntimeException error) {
+        return (RedisClusterAsyncCommands<byte[], byte[]>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RedisClusterAsyncCommands.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("set")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    CompletableFuture<String> reply = new CompletableFuture<>();
+                    if (immediateReplies.getAndDecrement() > 0) {
+                        reply.complete("OK");
+                        return future(reply);
+                    }
+                    peakOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+                    CompletableFuture.delayedExecutor(2, TimeUnit.MILLISECONDS).execute(() -> {
+                        outstanding.decrementAndGet();
+                        if (error != null) {
+                            reply.completeExceptionally(error);
+                        } else {
+                            reply.complete("OK");
+                        }
+                    });
+                    return future(reply);
+                });
+    }
+
+    private static RedisFuture<?> future(CompletableFuture<?> result) {
+        return (RedisFuture<?>) Proxy.newProxyInstance(BulkCommandGuardTest.class.getClassLoader(),
+                new Class<?>[]{RedisFuture.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("toCompletableFuture")) {
+                        return result;
+                    }
+                    try {
+                        return method.invoke(result, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.cache.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressingRedisSerializerTest {
+
+    private final Jackson2JsonRedisSerializer<Object> json =
+            new Jackson2JsonRedisSerializer<>(new ObjectMapper(), Object.class);
+    private final CompressingRedisSerializer serializer = new CompressingRedisSerializer(json, 256, 1 << 20);
+
+    @Test
+    void compressesLargeValuesAndLeavesSmallOnesPlain() {
+        Map<String, Object> large = Map.of("description", "lightweight running shoe ".repeat(100));
+        byte[] packed = serializer.serialize(large);
+
+        assertEquals(CompressingRedisSerializer.MARKER, packed[0]);
+        assertTrue(packed.length < json.serialize(large).length / 4);
+        assertEquals(large, serializer.deserialize(packed));
+
+        Map<String, Object> small = Map.of("name", "shoe");
+        assertArrayEquals(json.serialize(small), serializer.serialize(small));
+        assertEquals(1, serializer.getCompressed());
+        assertTrue(serializer.getRatio() < 0.25);
+    }
+
+    @Test
+    void readsValuesWrittenBeforeCompression() {
+        Map<String, Object> large = Map.of("description", "x".repeat(1000));
+        assertEquals(large, serializer.deserialize(json.serialize(large)));
+        assertEquals(0, serializer.getDecompressed());
+    }
+
+    @Test
+    void rejectsAnOversizedLengthBeforeAllocating() {
+        byte[] packed = serializer.serialize(Map.of("description", "lightweight running shoe ".repeat(100)));
+
+        byte[] huge = packed.clone();
+        huge[1] = 0x7f;
+        assertThrows(SerializationException.class, () -> serializer.deserialize(huge));
+
+        byte[] inflated = packed.clone();
+        inflated[1] = 0;
+        inflated[2] = 0x0f;
+        assertThrows(SerializationException.class, () -> serializer.deserialize(inflated));
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.cache.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> NODES =
+            List.of("10.0.0.1:6379", "10.0.0.2:6379", "10.0.0.3:6379", "10.0.0.4:6379");
+
+    @Test
+    void spreadsKeysEvenlyAcrossNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 160);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(ring.nodeFor("l1:product:" + i), 1, Integer::sum);
+        }
+
+        assertEquals(NODES.size(), counts.size());
+        counts.forEach((node, count) ->
+                assertTrue(Math.abs(count - 25_000) < 25_000 * 0.15, node + " owns " + count));
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES, 160);
+        ConsistentHashRing after = new ConsistentHashRing(NODES.subList(0, 3), 160);
+
+        int moved = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String key = "l1:product:" + i;
+            String owner = before.nodeFor(key);
+            if (owner.equals(NODES.get(3))) {
+                assertNotEquals(NODES.get(3), after.nodeFor(key));
+                moved++;
+            } else {
+                assertEquals(owner, after.nodeFor(key), key);
+            }
+        }
+        assertTrue(moved > 0);
+    }
+
+    @Test
+    void keysSharingAHashTagShareANode() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 160);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(ring.nodeFor("l1:product:" + i), ring.nodeFor("{l1:product:" + i + "}:version"));
+        }
+        assertEquals("l1:product:{", ConsistentHashRing.hashTag("l1:product:{"));
+        assertEquals("{}:x", ConsistentHashRing.hashTag("{}:x"));
+    }
+
+    @Test
+    void sameNodesGiveTheSameRingInAnyOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 64);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of(NODES.get(2), NODES.get(0), NODES.get(3),
+                NODES.get(1)), 64);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(ring.nodeFor("key-" + i), reordered.nodeFor("key-" + i));
+        }
+        assertNull(new ConsistentHashRing(List.of(), 64).nodeFor("key"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.cache.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The hedge may go to a replica that has not seen the latest write, so its miss must not
+// beat a primary that is still answering
+class HedgedReadTest {
+
+    private final TieredRedisTemplates tieredTemplates = mock(TieredRedisTemplates.class);
+    private RedisCacheService service;
+
+    @BeforeEach
+    void setUp() {
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        doReturn(new Jackson2JsonRedisSerializer<>(Object.class)).when(template).getValueSerializer();
+        when(tieredTemplates.forTier(CacheTier.SESSION)).thenReturn(template);
+        when(tieredTemplates.hedgePolicyFor(CacheTier.SESSION)).thenReturn(new HedgePolicy(0.95, 1, 1, 1.0));
+        when(tieredTemplates.guardFor(CacheTier.SESSION)).thenReturn(new CommandGuard(CacheTier.SESSION,
+                new CircuitBreaker("l2-session", 10, 5, 0.5, 1.0, 1000, 1000, 1, System::nanoTime),
+                new AdaptiveConcurrencyLimiter("l2-session", 10, 1, 20, 10, 2.0, 0.5, 100)));
+        when(tieredTemplates.timeoutFor(CacheTier.SESSION)).thenReturn(Duration.ofSeconds(1));
+
+        KeyLayout keyLayout = mock(KeyLayout.class);
+        when(keyLayout.sessionKey("s-1")).thenReturn("l2:session:s-1");
+
+        service = new RedisCacheService(new ObjectMapper(), null, null, keyLayout, null, tieredTemplates,
+                new StaleFallbackCache(100, 60_000, new SimpleMeterRegistry()), null);
+    }
+
+    @Test
+    void hedgedMissWaitsForThePrimary() {
+        when(tieredTemplates.sendAsync(eq(CacheTier.SESSION), any()))
+                .thenReturn(CompletableFuture.supplyAsync(() -> session("alice"),
+                        CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)));
+        when(tieredTemplates.sendHedge(eq(CacheTier.SESSION), any()))
+                .thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+        Map<String, Object> session = service.getUserSession("s-1");
+
+        assertEquals("alice", session.get("userId"));
+    }
+
+    @Test
+    void hedgedMissStandsWhenThePrimaryFails() {
+        when(tieredTemplates.sendAsync(eq(CacheTier.SESSION), any()))
+                .thenReturn(CompletableFuture.supplyAsync(() -> {
+                    throw new RedisConnectionFailureException("down");
+                }, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)));
+        when(tieredTemplates.sendHedge(eq(CacheTier.SESSION), any()))
+                .thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+        assertNull(service.getUserSession("s-1"));
+    }
+
+    private static Map<byte[], byte[]> session(String userId) {
+        return Map.of("userId".getBytes(StandardCharsets.UTF_8),
+                ("\"" + userId + "\"").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,200 @@
+package com.ecommerce.cache.cache;
+
+import com.ecommerce.cache.model.InventoryReservation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Reservations against a fake cluster connection that, like Redis Cluster, rejects a
+// script call whose KEYS span more than one slot
+class InventoryReservationTest {
+
+    private static final String PREFIX = "l3:inventory:";
+
+    private final Map<String, Long> stock = new HashMap<>();
+    private final List<Set<Integer>> callSlots = new ArrayList<>();
+    private final Set<String> slowKeys = new HashSet<>();
+    private final List<Runnable> slowReplies = new ArrayList<>();
+    private RedisCacheService service;
+
+    @BeforeEach
+    void setUp() {
+        TieredRedisTemplates tieredTemplates = mock(TieredRedisTemplates.class);
+        when(tieredTemplates.asyncFor(CacheTier.INVENTORY)).thenReturn(fakeCluster());
+        when(tieredTemplates.guardFor(CacheTier.INVENTORY)).thenReturn(new CommandGuard(CacheTier.INVENTORY,
+                new CircuitBreaker("l3-inventory", 50, 20, 0.5, 1.0, 1000, 1000, 1, System::nanoTime),
+                new AdaptiveConcurrencyLimiter("l3-inventory", 50, 1, 100, 100, 2.0, 0.5, 100)));
+        when(tieredTemplates.timeoutFor(CacheTier.INVENTORY)).thenReturn(Duration.ofMillis(100));
+
+        LettuceConnectionFactory connectionFactory = mock(LettuceConnectionFactory.class);
+        when(connectionFactory.getNativeClient()).thenReturn(mock(RedisClusterClient.class));
+
+        RedisClusterManager clusterManager = new RedisClusterManager(
+                connectionFactory, new RedisProperties(), new MockEnvironment());
+        service = new RedisCacheService(new ObjectMapper(), clusterManager,
+                null, null, null, tieredTemplates, new StaleFallbackCache(100, 1000, new SimpleMeterRegistry()),
+                null);
+        ReflectionTestUtils.setField(service, "l3InventoryPrefix", PREFIX);
+        ReflectionTestUtils.setField(service, "l3InventoryTtl", 300L);
+    }
+
+    @Test
+    void reservesProductsSpreadOverManySlots() {
+        Map<String, Integer> order = new LinkedHashMap<>();
+        for (int i = 0; i < 12; i++) {
+            stock.put(PREFIX + "sku-" + i, 10L);
+            order.put("sku-" + i, 3);
+        }
+        stock.put(PREFIX + "{bundle}-a", 5L);
+        stock.put(PREFIX + "{bundle}-b", 5L);
+        order.put("{bundle}-a", 1);
+        order.put("{bundle}-b", 2);
+
+        InventoryReservation reservation = service.reserveInventory(order);
+
+        assertTrue(reservation.isSuccess(), reservation.getFailureReason());
+        assertTrue(callSlots.stream().allMatch(slots -> slots.size() == 1));
+        assertTrue(reservation.getNodeGroups() > 1);
+        assertEquals(callSlots.size(), reservation.getNodeGroups());
+        assertEquals(7L, stock.get(PREFIX + "sku-5"));
+        assertEquals(3L, stock.get(PREFIX + "{bundle}-b"));
+        assertEquals(7L, reservation.getRemaining().get("sku-11"));
+    }
+
+    @Test
+    void releasesOtherSlotsWhenOneIsShort() {
+        Map<String, Integer> order = new LinkedHashMap<>();
+        for (int i = 0; i < 8; i++) {
+            stock.put(PREFIX + "sku-" + i, 10L);
+            order.put("sku-" + i, 4);
+        }
+        stock.put(PREFIX + "sku-3", 2L);
+
+        InventoryReservation reservation = service.reserveInventory(order);
+
+        assertFalse(reservation.isSuccess());
+        assertEquals("sku-3", reservation.getFailedProductId());
+        assertEquals(2L, reservation.getAvailableQuantity());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i == 3 ? 2L : 10L, stock.get(PREFIX + "sku-" + i), "sku-" + i);
+        }
+    }
+
+    @Test
+    void releasesAGroupWhoseReplyArrivesAfterTheTimeout() {
+        Map<String, Integer> order = new LinkedHashMap<>();
+        for (int i = 0; i < 6; i++) {
+            stock.put(PREFIX + "sku-" + i, 10L);
+            order.put("sku-" + i, 1);
+        }
+        slowKeys.add(PREFIX + "sku-2");
+
+        InventoryReservation reservation = service.reserveInventory(order);
+
+        assertFalse(reservation.isSuccess());
+        assertEquals(9L, stock.get(PREFIX + "sku-2"));
+        slowReplies.forEach(Runnable::run);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(10L, stock.get(PREFIX + "sku-" + i), "sku-" + i);
+        }
+    }
+
+    // EVALSHA only: RESERVE when there is one more ARGV than KEYS (the ttl), else RELEASE
+    @SuppressWarnings("unchecked")
+    private RedisClusterAsyncCommands<byte[], byte[]> fakeCluster() {
+        return (RedisClusterAsyncCommands<byte[], byte[]>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RedisClusterAsyncCommands.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("evalsha")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    byte[][] keys = (byte[][]) args[2];
+                    byte[][] values = (byte[][]) args[3];
+                    Set<Integer> slots = new HashSet<>();
+                    for (byte[] key : keys) {
+                        slots.add(SlotHash.getSlot(key));
+                    }
+                    callSlots.add(slots);
+                    if (slots.size() > 1) {
+                        return future(CompletableFuture.failedFuture(new RedisException(
+                                "CROSSSLOT Keys in request don't hash to the same slot")));
+                    }
+
+                    List<Object> reply = values.length > keys.length ? reserve(keys, values) : release(keys, values);
+                    if (values.length > keys.length && slowKeys.contains(string(keys[0]))) {
+                        CompletableFuture<Object> late = new CompletableFuture<>();
+                        slowReplies.add(() -> late.complete(reply));
+                        return future(late);
+                    }
+                    return future(CompletableFuture.completedFuture(reply));
+                });
+    }
+
+    private List<Object> reserve(byte[][] keys, byte[][] amounts) {
+        for (int i = 0; i < keys.length; i++) {
+            long current = stock.get(string(keys[i]));
+            if (current < Long.parseLong(string(amounts[i]))) {
+                return List.of((long) i + 1, current);
+            }
+        }
+        List<Object> reply = new ArrayList<>(List.of(0L));
+        for (int i = 0; i < keys.length; i++) {
+            reply.add(stock.merge(string(keys[i]), -Long.parseLong(string(amounts[i])), Long::sum));
+        }
+        return reply;
+    }
+
+    private List<Object> release(byte[][] keys, byte[][] amounts) {
+        List<Object> reply = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            reply.add(stock.merge(string(keys[i]), Long.parseLong(string(amounts[i])), Long::sum));
+        }
+        return reply;
+    }
+
+    private static RedisFuture<?> future(CompletableFuture<?> result) {
+        return (RedisFuture<?>) Proxy.newProxyInstance(InventoryReservationTest.class.getClassLoader(),
+                new Class<?>[]{RedisFuture.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("toCompletableFuture")) {
+                        return result;
+                    }
+                    try {
+                        return method.invoke(result, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
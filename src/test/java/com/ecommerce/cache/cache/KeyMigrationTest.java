@@ -0,0 +1,85 @@
+package com.ecommerce.cache.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Moving a legacy key must not delete a write that landed on it after it was copied
+class KeyMigrationTest {
+
+    private static final byte[] LEGACY = bytes("l2:session:s-1");
+    private static final byte[] COLOCATED = bytes("l2:session:{s-1}");
+    private static final byte[] PAYLOAD = bytes("dump-v1");
+
+    private final RedisKeyCommands keys = mock(RedisKeyCommands.class);
+    private final RedisScriptingCommands scripts = mock(RedisScriptingCommands.class);
+    private RedisCacheService service;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.keyCommands()).thenReturn(keys);
+        when(connection.scriptingCommands()).thenReturn(scripts);
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        when(template.execute(ArgumentMatchers.<RedisCallback<Object>>any()))
+                .thenAnswer(call -> call.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        TieredRedisTemplates tieredTemplates = mock(TieredRedisTemplates.class);
+        when(tieredTemplates.forTier(CacheTier.SESSION)).thenReturn(template);
+
+        KeyLayout keyLayout = new KeyLayout();
+        ReflectionTestUtils.setField(keyLayout, "l2SessionPrefix", "l2:session:");
+        service = new RedisCacheService(new ObjectMapper(), null, null, keyLayout, null, tieredTemplates,
+                new StaleFallbackCache(100, 60_000, new SimpleMeterRegistry()), null);
+
+        when(keys.dump(LEGACY)).thenReturn(PAYLOAD);
+        when(keys.pTtl(LEGACY)).thenReturn(60_000L);
+        when(keys.exists(COLOCATED)).thenReturn(false);
+    }
+
+    @Test
+    void movesAnUnchangedKey() {
+        when(scripts.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), eq(LEGACY), eq(PAYLOAD)))
+                .thenReturn(1L);
+
+        assertTrue(service.migrateSessionKey("s-1"));
+        verify(keys).restore(COLOCATED, 60_000L, PAYLOAD);
+        verify(scripts, never()).eval(any(byte[].class), any(), eq(1), eq(COLOCATED), any(byte[].class));
+    }
+
+    @Test
+    void leavesAKeyWrittenDuringTheMoveAndWithdrawsTheCopy() {
+        when(scripts.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), eq(LEGACY), eq(PAYLOAD)))
+                .thenReturn(0L);
+        when(scripts.eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), eq(COLOCATED), eq(PAYLOAD)))
+                .thenReturn(1L);
+
+        assertFalse(service.migrateSessionKey("s-1"));
+        verify(scripts).eval(any(byte[].class), eq(ReturnType.INTEGER), eq(1), eq(COLOCATED), eq(PAYLOAD));
+        verify(keys, never()).del(any(byte[].class));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
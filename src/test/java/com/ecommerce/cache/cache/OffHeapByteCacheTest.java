@@ -0,0 +1,182 @@
+package com.ecommerce.cache.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapByteCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void storesOverwritesAndRemoves() {
+        OffHeapByteCache cache = new OffHeapByteCache(64 * 1000, 4, 64, 1000, now::get);
+        for (int i = 0; i < 200; i++) {
+            assertTrue(cache.put("key-" + i, bytes("value-" + i)));
+        }
+        assertTrue(cache.put("key-7", bytes("updated")));
+        for (int i = 0; i < 200; i += 2) {
+            cache.remove("key-" + i);
+        }
+
+        assertEquals(100, cache.size());
+        assertArrayEquals(bytes("updated"), cache.get("key-7"));
+        for (int i = 1; i < 200; i += 2) {
+            assertNotNull(cache.get("key-" + i), "key-" + i);
+        }
+        assertNull(cache.get("key-8"));
+    }
+
+    @Test
+    void evictsEntriesNotReadSinceTheClockPassed() {
+        OffHeapByteCache cache = new OffHeapByteCache(64 * 4, 1, 64, 1000, now::get);
+        for (int i = 0; i < 4; i++) {
+            cache.put("key-" + i, bytes("value-" + i));
+        }
+        cache.get("key-0");
+        cache.get("key-2");
+
+        cache.put("key-4", bytes("value-4"));
+        cache.put("key-5", bytes("value-5"));
+
+        assertEquals(4, cache.size());
+        assertEquals(2, cache.getEvictions());
+        assertNotNull(cache.get("key-0"));
+        assertNotNull(cache.get("key-2"));
+        assertNull(cache.get("key-1"));
+        assertNull(cache.get("key-3"));
+    }
+
+    @Test
+    void expiresEntriesAndRejectsOversizedOnes() {
+        OffHeapByteCache cache = new OffHeapByteCache(64 * 16, 1, 64, 1000, now::get);
+        cache.put("key", bytes("value"));
+        assertFalse(cache.put("key", new byte[64]));
+        assertNull(cache.get("key"));
+
+        cache.put("key", bytes("value"));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+        assertNull(cache.get("key"));
+        assertEquals(1, cache.getExpirations());
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getRejected());
+    }
+
+    @Test
+    void keepsEachEntryInTheSmallestSlotItFits() {
+        OffHeapByteCache cache = new OffHeapByteCache(2 * 4 * 256, 1, new int[]{256, 64}, 1000, now::get);
+        assertEquals(2 * 4 * 256, cache.getCapacityBytes());
+        assertEquals(256, cache.getMaxEntryBytes());
+
+        assertTrue(cache.put("small", bytes("value")));
+        assertTrue(cache.put("large", new byte[200]));
+        assertFalse(cache.put("huge", new byte[300]));
+        assertEquals(1, cache.getRejected());
+
+        // Growing past the small slots moves the entry to a large one
+        assertTrue(cache.put("small", new byte[100]));
+        assertEquals(100, cache.get("small").length);
+        assertTrue(cache.put("small", bytes("again")));
+        assertArrayEquals(bytes("again"), cache.get("small"));
+        assertEquals(200, cache.get("large").length);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void largeEntriesEvictOnlyEachOther() {
+        // Four 256-byte slots and sixteen 64-byte slots
+        OffHeapByteCache cache = new OffHeapByteCache(2 * 4 * 256, 1, new int[]{64, 256}, 1000, now::get);
+        for (int i = 0; i < 16; i++) {
+            assertTrue(cache.put("small-" + i, bytes("value-" + i)));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(cache.put("large-" + i, new byte[200]));
+        }
+
+        assertEquals(6, cache.getEvictions());
+        for (int i = 0; i < 16; i++) {
+            assertArrayEquals(bytes("value-" + i), cache.get("small-" + i));
+        }
+    }
+
+    @Test
+    void matchesAMapUnderRandomOperations() {
+        OffHeapByteCache cache = new OffHeapByteCache(64 * 100, 2, 64, 1000, now::get);
+        Map<String, byte[]> written = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            String key = "key-" + random.nextInt(300);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    byte[] value = bytes("value-" + i);
+                    cache.put(key, value);
+                    written.put(key, value);
+                }
+                case 1 -> {
+                    cache.remove(key);
+                    written.remove(key);
+                }
+                default -> {
+                    // Evicted entries may be missing, but what is returned must be the latest write
+                    byte[] value = cache.get(key);
+                    if (value != null) {
+                        assertArrayEquals(written.get(key), value, key);
+                    }
+                }
+            }
+        }
+        assertTrue(cache.size() <= 100);
+        assertTrue(cache.getBytesUsed() <= cache.getCapacityBytes());
+    }
+
+    @Test
+    void matchesAMapWhenValuesChangeSizeClass() {
+        OffHeapByteCache cache = new OffHeapByteCache(3 * 32 * 256, 2, new int[]{32, 96, 256}, 1000, now::get);
+        Map<String, byte[]> written = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            String key = "key-" + random.nextInt(200);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    byte[] value = new byte[random.nextInt(260)];
+                    random.nextBytes(value);
+                    if (cache.put(key, value)) {
+                        written.put(key, value);
+                    } else {
+                        written.remove(key);
+                    }
+                }
+                case 1 -> {
+                    cache.remove(key);
+                    written.remove(key);
+                }
+                default -> {
+                    byte[] value = cache.get(key);
+                    if (value != null) {
+                        assertArrayEquals(written.get(key), value, key);
+                    }
+                }
+            }
+        }
+        assertTrue(cache.getBytesUsed() <= cache.getCapacityBytes());
+        assertTrue(cache.getRejected() > 0);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
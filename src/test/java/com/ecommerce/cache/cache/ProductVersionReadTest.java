@@ -0,0 +1,138 @@
+package com.ecommerce.cache.cache;
+
+import com.ecommerce.cache.model.Product;
+import com.ecommerce.cache.model.Versioned;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The version served as a product's ETag must describe the very body it is sent with
+class ProductVersionReadTest {
+
+    private static final byte[] JSON = "{\"id\":\"p-1\",\"name\":\"Lamp\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final RedisStringCommands strings = mock(RedisStringCommands.class);
+    private final RequestLookupMemo memo = new RequestLookupMemo(new SimpleMeterRegistry());
+    private RedisCacheService service;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.stringCommands()).thenReturn(strings);
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        when(template.execute(ArgumentMatchers.<RedisCallback<Object>>any()))
+                .thenAnswer(call -> call.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        doReturn(new Jackson2JsonRedisSerializer<>(Object.class)).when(template).getValueSerializer();
+
+        TieredRedisTemplates tieredTemplates = mock(TieredRedisTemplates.class);
+        when(tieredTemplates.forTier(CacheTier.PRODUCT)).thenReturn(template);
+
+        service = new RedisCacheService(new ObjectMapper(), null, memo, null, mock(ProductLayout.class),
+                tieredTemplates, new StaleFallbackCache(100, 60_000, new SimpleMeterRegistry()),
+                new ProductNearCache(false, 0, 1, List.of(), 0, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(service, "l1ProductPrefix", "l1:product:");
+    }
+
+    @Test
+    void readsBodyAndVersionInOneMget() {
+        when(strings.mGet(any(byte[][].class))).thenReturn(Arrays.asList(JSON, bytes("v1")));
+
+        Versioned<Product> product = service.getVersionedProduct("p-1", Product.class);
+
+        assertEquals("Lamp", product.value().getName());
+        assertEquals("v1", product.version());
+        verify(strings).mGet(bytes("l1:product:p-1"), bytes("{l1:product:p-1}:version"));
+    }
+
+    @Test
+    void passthroughReadCarriesTheVersionOfItsBytes() {
+        when(strings.mGet(any(byte[][].class))).thenReturn(Arrays.asList(JSON, bytes("v2")));
+
+        Versioned<byte[]> json = service.getVersionedProductJson("p-1");
+
+        assertArrayEquals(JSON, json.value());
+        assertEquals("v2", json.version());
+    }
+
+    @Test
+    void staleCopyIsServedWithoutAVersion() {
+        when(strings.mGet(any(byte[][].class)))
+                .thenReturn(Arrays.asList(JSON, bytes("v1")))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        service.getVersionedProduct("p-1", Product.class);
+
+        Versioned<Product> stale = service.getVersionedProduct("p-1", Product.class);
+
+        assertEquals("Lamp", stale.value().getName());
+        assertNull(stale.version());
+    }
+
+    @Test
+    void missHasNeitherBodyNorVersion() {
+        when(strings.mGet(any(byte[][].class))).thenReturn(Arrays.asList(null, null));
+
+        Versioned<Product> product = service.getVersionedProduct("p-1", Product.class);
+
+        assertNull(product.value());
+        assertNull(product.version());
+    }
+
+    @Test
+    void shedReadIsNotReportedAsAMiss() {
+        when(strings.mGet(any(byte[][].class))).thenThrow(new LoadShedException("l1-product"));
+
+        assertThrows(LoadShedException.class, () -> service.getVersionedProduct("p-1", Product.class));
+    }
+
+    @Test
+    void failedReadIsNotMemoizedForTheRestOfTheRequest() {
+        when(strings.mGet(any(byte[][].class)))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(Arrays.asList(JSON, bytes("v1")));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertNull(service.getProduct("p-1", Product.class));
+
+            assertEquals("Lamp", service.getProduct("p-1", Product.class).getName());
+            assertEquals("p-1", service.getProduct("p-1", Map.class).get("id"));
+            assertEquals("Lamp", service.getProduct("p-1", Product.class).getName());
+            assertEquals(1, memo.getHits());
+            verify(strings, times(3)).mGet(any(byte[][].class));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.cache.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestLookupMemoTest {
+
+    private final RequestLookupMemo memo = new RequestLookupMemo(new SimpleMeterRegistry());
+
+    @Test
+    void sameKeyReadAsAnotherTypeIsLoadedApart() {
+        Object asMap = memo.getOrLoad("l1:product:p-1", Map.class, () -> Map.of("id", "p-1"));
+        Object asString = memo.getOrLoad("l1:product:p-1", String.class, () -> "p-1");
+
+        assertEquals(Map.of("id", "p-1"), asMap);
+        assertEquals("p-1", asString);
+        assertSame(asMap, memo.getOrLoad("l1:product:p-1", Map.class, () -> Map.of()));
+        assertEquals(1, memo.getHits());
+    }
+
+    @Test
+    void invalidatingAKeyDropsEveryType() {
+        memo.getOrLoad("l1:product:p-1", Map.class, () -> Map.of("id", "p-1"));
+        memo.getOrLoad("l1:product:p-1", String.class, () -> "p-1");
+
+        memo.invalidate("l1:product:p-1");
+
+        assertEquals("p-2", memo.getOrLoad("l1:product:p-1", String.class, () -> "p-2"));
+        assertEquals(Map.of(), memo.getOrLoad("l1:product:p-1", Map.class, () -> Map.of()));
+    }
+
+    @Test
+    void missesAreMemoizedButFailuresAreNot() {
+        AtomicInteger loads = new AtomicInteger();
+        assertNull(memo.getOrLoad("l2:session:gone", () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(memo.getOrLoad("l2:session:gone", () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals(1, loads.get());
+
+        assertThrows(IllegalStateException.class, () -> memo.getOrLoad("l2:session:s-1", () -> {
+            throw new IllegalStateException("Redis down");
+        }));
+        assertEquals("alice", memo.getOrLoad("l2:session:s-1", () -> "alice"));
+    }
+}
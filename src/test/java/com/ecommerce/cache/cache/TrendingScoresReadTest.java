@@ -0,0 +1,90 @@
+package com.ecommerce.cache.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// A trending read merges the window's buckets on the server and fetches only the top members
+class TrendingScoresReadTest {
+
+    private final RedisZSetCommands zSets = mock(RedisZSetCommands.class);
+    private final RedisKeyCommands keys = mock(RedisKeyCommands.class);
+    private RedisCacheService service;
+
+    @BeforeEach
+    void setUp() {
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.zSetCommands()).thenReturn(zSets);
+        when(connection.keyCommands()).thenReturn(keys);
+
+        Set<ZSetOperations.TypedTuple<Object>> top = new LinkedHashSet<>();
+        top.add(new DefaultTypedTuple<>("p-9", 12.0));
+        top.add(new DefaultTypedTuple<>("p-3", 7.0));
+
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        doReturn(new StringRedisSerializer()).when(template).getValueSerializer();
+        when(template.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenAnswer(call -> {
+                    call.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+                    return Arrays.asList(3L, true, top, 1L);
+                });
+
+        TieredRedisTemplates tieredTemplates = mock(TieredRedisTemplates.class);
+        when(tieredTemplates.forTier(CacheTier.ANALYTICS)).thenReturn(template);
+
+        service = new RedisCacheService(new ObjectMapper(), null, null, null, null, tieredTemplates,
+                new StaleFallbackCache(100, 60_000, new SimpleMeterRegistry()), null);
+        ReflectionTestUtils.setField(service, "l4AnalyticsPrefix", "l4:analytics:");
+    }
+
+    @Test
+    void readsOnlyTheTopOfTheMergedWindow() {
+        Map<String, Double> scores = service.getTrendingScores("view", List.of(100L, 101L), 2);
+
+        assertEquals(Map.of("p-9", 12.0, "p-3", 7.0), scores);
+        assertEquals(List.of("p-9", "p-3"), List.copyOf(scores.keySet()));
+
+        ArgumentCaptor<byte[]> union = ArgumentCaptor.forClass(byte[].class);
+        ArgumentCaptor<byte[][]> sources = ArgumentCaptor.forClass(byte[][].class);
+        verify(zSets).zUnionStore(union.capture(), sources.capture());
+        assertArrayEquals(new byte[][]{bytes("l4:analytics:trending:{view}:100"),
+                bytes("l4:analytics:trending:{view}:101")}, sources.getValue());
+        verify(keys).pExpire(eq(union.getValue()), anyLong());
+        verify(zSets).zRevRangeWithScores(union.getValue(), 0, 1);
+        verify(keys).del(union.getValue());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.cache.service;
+
+import com.ecommerce.cache.cache.RedisCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Counts of a flush that does not reach Redis must go out with a later one, not be dropped
+class AnalyticsRollupServiceTest {
+
+    private final RedisCacheService redisCacheService = mock(RedisCacheService.class);
+    private final Map<String, Double> flushed = new ConcurrentHashMap<>();
+    private final AtomicBoolean redisUp = new AtomicBoolean(true);
+    private AnalyticsRollupService rollups;
+
+    @BeforeEach
+    void setUp() {
+        when(redisCacheService.incrementRollups(anyString(), eq("m"), any(), any(Duration.class)))
+                .thenAnswer(call -> {
+                    if (!redisUp.get()) {
+                        return false;
+                    }
+                    String metric = call.getArgument(0);
+                    call.<Map<Long, Double>>getArgument(2)
+                            .values().forEach(amount -> flushed.merge(metric, amount, Double::sum));
+                    return true;
+                });
+        rollups = new AnalyticsRollupService(redisCacheService, null);
+    }
+
+    @Test
+    void deltasOfAFailedFlushGoOutWithTheNext() {
+        rollups.record(AnalyticsRollupService.PRODUCT_VIEWS, 2);
+        rollups.record(AnalyticsRollupService.CART_VALUE, 1999);
+        redisUp.set(false);
+        rollups.flush();
+
+        rollups.record(AnalyticsRollupService.PRODUCT_VIEWS, 1);
+        redisUp.set(true);
+        rollups.flush();
+
+        assertEquals(Map.of(AnalyticsRollupService.PRODUCT_VIEWS, 3.0, AnalyticsRollupService.CART_VALUE, 1999.0),
+                flushed);
+    }
+
+    @Test
+    void nothingIsSentTwice() {
+        rollups.record(AnalyticsRollupService.PRODUCT_VIEWS, 5);
+        rollups.flush();
+        rollups.flush();
+
+        assertEquals(Map.of(AnalyticsRollupService.PRODUCT_VIEWS, 5.0), flushed);
+    }
+}
@@ -0,0 +1,209 @@
+package com.ecommerce.cache.service;
+
+import com.ecommerce.cache.cache.CacheTier;
+import com.ecommerce.cache.cache.KeyLayout;
+import com.ecommerce.cache.cache.RedisCacheService;
+import com.ecommerce.cache.cache.StaleFallbackCache;
+import com.ecommerce.cache.cache.TieredRedisTemplates;
+import com.ecommerce.cache.model.Cart;
+import com.ecommerce.cache.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+// The cart scripts against a real Redis: lines merge by product, and the cent totals kept
+// incrementally always match the lines
+class CartServiceTest {
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory factory;
+    private static RedisTemplate<String, Object> template;
+
+    private CartService cartService;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = RedisServer.builder().port(port).setting("bind 127.0.0.1").build();
+        server.start();
+
+        factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        factory.afterPropertiesSet();
+        factory.start();
+
+        Jackson2JsonRedisSerializer<Object> json = new Jackson2JsonRedisSerializer<>(new ObjectMapper(), Object.class);
+        template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(json);
+        template.setHashValueSerializer(json);
+        template.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        factory.destroy();
+        server.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        template.execute(connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        }, true);
+
+        KeyLayout keyLayout = new KeyLayout();
+        ReflectionTestUtils.setField(keyLayout, "mode", KeyLayout.Mode.LEGACY);
+        ReflectionTestUtils.setField(keyLayout, "readLegacyFallback", false);
+        ReflectionTestUtils.setField(keyLayout, "l2SessionPrefix", "l2:session:");
+        ReflectionTestUtils.setField(keyLayout, "l2CartPrefix", "l2:cart:");
+
+        TieredRedisTemplates tieredTemplates = mock(TieredRedisTemplates.class);
+        when(tieredTemplates.forTier(CacheTier.CART)).thenReturn(template);
+
+        RedisCacheService redis = spy(new RedisCacheService(new ObjectMapper(), null, null, keyLayout, null,
+                tieredTemplates, new StaleFallbackCache(100, 60_000, new SimpleMeterRegistry()), null));
+        ReflectionTestUtils.setField(redis, "l2CartTtl", 3600L);
+        doReturn(Map.of("userId", "u-1", "cartId", "c-1")).when(redis).getUserSession("s-1");
+        doReturn(100).when(redis).getInventory(anyString());
+        doReturn(99L).when(redis).decrementInventory(anyString(), anyInt());
+
+        ProductService productService = mock(ProductService.class);
+        when(productService.getProduct("p-1")).thenReturn(product("p-1", "Mug", "MUG-1", "12.50"));
+        when(productService.getProduct("p-2")).thenReturn(product("p-2", "Lamp", "LAMP-2", "39.99"));
+        when(productService.getProduct("p-3")).thenReturn(product("p-3", "Pen", "PEN-3", "0.35"));
+
+        cartService = new CartService(redis, productService, mock(TrendingService.class),
+                mock(AnalyticsRollupService.class));
+        ReflectionTestUtils.setField(cartService, "taxBasisPoints", 800L);
+        ReflectionTestUtils.setField(cartService, "freeShippingThresholdCents", 5000L);
+        ReflectionTestUtils.setField(cartService, "shippingFeeCents", 999L);
+    }
+
+    @Test
+    void addingTheSameProductTwiceMergesTheLine() {
+        cartService.addItemToCart("s-1", "p-1", 1);
+        Cart cart = cartService.addItemToCart("s-1", "p-1", 2);
+
+        assertEquals(1, cart.getItems().size());
+        Cart.CartItem line = cart.getItems().get(0);
+        assertEquals(3, line.getQuantity());
+        assertEquals(new BigDecimal("12.50"), line.getUnitPrice());
+        assertEquals(new BigDecimal("37.50"), line.getTotalPrice());
+
+        assertEquals(new BigDecimal("37.50"), cart.getSubtotal());
+        assertEquals(new BigDecimal("3.00"), cart.getTax());
+        assertEquals(new BigDecimal("9.99"), cart.getShipping());
+        assertEquals(new BigDecimal("50.49"), cart.getTotal());
+        assertEquals(3, template.opsForHash().get("l2:cart:c-1", "itemCount"));
+    }
+
+    @Test
+    void removingTheLastLineLeavesAnEmptyCartWithoutCharges() {
+        cartService.addItemToCart("s-1", "p-2", 1);
+        Cart cart = cartService.removeItemFromCart("s-1", "p-2");
+
+        assertTrue(cart.getItems().isEmpty());
+        assertEquals(new BigDecimal("0.00"), cart.getSubtotal());
+        assertEquals(new BigDecimal("0.00"), cart.getTax());
+        assertEquals(new BigDecimal("0.00"), cart.getShipping());
+        assertEquals(new BigDecimal("0.00"), cart.getTotal());
+        assertEquals(0, template.opsForHash().get("l2:cart:c-1", "itemCount"));
+        assertEquals("u-1", cart.getUserId());
+    }
+
+    @Test
+    void removingAMissingProductChangesNothing() {
+        Cart before = cartService.addItemToCart("s-1", "p-1", 2);
+        Cart after = cartService.removeItemFromCart("s-1", "p-9");
+
+        assertEquals(before.getItems(), after.getItems());
+        assertEquals(before.getTotal(), after.getTotal());
+    }
+
+    @Test
+    void totalsMatchTheLinesAfterInterleavedAddsAndRemoves() {
+        cartService.addItemToCart("s-1", "p-1", 1);
+        cartService.addItemToCart("s-1", "p-2", 2);
+        cartService.addItemToCart("s-1", "p-3", 3);
+        cartService.removeItemFromCart("s-1", "p-1");
+        cartService.addItemToCart("s-1", "p-3", 4);
+        cartService.addItemToCart("s-1", "p-1", 1);
+        cartService.removeItemFromCart("s-1", "p-2");
+        Cart cart = cartService.addItemToCart("s-1", "p-2", 1);
+
+        BigDecimal lines = cart.getItems().stream()
+                .map(Cart.CartItem::getTotalPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(lines, cart.getSubtotal());
+        // 12.50 + 39.99 + 7 x 0.35
+        assertEquals(new BigDecimal("54.94"), cart.getSubtotal());
+        // 8% of 54.94 is 4.3952, rounded half up to the cent; over the free-shipping threshold
+        assertEquals(new BigDecimal("4.40"), cart.getTax());
+        assertEquals(new BigDecimal("0.00"), cart.getShipping());
+        assertEquals(new BigDecimal("59.34"), cart.getTotal());
+        assertEquals(9, template.opsForHash().get("l2:cart:c-1", "itemCount"));
+    }
+
+    @Test
+    void convertsTheCartHashIntoACart() {
+        Cart cart = cartService.addItemToCart("s-1", "p-2", 1);
+
+        assertEquals("c-1", cart.getId());
+        assertEquals("u-1", cart.getUserId());
+        assertEquals("s-1", cart.getSessionId());
+        assertEquals("USD", cart.getCurrency());
+        assertNotNull(cart.getCreatedAt());
+        assertNotNull(cart.getUpdatedAt());
+        assertTrue(cart.getExpiresAt().isAfter(cart.getUpdatedAt()));
+
+        Cart.CartItem line = cart.getItems().get(0);
+        assertEquals("p-2", line.getProductId());
+        assertEquals("Lamp", line.getProductName());
+        assertEquals("LAMP-2", line.getSku());
+        assertEquals("https://img.example/p-2.jpg", line.getImageUrl());
+        assertEquals(new BigDecimal("39.99"), line.getUnitPrice());
+    }
+
+    private static Product product(String id, String name, String sku, String price) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .sku(sku)
+                .price(new BigDecimal(price))
+                .stockQuantity(100)
+                .images(List.of("https://img.example/" + id + ".jpg"))
+                .build();
+    }
+}
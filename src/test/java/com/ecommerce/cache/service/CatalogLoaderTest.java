@@ -0,0 +1,58 @@
+package com.ecommerce.cache.service;
+
+import com.ecommerce.cache.cache.RedisCacheService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// The admin endpoint may only read files that really are under the catalog directory
+class CatalogLoaderTest {
+
+    @TempDir
+    Path root;
+
+    private final ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+    private Path catalog;
+    private CatalogLoader loader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        catalog = Files.createDirectory(root.resolve("catalog"));
+        loader = new CatalogLoader(mock(RedisCacheService.class), new ObjectMapper(), executor);
+        ReflectionTestUtils.setField(loader, "directory", catalog.toString());
+    }
+
+    @Test
+    void startsAFileUnderTheDirectory() throws IOException {
+        Path file = Files.writeString(catalog.resolve("products.ndjson"), "{\"id\":\"p-1\"}\n");
+
+        assertTrue(loader.start("products.ndjson"));
+        assertEquals(file.toRealPath().toString(), loader.getStatus().get("file"));
+        verify(executor).execute(any());
+    }
+
+    @Test
+    void rejectsASymlinkThatLeavesTheDirectory() throws IOException {
+        Path outside = Files.writeString(root.resolve("secrets.ndjson"), "{}\n");
+        Files.createSymbolicLink(catalog.resolve("products.ndjson"), outside);
+
+        assertThrows(IllegalArgumentException.class, () -> loader.start("products.ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> loader.start("../secrets.ndjson"));
+        verify(executor, never()).execute(any());
+    }
+}
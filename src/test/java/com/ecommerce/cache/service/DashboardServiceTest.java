@@ -0,0 +1,70 @@
+package com.ecommerce.cache.service;
+
+import com.ecommerce.cache.cache.RedisCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// A pool too busy to take a section degrades that section instead of failing the dashboard
+class DashboardServiceTest {
+
+    private final AtomicBoolean saturated = new AtomicBoolean();
+    private DashboardService dashboardService;
+
+    @BeforeEach
+    void setUp() {
+        AnalyticsService analyticsService = mock(AnalyticsService.class);
+        when(analyticsService.getDailyAnalytics(anyString(), anyString())).thenReturn(Map.of("total", 7));
+
+        ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+        doAnswer(call -> {
+            if (saturated.get()) {
+                throw new TaskRejectedException("pool saturated");
+            }
+            call.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+
+        dashboardService = new DashboardService(mock(RedisCacheService.class), analyticsService, executor);
+        ReflectionTestUtils.setField(dashboardService, "snapshotTtlMs", 0L);
+        ReflectionTestUtils.setField(dashboardService, "sectionTimeoutMs", 500L);
+    }
+
+    @Test
+    void rejectedSectionsServeTheirLastGoodValue() {
+        dashboardService.getDashboard();
+        saturated.set(true);
+
+        Map<String, Object> dashboard = dashboardService.getDashboard();
+
+        assertEquals(true, dashboard.get("partial"));
+        assertEquals(Map.of("total", 7), dashboard.get("dailySales"));
+        assertEquals(Map.of("clusterEnabled", true, "nodeCount", 6, "masterCount", 3, "replicaCount", 3,
+                "status", "connected"), dashboard.get("redisClusterInfo"));
+        assertEquals(List.of("cacheStats", "redisClusterInfo", "dailySales", "userActivity", "productViews"),
+                dashboard.get("degradedSections"));
+    }
+
+    @Test
+    void rejectedSectionsWithoutAGoodValueAreMarkedUnavailable() {
+        saturated.set(true);
+
+        Map<String, Object> dashboard = dashboardService.getDashboard();
+
+        assertEquals(true, dashboard.get("partial"));
+        assertEquals(Map.of("status", "unavailable"), dashboard.get("productViews"));
+    }
+}
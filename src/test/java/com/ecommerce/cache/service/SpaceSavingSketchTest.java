@@ -0,0 +1,81 @@
+package com.ecommerce.cache.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void countsExactlyWhileUnderCapacity() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+        for (int i = 0; i < 5; i++) {
+            sketch.offer("a");
+        }
+        sketch.offer("b");
+        sketch.offer("b");
+        sketch.offer("c");
+
+        List<SpaceSavingSketch.Estimate> top = sketch.top(3);
+        assertEquals("a", top.get(0).item());
+        assertEquals(5, top.get(0).count());
+        assertEquals("b", top.get(1).item());
+        assertEquals(2, top.get(1).count());
+        assertEquals(0, top.get(2).error());
+        assertEquals(8, sketch.total());
+    }
+
+    @Test
+    void keepsHeavyHittersWithBoundedMemory() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(20);
+        for (int round = 0; round < 1000; round++) {
+            sketch.offer("hot-1");
+            if (round % 2 == 0) {
+                sketch.offer("hot-2");
+            }
+            sketch.offer("cold-" + round);
+        }
+
+        assertEquals(20, sketch.size());
+        List<SpaceSavingSketch.Estimate> top = sketch.top(2);
+        assertEquals("hot-1", top.get(0).item());
+        assertEquals("hot-2", top.get(1).item());
+        for (SpaceSavingSketch.Estimate estimate : top) {
+            long trueCount = estimate.item().equals("hot-1") ? 1000 : 500;
+            assertTrue(estimate.count() >= trueCount);
+            assertTrue(estimate.count() - estimate.error() <= trueCount);
+        }
+    }
+
+    @Test
+    void weightedOffersLandInOrder() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+        sketch.offer("a", 5);
+        sketch.offer("b", 2);
+        sketch.offer("c");
+        sketch.offer("b", 4);
+        sketch.offer("d", 3);
+
+        List<SpaceSavingSketch.Estimate> top = sketch.top(3);
+        assertEquals(List.of("b", "a", "d"), top.stream().map(SpaceSavingSketch.Estimate::item).toList());
+        assertEquals(6, top.get(0).count());
+        assertEquals(4, top.get(2).count());
+        assertEquals(1, top.get(2).error());
+        assertEquals(15, sketch.total());
+    }
+
+    @Test
+    void closedSketchRefusesOffers() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+        assertTrue(sketch.offer("a"));
+
+        sketch.close();
+
+        assertFalse(sketch.offer("a"));
+        assertEquals(1, sketch.total());
+    }
+}
@@ -0,0 +1,85 @@
+package com.ecommerce.cache.service;
+
+import com.ecommerce.cache.cache.RedisCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Every recorded event must reach Redis exactly once, whether it races a flush or
+// its first flush fails
+class TrendingServiceTest {
+
+    private final RedisCacheService redisCacheService = mock(RedisCacheService.class);
+    private final Map<String, Long> flushed = new ConcurrentHashMap<>();
+    private final AtomicBoolean redisUp = new AtomicBoolean(true);
+    private TrendingService trending;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(redisCacheService.incrementTrendingScores(eq(TrendingService.VIEWS), anyLong(), any(), any(Duration.class)))
+                .thenAnswer(call -> {
+                    if (!redisUp.get()) {
+                        return false;
+                    }
+                    call.<Map<String, Long>>getArgument(2).forEach((item, count) -> flushed.merge(item, count, Long::sum));
+                    return true;
+                });
+        trending = new TrendingService(redisCacheService);
+        ReflectionTestUtils.setField(trending, "capacity", 100);
+        ReflectionTestUtils.setField(trending, "bucketSeconds", 60L);
+        ReflectionTestUtils.setField(trending, "windowMinutes", 60L);
+    }
+
+    @Test
+    void countsOfAFailedFlushGoOutWithTheNext() {
+        trending.recordView("p-1");
+        trending.recordView("p-1");
+        redisUp.set(false);
+        trending.flush();
+
+        trending.recordView("p-1");
+        trending.recordView("p-2");
+        redisUp.set(true);
+        trending.flush();
+
+        assertEquals(Map.of("p-1", 3L, "p-2", 1L), flushed);
+    }
+
+    @Test
+    void noViewIsLostToAConcurrentFlush() throws InterruptedException {
+        int threads = 4;
+        int viewsPerThread = 20_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            String productId = "p-" + t;
+            new Thread(() -> {
+                for (int i = 0; i < viewsPerThread; i++) {
+                    trending.recordView(productId);
+                }
+                done.countDown();
+            }).start();
+        }
+        while (done.getCount() > 0) {
+            trending.flush();
+        }
+        trending.flush();
+
+        for (int t = 0; t < threads; t++) {
+            assertEquals(viewsPerThread, flushed.get("p-" + t), "p-" + t);
+        }
+    }
+}